@@ -0,0 +1,64 @@
+package org.docheinstein.sqlbuilder.benchmarks;
+
+import org.docheinstein.sqlbuilder.models.Column;
+import org.docheinstein.sqlbuilder.models.Table;
+import org.docheinstein.sqlbuilder.types.Int;
+import org.docheinstein.sqlbuilder.types.Varchar;
+
+/**
+ * Table used by the benchmarks.
+ */
+public class BenchmarkTable extends Table {
+
+    private static final String TABLE_NAME =        "Person";
+
+    // Columns name
+
+    public static final String ID_COL_NAME =        "Id";
+    public static final String NAME_COL_NAME =      "Name";
+    public static final String SURNAME_COL_NAME =   "Surname";
+    public static final String AGE_COL_NAME =       "Age";
+
+    // Columns
+
+    public static final Column<Integer> ID =
+        new Column<>(TABLE_NAME, ID_COL_NAME, new Int())
+        .autoIncrement()
+        .primaryKey();
+
+    public static final Column<String> NAME =
+        new Column<>(TABLE_NAME, NAME_COL_NAME, new Varchar(32))
+        .notNull();
+
+    public static final Column<String> SURNAME =
+        new Column<>(TABLE_NAME, SURNAME_COL_NAME, new Varchar(32))
+        .notNull();
+
+    public static final Column<Integer> AGE =
+        new Column<>(TABLE_NAME, AGE_COL_NAME, new Int());
+
+    /** The labels of the columns, in table order. */
+    public static final String[] COLUMN_NAMES = {
+        ID_COL_NAME, NAME_COL_NAME, SURNAME_COL_NAME, AGE_COL_NAME
+    };
+
+    public static final BenchmarkTable TABLE = new BenchmarkTable();
+
+    private BenchmarkTable() {
+        super(TABLE_NAME);
+
+        col(ID);
+        col(NAME);
+        col(SURNAME);
+        col(AGE);
+    }
+
+    /**
+     * Returns the values of the i-th row of the benchmarks, in table order.
+     * @param i the index of the row
+     * @return the values of the row
+     */
+    public static Object[] row(int i) {
+        return new Object[] { i, "Name" + i, "Surname" + i, i % 100 };
+    }
+}
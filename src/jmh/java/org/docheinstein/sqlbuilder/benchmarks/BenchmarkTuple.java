@@ -0,0 +1,22 @@
+package org.docheinstein.sqlbuilder.benchmarks;
+
+import org.docheinstein.sqlbuilder.models.ColumnField;
+import org.docheinstein.sqlbuilder.models.Tuple;
+
+/**
+ * Tuple of {@link BenchmarkTable}.
+ */
+public class BenchmarkTuple implements Tuple {
+
+    @ColumnField(BenchmarkTable.ID_COL_NAME)
+    public Integer id;
+
+    @ColumnField(BenchmarkTable.NAME_COL_NAME)
+    public String name;
+
+    @ColumnField(BenchmarkTable.SURNAME_COL_NAME)
+    public String surname;
+
+    @ColumnField(BenchmarkTable.AGE_COL_NAME)
+    public int age;
+}
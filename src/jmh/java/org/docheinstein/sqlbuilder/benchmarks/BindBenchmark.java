@@ -0,0 +1,78 @@
+package org.docheinstein.sqlbuilder.benchmarks;
+
+import org.docheinstein.sqlbuilder.commons.SqlBuilderInternalUtil;
+import org.docheinstein.sqlbuilder.expressions.Expression;
+import org.docheinstein.sqlbuilder.fake.FakeDatabase;
+import org.docheinstein.sqlbuilder.statements.base.CompiledQueryStatement;
+import org.docheinstein.sqlbuilder.statements.shared.Insert;
+import org.docheinstein.sqlbuilder.statements.shared.Select;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import static org.docheinstein.sqlbuilder.benchmarks.BenchmarkTable.*;
+
+/**
+ * Measures the binding of the values of the statements to a
+ * {@link PreparedStatement}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindBenchmark {
+
+    /** Number of rows of the INSERT. */
+    private static final int INSERT_ROWS = 1000;
+
+    /** Number of values bound to the SELECT. */
+    @Param({"4", "64"})
+    public int values;
+
+    /** The statement the values are bound to. */
+    private PreparedStatement mStatement;
+
+    /** SELECT with a WHERE of values conditions. */
+    private Select mSelect;
+
+    /** The compiled version of mSelect. */
+    private CompiledQueryStatement mCompiledSelect;
+
+    /** INSERT of INSERT_ROWS rows. */
+    private Insert mInsert;
+
+    @Setup
+    public void setUp() throws SQLException {
+        mStatement = new FakeDatabase().connection().prepareStatement("");
+
+        Expression where = ID.eq(0);
+        for (int i = 1; i < values; i++)
+            where = i % 2 == 0 ? where.or(ID.eq(i)) : where.or(NAME.eq("Name" + i));
+
+        mSelect = TABLE.select(ID, NAME).where(where);
+        mCompiledSelect = mSelect.compile();
+
+        mInsert = TABLE.insert();
+        for (int i = 0; i < INSERT_ROWS; i++)
+            mInsert.values(row(i));
+    }
+
+    @Benchmark
+    public PreparedStatement boundSelect() throws SQLException {
+        return SqlBuilderInternalUtil.boundStatement(mStatement, mSelect);
+    }
+
+    @Benchmark
+    public PreparedStatement boundCompiledSelect() throws SQLException {
+        return SqlBuilderInternalUtil.boundStatement(mStatement, mCompiledSelect);
+    }
+
+    @Benchmark
+    public PreparedStatement boundInsert1kRows() throws SQLException {
+        return SqlBuilderInternalUtil.boundStatement(mStatement, mInsert);
+    }
+}
@@ -0,0 +1,68 @@
+package org.docheinstein.sqlbuilder.benchmarks;
+
+import org.docheinstein.sqlbuilder.fake.FakeDatabase;
+import org.docheinstein.sqlbuilder.fake.FakeResult;
+import org.docheinstein.sqlbuilder.statements.base.CompiledUpdateStatement;
+import org.docheinstein.sqlbuilder.statements.shared.Select;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.docheinstein.sqlbuilder.benchmarks.BenchmarkTable.*;
+
+/**
+ * Measures the execution of the statements over an in-process database,
+ * i.e. the statement cache, the binding and the batching of the library.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExecBenchmark {
+
+    /** Number of rows of the batch. */
+    private static final int BATCH_ROWS = 1000;
+
+    /** The connection to the in-process database. */
+    private Connection mConnection;
+
+    /** SELECT by primary key, whose statement is cached. */
+    private Select mSelect;
+
+    /** The compiled INSERT executed in batches. */
+    private CompiledUpdateStatement mInsert;
+
+    /** The rows of the batch. */
+    private List<Object[]> mBatchRows;
+
+    @Setup
+    public void setUp() {
+        mConnection = new FakeDatabase()
+            .result(FakeResult.of(COLUMN_NAMES, new Object[][] { row(1) }))
+            .connection();
+
+        mSelect = TABLE.select(ID, NAME, SURNAME, AGE).where(ID.eq(1));
+
+        mInsert = TABLE.insert().values(row(0)).compile();
+
+        mBatchRows = new ArrayList<>();
+        for (int i = 0; i < BATCH_ROWS; i++)
+            mBatchRows.add(row(i));
+    }
+
+    @Benchmark
+    public List<BenchmarkTuple> fetchByPrimaryKey() throws SQLException {
+        return mSelect.fetch(mConnection, BenchmarkTuple.class);
+    }
+
+    @Benchmark
+    public List<int[]> execBatch1kRows() throws SQLException {
+        return mInsert.execBatch(mConnection, mBatchRows);
+    }
+}
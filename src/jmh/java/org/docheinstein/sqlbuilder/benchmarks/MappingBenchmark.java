@@ -0,0 +1,55 @@
+package org.docheinstein.sqlbuilder.benchmarks;
+
+import org.docheinstein.sqlbuilder.fake.FakeDatabase;
+import org.docheinstein.sqlbuilder.fake.FakeResult;
+import org.docheinstein.sqlbuilder.statements.shared.Select;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import static org.docheinstein.sqlbuilder.benchmarks.BenchmarkTable.*;
+
+/**
+ * Measures the mapping of the rows of a result set to tuples.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    /** Number of rows of the result set. */
+    @Param({"1", "1000"})
+    public int rows;
+
+    /** The query whose rows are mapped. */
+    private Select mSelect;
+
+    /** The statement of the query, which provides a new result set for each invocation. */
+    private PreparedStatement mStatement;
+
+    @Setup
+    public void setUp() throws SQLException {
+        mSelect = TABLE.select(ID, NAME, SURNAME, AGE);
+
+        Object[][] values = new Object[rows][];
+        for (int i = 0; i < rows; i++)
+            values[i] = row(i);
+
+        mStatement = new FakeDatabase()
+            .result(FakeResult.of(COLUMN_NAMES, values))
+            .connection()
+            .prepareStatement(mSelect.toSql());
+    }
+
+    @Benchmark
+    public void forEachInternal(Blackhole blackhole) throws SQLException {
+        // The result set is closed by forEachInternal
+        mSelect.forEachInternal(BenchmarkTuple.class, blackhole::consume, mStatement.executeQuery());
+    }
+}
@@ -0,0 +1,70 @@
+package org.docheinstein.sqlbuilder.benchmarks;
+
+import org.docheinstein.sqlbuilder.expressions.Expression;
+import org.docheinstein.sqlbuilder.statements.shared.Insert;
+import org.docheinstein.sqlbuilder.statements.shared.Select;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.docheinstein.sqlbuilder.benchmarks.BenchmarkTable.*;
+
+/**
+ * Measures the rendering of the sql strings of the statements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    /** Number of rows of the INSERT. */
+    private static final int INSERT_ROWS = 1000;
+
+    /** Number of nested expressions of the deep WHERE. */
+    @Param({"16", "128"})
+    public int depth;
+
+    /** SELECT with a WHERE of two conditions. */
+    private Select mSmallSelect;
+
+    /** SELECT with a WHERE of depth nested conditions. */
+    private Select mDeepSelect;
+
+    /** INSERT of INSERT_ROWS rows. */
+    private Insert mInsert;
+
+    @Setup
+    public void setUp() {
+        mSmallSelect = TABLE.select(ID, NAME)
+            .where(ID.eq(1).and(NAME.like("J%")));
+
+        // Alternates AND and OR, so that the tree can't be flattened
+        Expression where = AGE.gt(0);
+        for (int i = 0; i < depth; i++)
+            where = i % 2 == 0 ? where.and(ID.neq(i)) : where.or(NAME.eq("Name" + i));
+
+        mDeepSelect = TABLE.select(ID, NAME, SURNAME, AGE).where(where);
+
+        mInsert = TABLE.insert();
+        for (int i = 0; i < INSERT_ROWS; i++)
+            mInsert.values(row(i));
+    }
+
+    @Benchmark
+    public String selectSmallWhere() {
+        return mSmallSelect.toSql();
+    }
+
+    @Benchmark
+    public String selectDeepWhere() {
+        return mDeepSelect.toSql();
+    }
+
+    @Benchmark
+    public String insert1kRows() {
+        return mInsert.toSql();
+    }
+}
@@ -1,5 +1,7 @@
 package org.docheinstein.sqlbuilder;
 
+import org.docheinstein.sqlbuilder.models.Column;
+
 import java.util.List;
 
 /**
@@ -9,10 +11,57 @@ import java.util.List;
  */
 public interface SqlBindable extends Sqlable {
 
+    /**
+     * Receives the objects that should be bound to an entity, in the
+     * same order of the '?' placeholders of its sql string.
+     * @param <E> the type of the exception the sink might throw
+     */
+    @FunctionalInterface
+    interface BindableSink<E extends Exception> {
+
+        /**
+         * Receives the next object to bind.
+         * @param bindable the object to bind
+         * @throws E if the object can't be handled
+         */
+        void accept(Object bindable) throws E;
+
+        /**
+         * Receives the next object to bind together with the column of the
+         * parameter it is bound to (i.e. the column the object is compared
+         * with or assigned to).
+         * @param bindable the object to bind
+         * @param column the column of the parameter, might be null if unknown
+         * @throws E if the object can't be handled
+         */
+        default void accept(Object bindable, Column<?> column) throws E {
+            accept(bindable);
+        }
+    }
+
     /**
      * Returns the list of object that should be bound to this entity
      * for create a {@link java.sql.PreparedStatement}.
      * @return a list of object to bound to this entity
      */
     List<Object> getBindableObjects();
+
+    /**
+     * Passes each object that should be bound to this entity to the given sink.
+     * <p>
+     * Differently from {@link #getBindableObjects()} this method doesn't
+     * require to build any intermediate list: entities composed by other
+     * entities (e.g. expressions) should override this method and simply
+     * forward the sink to their members.
+     * @param sink the sink that receives the objects
+     * @param <E> the type of the exception the sink might throw
+     * @throws E if the sink fails to handle an object
+     */
+    default <E extends Exception> void collectBindableObjects(BindableSink<E> sink) throws E {
+        List<Object> bindables = getBindableObjects();
+        if (bindables == null)
+            return;
+        for (Object bindable : bindables)
+            sink.accept(bindable);
+    }
 }
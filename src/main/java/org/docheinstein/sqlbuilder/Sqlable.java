@@ -1,5 +1,7 @@
 package org.docheinstein.sqlbuilder;
 
+import org.docheinstein.sqlbuilder.commons.Fingerprint;
+
 /**
  * Represents an entity which can be translated into an SQL string.
  */
@@ -11,5 +13,31 @@ public interface Sqlable {
      */
     String toSql();
 
+    /**
+     * Appends the sql representation of this entity to the given builder.
+     * <p>
+     * Entities that are usually nested into other ones (e.g. expressions,
+     * columns, subqueries) should override this method and render themselves
+     * directly into the builder, so that a whole statement is rendered into
+     * a single buffer; in that case {@link #toSql()} should be a wrapper
+     * of this method.
+     * @param sql the builder to append the sql string to
+     */
+    default void appendSql(StringBuilder sql) {
+        sql.append(toSql());
+    }
 
+    /**
+     * Appends the structural fingerprint of this entity to the given one.
+     * <p>
+     * The fingerprint must account for everything that contributes to the
+     * sql string of this entity, but not for the values bound to it.
+     * The default implementation appends the whole sql string; entities
+     * that are usually nested into other ones should override this method
+     * and append their structure instead, without rendering themselves.
+     * @param fingerprint the fingerprint to append to
+     */
+    default void appendFingerprint(Fingerprint fingerprint) {
+        fingerprint.append(toSql());
+    }
 }
@@ -0,0 +1,22 @@
+package org.docheinstein.sqlbuilder.commons;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Task that works over a connection, e.g. the execution of a statement.
+ * @param <R> the type of the result of the task
+ *
+ * @see SqlBuilderInternalUtil#supplyAsync(javax.sql.DataSource, ConnectionTask, java.util.concurrent.Executor)
+ */
+@FunctionalInterface
+public interface ConnectionTask<R> {
+
+    /**
+     * Runs this task over the given connection.
+     * @param connection the connection
+     * @return the result of the task
+     * @throws SQLException if the task fails
+     */
+    R run(Connection connection) throws SQLException;
+}
@@ -0,0 +1,178 @@
+package org.docheinstein.sqlbuilder.commons;
+
+import java.sql.ResultSet;
+
+/**
+ * Options applied to the {@link java.sql.PreparedStatement} of a query
+ * when it is created: the fetch size, the type and the concurrency of
+ * the result set and whether the result set should be streamed.
+ * <p>
+ * A streamed result set is read from the database while it is iterated
+ * instead of being buffered entirely in memory; the way this is achieved
+ * depends on the driver:
+ * <ul>
+ *     <li>MySQL: the fetch size is set to {@link Integer#MIN_VALUE}</li>
+ *     <li>PostgreSQL: the fetch size is set to a positive value (the given
+ *     one or {@link #DEFAULT_STREAMING_FETCH_SIZE}), which makes the driver
+ *     use a cursor only if the connection is not in auto-commit mode</li>
+ * </ul>
+ * The database is figured out from the language set via
+ * {@link SqlBuilder#setLanguage(SqlLanguage)} or, if not set, from the
+ * metadata of the connection.
+ * <p>
+ * Fetch options are immutable: each with*() method returns new options.
+ * Since the options are applied when the statement is created, they are
+ * part of the key of the cached statements.
+ */
+public final class FetchOptions {
+
+    /** The options used by default (i.e. the defaults of the driver). */
+    public static final FetchOptions DEFAULT = new FetchOptions(
+        0, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, false);
+
+    /** The fetch size used for streaming on PostgreSQL if none is specified. */
+    public static final int DEFAULT_STREAMING_FETCH_SIZE = 1000;
+
+    /** The fetch size, or 0 for the driver's default. */
+    private final int mFetchSize;
+
+    /** The type of the result set. */
+    private final int mResultSetType;
+
+    /** The concurrency of the result set. */
+    private final int mResultSetConcurrency;
+
+    /** Whether the result set should be streamed. */
+    private final boolean mStreaming;
+
+    /**
+     * Creates new fetch options.
+     * @param fetchSize the fetch size, or 0 for the driver's default
+     * @param resultSetType the type of the result set
+     * @param resultSetConcurrency the concurrency of the result set
+     * @param streaming whether the result set should be streamed
+     */
+    private FetchOptions(int fetchSize, int resultSetType,
+                         int resultSetConcurrency, boolean streaming) {
+        if (fetchSize < 0)
+            throw new IllegalArgumentException("The fetch size can't be negative");
+
+        mFetchSize = fetchSize;
+        mResultSetType = resultSetType;
+        mResultSetConcurrency = resultSetConcurrency;
+        mStreaming = streaming;
+    }
+
+    /**
+     * Returns options equal to these but with the given fetch size.
+     * @param fetchSize the number of rows fetched from the database
+     *                  at once, or 0 for the driver's default
+     * @return the new options
+     */
+    public FetchOptions withFetchSize(int fetchSize) {
+        return new FetchOptions(fetchSize, mResultSetType, mResultSetConcurrency, mStreaming);
+    }
+
+    /**
+     * Returns options equal to these but with the given result set type.
+     * @param resultSetType the type of the result set
+     *                      (e.g. {@link ResultSet#TYPE_FORWARD_ONLY})
+     * @return the new options
+     */
+    public FetchOptions withResultSetType(int resultSetType) {
+        return new FetchOptions(mFetchSize, resultSetType, mResultSetConcurrency, mStreaming);
+    }
+
+    /**
+     * Returns options equal to these but with the given result set concurrency.
+     * @param resultSetConcurrency the concurrency of the result set
+     *                             (e.g. {@link ResultSet#CONCUR_READ_ONLY})
+     * @return the new options
+     */
+    public FetchOptions withResultSetConcurrency(int resultSetConcurrency) {
+        return new FetchOptions(mFetchSize, mResultSetType, resultSetConcurrency, mStreaming);
+    }
+
+    /**
+     * Returns options equal to these but that stream the result set or not.
+     * <p>
+     * A streamed result set is always forward only and read only.
+     * @param streaming whether the result set should be streamed
+     * @return the new options
+     */
+    public FetchOptions withStreaming(boolean streaming) {
+        return streaming ?
+            new FetchOptions(mFetchSize,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, true) :
+            new FetchOptions(mFetchSize, mResultSetType, mResultSetConcurrency, false);
+    }
+
+    /**
+     * Returns the fetch size.
+     * @return the fetch size, or 0 for the driver's default
+     */
+    public int getFetchSize() {
+        return mFetchSize;
+    }
+
+    /**
+     * Returns the type of the result set.
+     * @return the type of the result set
+     */
+    public int getResultSetType() {
+        return mResultSetType;
+    }
+
+    /**
+     * Returns the concurrency of the result set.
+     * @return the concurrency of the result set
+     */
+    public int getResultSetConcurrency() {
+        return mResultSetConcurrency;
+    }
+
+    /**
+     * Returns whether the result set should be streamed.
+     * @return whether the result set should be streamed
+     */
+    public boolean isStreaming() {
+        return mStreaming;
+    }
+
+    /**
+     * Returns whether these options are equal to {@link #DEFAULT}.
+     * @return whether these options leave the driver's defaults untouched
+     */
+    public boolean isDefault() {
+        return equals(DEFAULT);
+    }
+
+    @Override
+    public int hashCode() {
+        return ((mFetchSize * 31 + mResultSetType) * 31 + mResultSetConcurrency) * 31
+            + (mStreaming ? 1 : 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof FetchOptions))
+            return false;
+
+        FetchOptions other = (FetchOptions) o;
+
+        return mFetchSize == other.mFetchSize &&
+            mResultSetType == other.mResultSetType &&
+            mResultSetConcurrency == other.mResultSetConcurrency &&
+            mStreaming == other.mStreaming;
+    }
+
+    @Override
+    public String toString() {
+        return "fetchSize = " + mFetchSize +
+            ", resultSetType = " + mResultSetType +
+            ", resultSetConcurrency = " + mResultSetConcurrency +
+            ", streaming = " + mStreaming;
+    }
+}
@@ -0,0 +1,130 @@
+package org.docheinstein.sqlbuilder.commons;
+
+import org.docheinstein.sqlbuilder.Sqlable;
+import org.docheinstein.sqlbuilder.statements.base.Statement;
+
+/**
+ * Accumulates the structural fingerprint of an {@link Sqlable} entity.
+ * <p>
+ * The fingerprint is a 64 bit hash of the shape of the sql string of the
+ * entity (keywords, tables, columns, operators, parentheses and bind slots)
+ * which doesn't depend on the values bound to the entity.
+ * Entities contribute to it via {@link Sqlable#appendFingerprint(Fingerprint)},
+ * which mirrors {@link Sqlable#appendSql(StringBuilder)}: entities with the
+ * same fingerprint render the same sql string, thus the fingerprint is used
+ * as cache key in place of the sql string, without building it.
+ * <p>
+ * Each token is hashed with FNV-1a together with its length, so that the
+ * boundaries between the tokens are part of the fingerprint too.
+ */
+public final class Fingerprint {
+
+    /** FNV-1a 64 bit offset basis. */
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    /** FNV-1a 64 bit prime. */
+    private static final long PRIME = 0x100000001b3L;
+
+    /** Token appended in place of a missing (null) element. */
+    private static final long NULL_TOKEN = 0x9e3779b97f4a7c15L;
+
+    /** The hash accumulated so far. */
+    private long mHash = OFFSET_BASIS;
+
+    /**
+     * Returns the fingerprint of the given entity.
+     * @param sqlable the entity
+     * @return the fingerprint of the entity
+     */
+    public static long of(Sqlable sqlable) {
+        if (sqlable instanceof Statement)
+            return ((Statement) sqlable).fingerprint();
+
+        return new Fingerprint().append(sqlable).get();
+    }
+
+    /**
+     * Returns the fingerprint of the given sql string, for the statements
+     * which are known only by their sql string.
+     * @param sql the sql string
+     * @return the fingerprint of the sql string
+     */
+    public static long of(String sql) {
+        return new Fingerprint().append(sql).get();
+    }
+
+    /**
+     * Appends the fingerprint of the given entity.
+     * @param sqlable the entity, might be null
+     * @return this fingerprint
+     */
+    public Fingerprint append(Sqlable sqlable) {
+        if (sqlable == null)
+            return append(NULL_TOKEN);
+
+        sqlable.appendFingerprint(this);
+        return this;
+    }
+
+    /**
+     * Appends a string token (e.g. a keyword or the name of a column).
+     * @param token the token, might be null
+     * @return this fingerprint
+     */
+    public Fingerprint append(CharSequence token) {
+        if (token == null)
+            return append(NULL_TOKEN);
+
+        long hash = mHash;
+        int length = token.length();
+
+        for (int i = 0; i < length; i++)
+            hash = (hash ^ token.charAt(i)) * PRIME;
+
+        mHash = hash;
+        return append(length);
+    }
+
+    /**
+     * Appends a numeric token (e.g. the number of elements of a list).
+     * @param token the token
+     * @return this fingerprint
+     */
+    public Fingerprint append(long token) {
+        long hash = mHash;
+
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = (hash ^ (token & 0xff)) * PRIME;
+            token >>>= 8;
+        }
+
+        mHash = hash;
+        return this;
+    }
+
+    /**
+     * Appends a flag (e.g. whether a clause is enabled).
+     * @param token the flag
+     * @return this fingerprint
+     */
+    public Fingerprint append(boolean token) {
+        mHash = (mHash ^ (token ? 1 : 2)) * PRIME;
+        return this;
+    }
+
+    /**
+     * Returns the fingerprint accumulated so far.
+     * @return the fingerprint
+     */
+    public long get() {
+        // Final avalanche (MurmurHash3's fmix64), so that similar
+        // shapes don't produce similar fingerprints
+        long hash = mHash;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
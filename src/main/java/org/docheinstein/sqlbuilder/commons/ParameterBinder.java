@@ -0,0 +1,23 @@
+package org.docheinstein.sqlbuilder.commons;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Binds a value to a parameter of a {@link PreparedStatement}
+ * using the setter that fits the value (e.g. setInt, setString, ...).
+ *
+ * @see ParameterBinders
+ */
+@FunctionalInterface
+public interface ParameterBinder {
+
+    /**
+     * Binds the given value to the parameter of the statement.
+     * @param statement the statement
+     * @param index the index of the parameter (starting from 1)
+     * @param value the value to bind
+     * @throws SQLException if the value can't be bound
+     */
+    void bind(PreparedStatement statement, int index, Object value) throws SQLException;
+}
@@ -0,0 +1,139 @@
+package org.docheinstein.sqlbuilder.commons;
+
+import org.docheinstein.sqlbuilder.types.Type;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Contains the {@link ParameterBinder}s used by the library for bind
+ * the values to the parameters of the statements.
+ * <p>
+ * The binder of a value is chosen by the class of the value, so that
+ * the most specific setter of {@link PreparedStatement} is called instead
+ * of {@link PreparedStatement#setObject(int, Object)}; the binder of each
+ * class is resolved only once.
+ * <p>
+ * Null values are bound with {@link PreparedStatement#setNull(int, int)}
+ * when the {@link Type} of the parameter is known.
+ */
+public class ParameterBinders {
+
+    /** Binder used for the values whose class doesn't have a specific setter. */
+    public static final ParameterBinder OBJECT_BINDER = PreparedStatement::setObject;
+
+    /** Binders of the classes which have a specific setter. */
+    private static final Map<Class<?>, ParameterBinder> CLASS_BINDERS = new HashMap<>();
+
+    static {
+        CLASS_BINDERS.put(String.class,
+            (stmt, i, v) -> stmt.setString(i, (String) v));
+        CLASS_BINDERS.put(Integer.class,
+            (stmt, i, v) -> stmt.setInt(i, (Integer) v));
+        CLASS_BINDERS.put(Long.class,
+            (stmt, i, v) -> stmt.setLong(i, (Long) v));
+        CLASS_BINDERS.put(Short.class,
+            (stmt, i, v) -> stmt.setShort(i, (Short) v));
+        CLASS_BINDERS.put(Byte.class,
+            (stmt, i, v) -> stmt.setByte(i, (Byte) v));
+        CLASS_BINDERS.put(Boolean.class,
+            (stmt, i, v) -> stmt.setBoolean(i, (Boolean) v));
+        CLASS_BINDERS.put(Double.class,
+            (stmt, i, v) -> stmt.setDouble(i, (Double) v));
+        CLASS_BINDERS.put(Float.class,
+            (stmt, i, v) -> stmt.setFloat(i, (Float) v));
+        CLASS_BINDERS.put(BigDecimal.class,
+            (stmt, i, v) -> stmt.setBigDecimal(i, (BigDecimal) v));
+        CLASS_BINDERS.put(java.sql.Timestamp.class,
+            (stmt, i, v) -> stmt.setTimestamp(i, (java.sql.Timestamp) v));
+        CLASS_BINDERS.put(java.sql.Date.class,
+            (stmt, i, v) -> stmt.setDate(i, (java.sql.Date) v));
+        CLASS_BINDERS.put(java.sql.Time.class,
+            (stmt, i, v) -> stmt.setTime(i, (java.sql.Time) v));
+        CLASS_BINDERS.put(byte[].class,
+            (stmt, i, v) -> stmt.setBytes(i, (byte[]) v));
+    }
+
+    /** Lazily resolved binder of each class. */
+    private static final ClassValue<ParameterBinder> BINDERS = new ClassValue<ParameterBinder>() {
+        @Override
+        protected ParameterBinder computeValue(Class<?> clazz) {
+            ParameterBinder binder = CLASS_BINDERS.get(clazz);
+            return binder != null ? binder : OBJECT_BINDER;
+        }
+    };
+
+    /**
+     * Returns the binder for the values of the given class.
+     * @param clazz the class of the values
+     * @return the binder of the class
+     */
+    public static ParameterBinder forClass(Class<?> clazz) {
+        return BINDERS.get(clazz);
+    }
+
+    /**
+     * Binds the given value to the parameter of the statement.
+     * @param statement the statement
+     * @param index the index of the parameter (starting from 1)
+     * @param value the value to bind
+     * @param type the type of the parameter, might be null if unknown
+     * @throws SQLException if the value can't be bound
+     */
+    public static void bind(PreparedStatement statement, int index,
+                            Object value, Type<?> type) throws SQLException {
+        if (value == null)
+            bindNull(statement, index, type);
+        else
+            BINDERS.get(value.getClass()).bind(statement, index, value);
+    }
+
+    /**
+     * Returns a binder planned for a parameter whose values are expected
+     * to be of the given class and whose type is the given one.
+     * <p>
+     * The planned binder uses the binder of the expected class without
+     * any lookup as long as the bound values are of that class, binds
+     * the null values according to the type and falls back to
+     * {@link #bind(PreparedStatement, int, Object, Type)} otherwise.
+     * @param expectedClass the expected class of the values, might be null
+     *                      if unknown
+     * @param type the type of the parameter, might be null if unknown
+     * @return the planned binder
+     */
+    public static ParameterBinder plan(Class<?> expectedClass, Type<?> type) {
+        if (expectedClass == null)
+            return (stmt, i, v) -> bind(stmt, i, v, type);
+
+        ParameterBinder expectedBinder = forClass(expectedClass);
+
+        return (stmt, i, v) -> {
+            if (v != null && v.getClass() == expectedClass)
+                expectedBinder.bind(stmt, i, v);
+            else
+                bind(stmt, i, v, type);
+        };
+    }
+
+    /**
+     * Binds a null value to the parameter of the statement.
+     * @param statement the statement
+     * @param index the index of the parameter (starting from 1)
+     * @param type the type of the parameter, might be null if unknown
+     * @throws SQLException if the value can't be bound
+     */
+    private static void bindNull(PreparedStatement statement, int index,
+                                 Type<?> type) throws SQLException {
+        int sqlType = type != null ? type.getSqlType() : Types.NULL;
+
+        if (sqlType != Types.NULL)
+            statement.setNull(index, sqlType);
+        else
+            // Leave the decision to the driver
+            statement.setObject(index, null);
+    }
+}
@@ -1,17 +1,38 @@
 package org.docheinstein.sqlbuilder.commons;
 
+import org.docheinstein.sqlbuilder.metrics.SqlBuilderMetrics;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Main class of the project.
  * <p>
- * Actually this is used only for set the language via {@link #setLanguage(SqlLanguage)},
+ * Actually this is used for set the language via {@link #setLanguage(SqlLanguage)},
  * which must be done for use specific language statements like
- * {@link org.docheinstein.sqlbuilder.statements.mysql.CreateTriggerMySQL}.
+ * {@link org.docheinstein.sqlbuilder.statements.mysql.CreateTriggerMySQL},
+ * for configure the cache of the {@link java.sql.PreparedStatement}s,
+ * the cache of the query results, the executor of the asynchronous
+ * executions and the metrics of the executions.
  */
 public class SqlBuilder {
 
     /** Language used by specific language statements. */
     private static SqlLanguage sLanguage = null;
 
+    /** Executor of the asynchronous executions (created lazily if not set). */
+    private static volatile Executor sExecutor = null;
+
+    /** Metrics of the executions of the statements. */
+    private static volatile SqlBuilderMetrics sMetrics = SqlBuilderMetrics.NONE;
+
     /**
      * Sets the global SQL language used by specific language statements.
      * @param sqlLanguage the language to use
@@ -36,4 +57,258 @@ public class SqlBuilder {
     public static boolean isLanguageSet() {
         return sLanguage != null;
     }
+
+    /**
+     * Sets the maximum number of {@link java.sql.PreparedStatement}s kept in
+     * the statement cache for each connection.
+     * <p>
+     * When the limit is exceeded the least recently used statements of the
+     * connection are evicted from the cache and closed; the statements of
+     * the other connections are never affected.
+     * @param maxSize the maximum number of cached statements of a connection
+     */
+    public static void setStatementCacheMaxSize(int maxSize) {
+        SqlBuilderLogger.out("Statement cache max size set to: " + maxSize);
+        SqlBuilderCache.Statements.setMaxSize(maxSize);
+    }
+
+    /**
+     * Returns the maximum number of {@link java.sql.PreparedStatement}s kept
+     * in the statement cache for each connection.
+     * @return the maximum number of cached statements of a connection
+     */
+    public static int getStatementCacheMaxSize() {
+        return SqlBuilderCache.Statements.getMaxSize();
+    }
+
+    /**
+     * Returns a snapshot of the hit, miss and eviction counters of the
+     * statement cache.
+     * @return the statistics of the statement cache
+     */
+    public static SqlBuilderCacheStats getStatementCacheStats() {
+        return SqlBuilderCache.Statements.getStats();
+    }
+
+    /**
+     * Removes and closes every {@link java.sql.PreparedStatement} held by
+     * the statement cache and forgets the sql strings associated with
+     * the cache identifiers and the statement fingerprints.
+     * <p>
+     * This must be called before reusing a cache identifier for a
+     * statement different from the one previously associated with it.
+     */
+    public static void clearStatementCache() {
+        SqlBuilderCache.Statements.clear();
+        SqlBuilderCache.Identifiers.clear();
+        SqlBuilderCache.Fingerprints.clear();
+    }
+
+    /**
+     * Removes and closes every {@link java.sql.PreparedStatement} held by
+     * the statement cache which has been prepared on the given connection.
+     * <p>
+     * This should be called before a connection is closed or given back
+     * to a connection pool, so that the statement cache doesn't keep
+     * statements which can't be used anymore.
+     * <p>
+     * The statement cache holds the connections it has statements of:
+     * a connection left without calling this is kept alive, along with
+     * its statements, until the cache finds it closed while sweeping
+     * (which happens only once in a while) or forever if it is never
+     * closed (e.g. because it is kept by a connection pool), thus
+     * leaking memory and database cursors.
+     * @param connection the connection
+     */
+    public static void clearStatementCache(Connection connection) {
+        SqlBuilderCache.Statements.clear(connection);
+        SqlBuilderCache.QueryResults.endTransaction(connection);
+    }
+
+    /**
+     * Commits the transaction in progress on the given connection.
+     * <p>
+     * The tables written within the transaction are not kept in the query
+     * result cache while the transaction is in progress; committing via this
+     * method makes them cacheable again as soon as the commit completes,
+     * while a transaction committed directly on the connection releases
+     * them only when the library uses the connection in auto-commit mode
+     * again or its statement cache is cleared.
+     * @param connection the connection
+     * @throws SQLException if the commit fails
+     */
+    public static void commit(Connection connection) throws SQLException {
+        try {
+            connection.commit();
+        } finally {
+            SqlBuilderCache.QueryResults.endTransaction(connection);
+        }
+    }
+
+    /**
+     * Rolls back the transaction in progress on the given connection.
+     * @param connection the connection
+     * @throws SQLException if the rollback fails
+     * @see #commit(Connection)
+     */
+    public static void rollback(Connection connection) throws SQLException {
+        try {
+            connection.rollback();
+        } finally {
+            SqlBuilderCache.QueryResults.endTransaction(connection);
+        }
+    }
+
+    /**
+     * Sets the maximum number of query results kept in the query result cache.
+     * <p>
+     * Only the results of the queries that opt in are cached
+     * (see {@link org.docheinstein.sqlbuilder.statements.shared.Select#cacheResults()}).
+     * When the limit is exceeded the least recently used results are evicted.
+     * @param maxSize the maximum number of cached results
+     */
+    public static void setQueryResultCacheMaxSize(int maxSize) {
+        SqlBuilderLogger.out("Query result cache max size set to: " + maxSize);
+        SqlBuilderCache.QueryResults.setMaxSize(maxSize);
+    }
+
+    /**
+     * Returns the maximum number of query results kept in the query result cache.
+     * @return the maximum number of cached results
+     */
+    public static int getQueryResultCacheMaxSize() {
+        return SqlBuilderCache.QueryResults.getMaxSize();
+    }
+
+    /**
+     * Sets the time after which a cached query result expires.
+     * <p>
+     * The default is 0, i.e. the results expire only when they are evicted
+     * or invalidated by an update statement.
+     * @param duration the time to live of the results, or 0 for no expiration
+     * @param unit the unit of the duration
+     */
+    public static void setQueryResultCacheTtl(long duration, TimeUnit unit) {
+        SqlBuilderLogger.out("Query result cache ttl set to: " + duration + " " + unit);
+        SqlBuilderCache.QueryResults.setTtlNanos(unit.toNanos(duration));
+    }
+
+    /**
+     * Returns the time after which a cached query result expires.
+     * @param unit the unit of the returned duration
+     * @return the time to live of the results, or 0 for no expiration
+     */
+    public static long getQueryResultCacheTtl(TimeUnit unit) {
+        return unit.convert(SqlBuilderCache.QueryResults.getTtlNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns a snapshot of the hit, miss and eviction counters of the
+     * query result cache.
+     * @return the statistics of the query result cache
+     */
+    public static SqlBuilderCacheStats getQueryResultCacheStats() {
+        return SqlBuilderCache.QueryResults.getStats();
+    }
+
+    /**
+     * Removes the cached results of the queries that read from any of the
+     * given tables.
+     * <p>
+     * The results are invalidated automatically when an update statement is
+     * executed by the library (or, within a transaction, when the transaction
+     * ends, see {@link #commit(Connection)}); this must be called when the
+     * tables are modified otherwise (e.g. by triggers or by other applications).
+     * @param tables the names of the tables
+     */
+    public static void invalidateQueryResults(String... tables) {
+        SqlBuilderCache.QueryResults.invalidate(new HashSet<>(Arrays.asList(tables)));
+    }
+
+    /**
+     * Removes every result held by the query result cache.
+     */
+    public static void clearQueryResultCache() {
+        SqlBuilderCache.QueryResults.invalidate(null);
+    }
+
+    /**
+     * Sets the executor used by the asynchronous executions
+     * (e.g. {@link org.docheinstein.sqlbuilder.statements.base.QueryStatement#fetchAsync(javax.sql.DataSource, Class)})
+     * which don't specify one.
+     * @param executor the executor, or null for the default one
+     *
+     * @see #getExecutor()
+     */
+    public static void setExecutor(Executor executor) {
+        SqlBuilderLogger.out("Executor set to: " + executor);
+        sExecutor = executor;
+    }
+
+    /**
+     * Returns the executor used by the asynchronous executions which
+     * don't specify one.
+     * <p>
+     * If no executor has been set via {@link #setExecutor(Executor)}, the
+     * default one is used: it runs each execution on a new virtual thread
+     * when running on Java 21+, or on a pool of daemon threads otherwise.
+     * @return the executor of the asynchronous executions
+     */
+    public static Executor getExecutor() {
+        Executor executor = sExecutor;
+
+        if (executor == null) {
+            synchronized (SqlBuilder.class) {
+                if (sExecutor == null)
+                    sExecutor = createDefaultExecutor();
+                executor = sExecutor;
+            }
+        }
+
+        return executor;
+    }
+
+    /**
+     * Sets the metrics which receive the measurements of the executions
+     * of the statements (e.g. {@link org.docheinstein.sqlbuilder.metrics.InMemoryMetrics}).
+     * @param metrics the metrics, or null for disable the measurements
+     */
+    public static void setMetrics(SqlBuilderMetrics metrics) {
+        SqlBuilderLogger.out("Metrics set to: " + metrics);
+        sMetrics = metrics != null ? metrics : SqlBuilderMetrics.NONE;
+    }
+
+    /**
+     * Returns the metrics which receive the measurements of the executions
+     * of the statements.
+     * @return the metrics, {@link SqlBuilderMetrics#NONE} if not set
+     */
+    public static SqlBuilderMetrics getMetrics() {
+        return sMetrics;
+    }
+
+    /**
+     * Creates the default executor of the asynchronous executions.
+     * <p>
+     * The virtual threads are retrieved via reflection, so that the
+     * library still runs on the Java versions that don't have them.
+     * @return the default executor
+     */
+    private static Executor createDefaultExecutor() {
+        try {
+            Method virtualThreadExecutor =
+                Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            Executor executor = (ExecutorService) virtualThreadExecutor.invoke(null);
+            SqlBuilderLogger.out("Using virtual threads for asynchronous executions");
+            return executor;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            SqlBuilderLogger.out("Using a thread pool for asynchronous executions");
+        }
+
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "sqlbuilder-async");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
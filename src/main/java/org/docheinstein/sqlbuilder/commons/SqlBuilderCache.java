@@ -1,9 +1,22 @@
 package org.docheinstein.sqlbuilder.commons;
 
+import org.docheinstein.sqlbuilder.commons.adt.LruCache;
+import org.docheinstein.sqlbuilder.models.Column;
+
 import java.lang.reflect.Field;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.util.HashMap;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Internal cache used by the library.
@@ -21,7 +34,7 @@ class SqlBuilderCache {
          * marked with {@link org.docheinstein.sqlbuilder.models.ColumnField}.
          */
         private static final Map<Class, Map<String, Field>>
-            TUPLE_TO_COLUMN_FIELDS_MAP = new HashMap<>();
+            TUPLE_TO_COLUMN_FIELDS_MAP = new ConcurrentHashMap<>();
 
         /**
          * Inserts an association between a class and its column fields.
@@ -43,74 +56,1110 @@ class SqlBuilderCache {
     }
 
     /**
-     * Wraps a map that associates a statement to its identifier or sql string.
+     * Wraps a map that associates a tuple class and the columns of a query
+     * with the {@link TupleMapper} that maps the rows of the query to the
+     * tuples of the class.
+     * <p>
+     * The map is bounded, so that queries built with always different
+     * column objects don't make it grow indefinitely.
+     */
+    static class TupleMappers {
+
+        /** Maximum number of mappers held by the map. */
+        static final int MAX_SIZE = 256;
+
+        /**
+         * Key of a cached mapper.
+         * <p>
+         * Columns are compared by identity, as they usually are constants
+         * shared by the queries.
+         */
+        static final class MapperKey {
+
+            /** The tuple class. */
+            private final Class<?> mClass;
+
+            /** The columns of the query. */
+            private final Column[] mColumns;
+
+            /** Precomputed hash code of this key. */
+            private final int mHash;
+
+            /**
+             * Creates a key for a mapper.
+             * @param clazz the tuple class
+             * @param columns the columns of the query
+             */
+            MapperKey(Class<?> clazz, List<Column> columns) {
+                mClass = clazz;
+                mColumns = columns.toArray(new Column[0]);
+                int hash = clazz.hashCode();
+                for (Column column : mColumns)
+                    hash = hash * 31 + System.identityHashCode(column);
+                mHash = hash;
+            }
+
+            @Override
+            public int hashCode() {
+                return mHash;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o)
+                    return true;
+                if (!(o instanceof MapperKey))
+                    return false;
+
+                MapperKey other = (MapperKey) o;
+
+                if (mHash != other.mHash ||
+                    mClass != other.mClass ||
+                    mColumns.length != other.mColumns.length)
+                    return false;
+
+                for (int i = 0; i < mColumns.length; i++)
+                    if (mColumns[i] != other.mColumns[i])
+                        return false;
+
+                return true;
+            }
+        }
+
+        /** The wrapped map that associates the keys with their mapper. */
+        private static final LruCache<MapperKey, TupleMapper<?>>
+            KEY_TO_MAPPER_MAP = new LruCache<>(MAX_SIZE);
+
+        /**
+         * Inserts an association between a tuple class, some columns and a mapper.
+         * @param clazz the tuple class
+         * @param columns the columns of the query
+         * @param mapper the mapper
+         */
+        static void put(Class<?> clazz, List<Column> columns, TupleMapper<?> mapper) {
+            KEY_TO_MAPPER_MAP.put(new MapperKey(clazz, columns), mapper);
+        }
+
+        /**
+         * Returns the mapper associated with a tuple class and some columns.
+         * @param clazz the tuple class
+         * @param columns the columns of the query
+         * @return the mapper, or null if it doesn't exist
+         */
+        static TupleMapper<?> get(Class<?> clazz, List<Column> columns) {
+            return KEY_TO_MAPPER_MAP.get(new MapperKey(clazz, columns));
+        }
+    }
+
+    /**
+     * Wraps a slot table that associates the cache identifier of a statement
+     * with its rendered sql string.
+     * <p>
+     * The sql string of an identified statement doesn't depend on the
+     * connection, thus once it has been rendered it can be reused for
+     * prepare the statement on any other connection without building
+     * the sql string again.
+     * <p>
+     * Small non negative identifiers are stored in an array indexed by
+     * the identifier itself, the other ones in a concurrent map.
+     */
+    static class Identifiers {
+
+        /** Number of identifiers which are stored in the array. */
+        static final int SLOT_COUNT = 1024;
+
+        /** Slots for the identifiers in the range [0, SLOT_COUNT). */
+        private static final AtomicReferenceArray<String>
+            IDENTIFIER_TO_SQL_SLOTS = new AtomicReferenceArray<>(SLOT_COUNT);
+
+        /** Map for the identifiers outside the range of the slots. */
+        private static final Map<Integer, String>
+            IDENTIFIER_TO_SQL_MAP = new ConcurrentHashMap<>();
+
+        /**
+         * Inserts an association between an identifier and a sql string.
+         * @param identifier the identifier
+         * @param sql the sql string of the identified statement
+         */
+        static void put(int identifier, String sql) {
+            if (identifier >= 0 && identifier < SLOT_COUNT)
+                IDENTIFIER_TO_SQL_SLOTS.set(identifier, sql);
+            else
+                IDENTIFIER_TO_SQL_MAP.put(identifier, sql);
+        }
+
+        /**
+         * Returns the sql string associated with an identifier.
+         * @param identifier the identifier
+         * @return the sql string of the identified statement, or null
+         *         if it has never been rendered
+         */
+        static String get(int identifier) {
+            if (identifier >= 0 && identifier < SLOT_COUNT)
+                return IDENTIFIER_TO_SQL_SLOTS.get(identifier);
+            return IDENTIFIER_TO_SQL_MAP.get(identifier);
+        }
+
+        /**
+         * Removes every association between identifiers and sql strings.
+         */
+        static void clear() {
+            for (int i = 0; i < SLOT_COUNT; i++)
+                IDENTIFIER_TO_SQL_SLOTS.set(i, null);
+            IDENTIFIER_TO_SQL_MAP.clear();
+        }
+    }
+
+    /**
+     * Wraps a map that associates the fingerprint of a statement with its
+     * sql string, so that the sql string of a statement is built only the
+     * first time its fingerprint is prepared, even across different connections.
+     * <p>
+     * The map is thread safe and bounded.
+     */
+    static class Fingerprints {
+
+        /** Maximum number of sql strings held by the map. */
+        static final int MAX_SIZE = 1024;
+
+        /** The wrapped map that associates the fingerprints with the sql strings. */
+        private static final LruCache<Long, String>
+            FINGERPRINT_TO_SQL_MAP = new LruCache<>(MAX_SIZE);
+
+        /**
+         * Inserts an association between a fingerprint and a sql string.
+         * @param fingerprint the fingerprint
+         * @param sql the sql string of the statement with the fingerprint
+         */
+        static void put(long fingerprint, String sql) {
+            FINGERPRINT_TO_SQL_MAP.put(fingerprint, sql);
+        }
+
+        /**
+         * Returns the sql string associated with a fingerprint.
+         * @param fingerprint the fingerprint
+         * @return the sql string of the statement with the fingerprint, or
+         *         null if it has not been rendered recently
+         */
+        static String get(long fingerprint) {
+            return FINGERPRINT_TO_SQL_MAP.get(fingerprint);
+        }
+
+        /**
+         * Removes every association between fingerprints and sql strings.
+         */
+        static void clear() {
+            FINGERPRINT_TO_SQL_MAP.clear();
+        }
+    }
+
+    /**
+     * Wraps a map that associates the {@link PreparedStatement}s created by
+     * the library with their fingerprint, which identifies the statement
+     * within the metrics.
+     * <p>
+     * The statements are weakly referenced, so that the map never keeps
+     * a statement alive by itself.
+     */
+    static class PreparedFingerprints {
+
+        /** The wrapped map that associates the statements with their fingerprint. */
+        private static final Map<PreparedStatement, Long>
+            STATEMENT_TO_FINGERPRINT_MAP = Collections.synchronizedMap(new WeakHashMap<>());
+
+        /**
+         * Inserts an association between a statement and its fingerprint.
+         * @param statement the statement
+         * @param fingerprint the fingerprint of the statement
+         */
+        static void put(PreparedStatement statement, long fingerprint) {
+            STATEMENT_TO_FINGERPRINT_MAP.put(statement, fingerprint);
+        }
+
+        /**
+         * Returns the fingerprint of a statement.
+         * @param statement the statement
+         * @return the fingerprint, or null if the statement has not been
+         *         created by the library
+         */
+        static Long get(java.sql.Statement statement) {
+            return STATEMENT_TO_FINGERPRINT_MAP.get(statement);
+        }
+    }
+
+    /**
+     * Wraps the maps that associate a statement to its identifier, its
+     * fingerprint or its sql string.
+     * <p>
+     * Since a {@link PreparedStatement} belongs to the connection that
+     * created it, every connection has its own maps: a statement is never
+     * handed to a caller that uses a different connection.
+     * <p>
+     * The maps are thread safe and bounded: when the maximum number of
+     * statements of a connection is exceeded the least recently used
+     * statement of that connection is evicted and closed, releasing the
+     * resources held on the server.
+     * Eviction never touches the statements of the other connections,
+     * which might be in use by other threads.
+     * <p>
+     * The cached statements reference their connection, thus the cache
+     * keeps alive every connection it holds statements of until they are
+     * removed via {@link #clear(Connection)}; as a safety net, the
+     * statements of the connections found closed are removed every
+     * {@link #SWEEP_INTERVAL} new connections, or sooner if the number
+     * of cached connections doubles since the last sweep.
      */
     static class Statements {
+
+        /** Default maximum number of statements held by each map of a connection. */
+        static final int DEFAULT_MAX_SIZE = 256;
+
+        /** Number of new connections after which the closed connections are swept. */
+        static final int SWEEP_INTERVAL = 64;
+
         /**
-         * The wrapped map that associates the cached statement with an identifier.
+         * Key of a cached statement within the maps of a connection.
          * <p>
-         * This map is typically faster to use compared to the SQL_TO_STATEMENT_MAP
-         * because the only thing to now for use this map is the identifier of
-         * the statement and there is no need to create the SQL string of the
-         * statement each time.
+         * The key is composed by the shape of the statement (its identifier,
+         * its fingerprint or its sql string), whether the statement returns
+         * the generated keys and the {@link FetchOptions} the statement has
+         * been created with.
+         */
+        static final class StatementKey {
+
+            /** The shape of the statement (identifier, fingerprint or sql string). */
+            private final Object mShape;
+
+            /** Whether the statement has been created with RETURN_GENERATED_KEYS. */
+            private final boolean mReturnGeneratedKeys;
+
+            /** The fetch options of the statement. */
+            private final FetchOptions mFetchOptions;
+
+            /** Precomputed hash code of this key. */
+            private final int mHash;
+
+            /**
+             * Creates a key for a statement.
+             * @param shape the identifier, the fingerprint or the sql string
+             *              of the statement
+             * @param returnGeneratedKeys whether the statement returns the
+             *                            generated keys
+             */
+            StatementKey(Object shape, boolean returnGeneratedKeys) {
+                this(shape, returnGeneratedKeys, FetchOptions.DEFAULT);
+            }
+
+            /**
+             * Creates a key for a statement.
+             * @param shape the identifier, the fingerprint or the sql string
+             *              of the statement
+             * @param returnGeneratedKeys whether the statement returns the
+             *                            generated keys
+             * @param fetchOptions the fetch options of the statement
+             */
+            StatementKey(Object shape, boolean returnGeneratedKeys, FetchOptions fetchOptions) {
+                mShape = shape;
+                mReturnGeneratedKeys = returnGeneratedKeys;
+                mFetchOptions = fetchOptions;
+                mHash = (shape.hashCode() * 31 + (returnGeneratedKeys ? 1 : 0)) * 31
+                    + fetchOptions.hashCode();
+            }
+
+            @Override
+            public int hashCode() {
+                return mHash;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o)
+                    return true;
+                if (!(o instanceof StatementKey))
+                    return false;
+
+                StatementKey other = (StatementKey) o;
+
+                return mHash == other.mHash &&
+                    mReturnGeneratedKeys == other.mReturnGeneratedKeys &&
+                    mShape.equals(other.mShape) &&
+                    mFetchOptions.equals(other.mFetchOptions);
+            }
+
+            @Override
+            public String toString() {
+                return mShape.toString();
+            }
+        }
+
+        /**
+         * The statements cached for a single connection.
          */
-        private static final Map<Integer, PreparedStatement>
-            IDENTIFIER_TO_STATEMENT_MAP = new HashMap<>();
+        private static final class ConnectionStatements {
+
+            /**
+             * The map that associates the cached statement with an identifier
+             * or a fingerprint.
+             * <p>
+             * This map is typically faster to use compared to the sql map
+             * because the only thing to now for use this map is the identifier
+             * (or the fingerprint) of the statement and there is no need to create
+             * the SQL string of the statement each time.
+             * <p>
+             * Identifiers and fingerprints never clash, since their keys are
+             * respectively integers and longs.
+             */
+            private final LruCache<StatementKey, PreparedStatement> mIdentifierToStatementMap;
+
+            /**
+             * The map that associates the cached statement with its sql
+             * string.
+             * <p>
+             * This map is typically slower to use compared to the identifier map
+             * because for retrieve the statement the SQL string of the statement
+             * must be created each time, however is easier to use because there
+             * is no need to keep track of the identifier of the statement.
+             */
+            private final LruCache<StatementKey, PreparedStatement> mSqlToStatementMap;
+
+            /**
+             * Creates the maps of a connection.
+             * @param maxSize the maximum number of statements held by each map
+             */
+            ConnectionStatements(int maxSize) {
+                mIdentifierToStatementMap = new LruCache<>(maxSize, STATEMENT_CLOSER);
+                mSqlToStatementMap = new LruCache<>(maxSize, STATEMENT_CLOSER);
+            }
+        }
+
+        /** Closes the statements evicted from the maps. */
+        private static final LruCache.EvictionListener<StatementKey, PreparedStatement>
+            STATEMENT_CLOSER = (key, statement) -> {
+                try {
+                    if (!statement.isClosed()) {
+                        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+                            () -> "Closing statement evicted from cache {" + key + "}");
+                        statement.close();
+                    }
+                } catch (SQLException e) {
+                    SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+                        () -> "Failed to close evicted statement {" + key + "}: "
+                            + e.getMessage());
+                }
+            };
 
         /**
-         * The wrapped map that associates the cached statement with its sql
-         * string.
+         * The wrapped map that associates a connection (by identity) with
+         * the statements cached for it.
          * <p>
-         * This map is typically slower to use compared to IDENTIFIER_TO_STATEMENT_MAP
-         * because for retrieve the statement the SQL string of the statement
-         * must be created each time, however is easier to use because there
-         * is no need to keep track of the identifier of the statement.
+         * Guarded by its own lock, as the other static fields of this class.
          */
-        private static final Map<String, PreparedStatement>
-            SQL_TO_STATEMENT_MAP = new HashMap<>();
+        private static final Map<Connection, ConnectionStatements>
+            CONNECTION_TO_STATEMENTS_MAP = new IdentityHashMap<>();
+
+        /** Maximum number of statements held by each map of a connection. */
+        private static int sMaxSize = DEFAULT_MAX_SIZE;
+
+        /** Hits of the maps of the connections no longer cached. */
+        private static long sRemovedHits;
+
+        /** Misses of the maps of the connections no longer cached. */
+        private static long sRemovedMisses;
+
+        /** Evictions of the maps of the connections no longer cached. */
+        private static long sRemovedEvictions;
 
+        /** Number of connections cached since the last sweep. */
+        private static int sConnectionsSinceSweep;
+
+        /** Number of cached connections which triggers a sweep. */
+        private static int sSweepThreshold = SWEEP_INTERVAL;
+
+        /**
+         * Returns the statements cached for the given connection, creating
+         * the maps of the connection if needed.
+         * @param connection the connection
+         * @return the statements of the connection
+         */
+        private static ConnectionStatements of(Connection connection) {
+            List<Connection> connections;
+            ConnectionStatements statements;
+
+            synchronized (CONNECTION_TO_STATEMENTS_MAP) {
+                statements = CONNECTION_TO_STATEMENTS_MAP.get(connection);
+
+                if (statements != null)
+                    return statements;
+
+                statements = new ConnectionStatements(sMaxSize);
+                CONNECTION_TO_STATEMENTS_MAP.put(connection, statements);
+
+                // Inspecting every cached connection is not for free, thus
+                // the sweep is done only once in a while
+                if (++sConnectionsSinceSweep < SWEEP_INTERVAL &&
+                    CONNECTION_TO_STATEMENTS_MAP.size() < sSweepThreshold)
+                    return statements;
+
+                sConnectionsSinceSweep = 0;
+                connections = new ArrayList<>(CONNECTION_TO_STATEMENTS_MAP.keySet());
+            }
+
+            // A new connection typically replaces one which has been closed
+            // (e.g. given back to a pool) without clearing its statements
+            for (Connection cached : connections)
+                if (cached != connection && isClosed(cached))
+                    clear(cached);
+
+            synchronized (CONNECTION_TO_STATEMENTS_MAP) {
+                sSweepThreshold = Math.max(SWEEP_INTERVAL,
+                    2 * CONNECTION_TO_STATEMENTS_MAP.size());
+            }
+
+            return statements;
+        }
+
+        /**
+         * Returns whether the given connection is known to be closed.
+         * @param connection the connection
+         * @return true if the connection is closed, false if it is open
+         *         or if it can't be inspected
+         */
+        private static boolean isClosed(Connection connection) {
+            try {
+                return connection.isClosed();
+            } catch (SQLException | RuntimeException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Forgets the given statements of a connection, keeping their counters.
+         * <p>
+         * Must be called while holding the lock of CONNECTION_TO_STATEMENTS_MAP.
+         * @param statements the statements of a removed connection
+         */
+        private static void onRemoved(ConnectionStatements statements) {
+            sRemovedHits += statements.mIdentifierToStatementMap.getHitCount()
+                + statements.mSqlToStatementMap.getHitCount();
+            sRemovedMisses += statements.mIdentifierToStatementMap.getMissCount()
+                + statements.mSqlToStatementMap.getMissCount();
+            sRemovedEvictions += statements.mIdentifierToStatementMap.getEvictionCount()
+                + statements.mSqlToStatementMap.getEvictionCount();
+        }
 
         /**
          * Inserts an association between an identifier and a {@link PreparedStatement}.
+         * @param connection the connection that created the statement
          * @param identifier an identifier
+         * @param returnGeneratedKeys whether the statement returns the generated keys
          * @param statement the statement
          */
-        static void put(int identifier, PreparedStatement statement) {
-            IDENTIFIER_TO_STATEMENT_MAP.put(identifier, statement);
+        static void put(Connection connection, int identifier,
+                        boolean returnGeneratedKeys, PreparedStatement statement) {
+            of(connection).mIdentifierToStatementMap.put(
+                new StatementKey(identifier, returnGeneratedKeys), statement);
+        }
+
+        /**
+         * Inserts an association between a fingerprint and a {@link PreparedStatement}.
+         * @param connection the connection that created the statement
+         * @param fingerprint the fingerprint of the statement
+         * @param returnGeneratedKeys whether the statement returns the generated keys
+         * @param statement the statement
+         */
+        static void put(Connection connection, long fingerprint,
+                        boolean returnGeneratedKeys, PreparedStatement statement) {
+            of(connection).mIdentifierToStatementMap.put(
+                new StatementKey(fingerprint, returnGeneratedKeys), statement);
+        }
+
+        /**
+         * Inserts an association between a fingerprint of a query and a
+         * {@link PreparedStatement} created with the given fetch options.
+         * @param connection the connection that created the statement
+         * @param fingerprint the fingerprint of the statement
+         * @param fetchOptions the fetch options of the statement
+         * @param statement the statement
+         */
+        static void put(Connection connection, long fingerprint,
+                        FetchOptions fetchOptions, PreparedStatement statement) {
+            of(connection).mIdentifierToStatementMap.put(
+                new StatementKey(fingerprint, false, fetchOptions), statement);
         }
 
         /**
          * Inserts an association between a sql string and a {@link PreparedStatement}.
+         * @param connection the connection that created the statement
          * @param sql a sql string
+         * @param returnGeneratedKeys whether the statement returns the generated keys
          * @param statement the statement
          */
-        static void put(String sql, PreparedStatement statement) {
-            SQL_TO_STATEMENT_MAP.put(sql, statement);
+        static void put(Connection connection, String sql,
+                        boolean returnGeneratedKeys, PreparedStatement statement) {
+            of(connection).mSqlToStatementMap.put(
+                new StatementKey(sql, returnGeneratedKeys), statement);
+        }
+
+        /**
+         * Inserts an association between a sql string of a query and a
+         * {@link PreparedStatement} created with the given fetch options.
+         * @param connection the connection that created the statement
+         * @param sql a sql string
+         * @param fetchOptions the fetch options of the statement
+         * @param statement the statement
+         */
+        static void put(Connection connection, String sql,
+                        FetchOptions fetchOptions, PreparedStatement statement) {
+            of(connection).mSqlToStatementMap.put(
+                new StatementKey(sql, false, fetchOptions), statement);
         }
 
         /**
          * Returns the cached {@link PreparedStatement} associated with
          * an identifier.
+         * @param connection the connection the statement must belong to
          * @param identifier the identifier of the statement
+         * @param returnGeneratedKeys whether the statement returns the generated keys
          * @return the {@link PreparedStatement} associated with the identifier
          *         or null if it doesn't exist
          */
-        static PreparedStatement get(int identifier) {
-            return IDENTIFIER_TO_STATEMENT_MAP.get(identifier);
+        static PreparedStatement get(Connection connection, int identifier,
+                                     boolean returnGeneratedKeys) {
+            return of(connection).mIdentifierToStatementMap.get(
+                new StatementKey(identifier, returnGeneratedKeys));
+        }
+
+
+        /**
+         * Returns the cached {@link PreparedStatement} associated with
+         * a fingerprint.
+         * @param connection the connection the statement must belong to
+         * @param fingerprint the fingerprint of the statement
+         * @param returnGeneratedKeys whether the statement returns the generated keys
+         * @return the {@link PreparedStatement} associated with the fingerprint
+         *         or null if it doesn't exist
+         */
+        static PreparedStatement get(Connection connection, long fingerprint,
+                                     boolean returnGeneratedKeys) {
+            return of(connection).mIdentifierToStatementMap.get(
+                new StatementKey(fingerprint, returnGeneratedKeys));
         }
 
+        /**
+         * Returns the cached {@link PreparedStatement} associated with
+         * a fingerprint of a query and the given fetch options.
+         * @param connection the connection the statement must belong to
+         * @param fingerprint the fingerprint of the statement
+         * @param fetchOptions the fetch options of the statement
+         * @return the {@link PreparedStatement} associated with the fingerprint
+         *         and the fetch options or null if it doesn't exist
+         */
+        static PreparedStatement get(Connection connection, long fingerprint,
+                                     FetchOptions fetchOptions) {
+            return of(connection).mIdentifierToStatementMap.get(
+                new StatementKey(fingerprint, false, fetchOptions));
+        }
 
         /**
          * Returns the cached {@link PreparedStatement} associated with
          * a sql string.
+         * @param connection the connection the statement must belong to
          * @param sql the sql string of the statement
+         * @param returnGeneratedKeys whether the statement returns the generated keys
          * @return the {@link PreparedStatement} associated with the sql string
          *         or null if it doesn't exist
          */
-        static PreparedStatement get(String sql) {
-            return SQL_TO_STATEMENT_MAP.get(sql);
+        static PreparedStatement get(Connection connection, String sql,
+                                     boolean returnGeneratedKeys) {
+            return of(connection).mSqlToStatementMap.get(
+                new StatementKey(sql, returnGeneratedKeys));
+        }
+
+        /**
+         * Returns the cached {@link PreparedStatement} associated with
+         * a sql string of a query and the given fetch options.
+         * @param connection the connection the statement must belong to
+         * @param sql the sql string of the statement
+         * @param fetchOptions the fetch options of the statement
+         * @return the {@link PreparedStatement} associated with the sql string
+         *         and the fetch options or null if it doesn't exist
+         */
+        static PreparedStatement get(Connection connection, String sql,
+                                     FetchOptions fetchOptions) {
+            return of(connection).mSqlToStatementMap.get(
+                new StatementKey(sql, false, fetchOptions));
+        }
+
+        /**
+         * Removes and closes every cached statement which belongs to
+         * the given connection.
+         * @param connection the connection
+         */
+        static void clear(Connection connection) {
+            ConnectionStatements statements;
+
+            synchronized (CONNECTION_TO_STATEMENTS_MAP) {
+                statements = CONNECTION_TO_STATEMENTS_MAP.remove(connection);
+                if (statements == null)
+                    return;
+                onRemoved(statements);
+            }
+
+            statements.mIdentifierToStatementMap.clear();
+            statements.mSqlToStatementMap.clear();
+        }
+
+        /**
+         * Sets the maximum number of statements held by each map of a
+         * connection, closing the statements that exceed the new limit.
+         * @param maxSize the maximum number of statements
+         */
+        static void setMaxSize(int maxSize) {
+            if (maxSize <= 0)
+                throw new IllegalArgumentException("The maximum size of the cache must be positive");
+
+            List<ConnectionStatements> connections;
+
+            synchronized (CONNECTION_TO_STATEMENTS_MAP) {
+                sMaxSize = maxSize;
+                connections = new ArrayList<>(CONNECTION_TO_STATEMENTS_MAP.values());
+            }
+
+            for (ConnectionStatements statements : connections) {
+                statements.mIdentifierToStatementMap.setMaxSize(maxSize);
+                statements.mSqlToStatementMap.setMaxSize(maxSize);
+            }
+        }
+
+        /**
+         * Returns the maximum number of statements held by each map of a connection.
+         * @return the maximum number of statements
+         */
+        static int getMaxSize() {
+            synchronized (CONNECTION_TO_STATEMENTS_MAP) {
+                return sMaxSize;
+            }
+        }
+
+        /**
+         * Removes and closes every cached statement.
+         */
+        static void clear() {
+            List<ConnectionStatements> connections;
+
+            synchronized (CONNECTION_TO_STATEMENTS_MAP) {
+                connections = new ArrayList<>(CONNECTION_TO_STATEMENTS_MAP.values());
+                CONNECTION_TO_STATEMENTS_MAP.clear();
+                for (ConnectionStatements statements : connections)
+                    onRemoved(statements);
+                sConnectionsSinceSweep = 0;
+                sSweepThreshold = SWEEP_INTERVAL;
+            }
+
+            for (ConnectionStatements statements : connections) {
+                statements.mIdentifierToStatementMap.clear();
+                statements.mSqlToStatementMap.clear();
+            }
+        }
+
+        /**
+         * Returns a snapshot of the counters of the statement maps of
+         * every connection.
+         * @return the statistics of the statement cache
+         */
+        static SqlBuilderCacheStats getStats() {
+            synchronized (CONNECTION_TO_STATEMENTS_MAP) {
+                long hits = sRemovedHits;
+                long misses = sRemovedMisses;
+                long evictions = sRemovedEvictions;
+                int size = 0;
+
+                for (ConnectionStatements statements : CONNECTION_TO_STATEMENTS_MAP.values()) {
+                    hits += statements.mIdentifierToStatementMap.getHitCount()
+                        + statements.mSqlToStatementMap.getHitCount();
+                    misses += statements.mIdentifierToStatementMap.getMissCount()
+                        + statements.mSqlToStatementMap.getMissCount();
+                    evictions += statements.mIdentifierToStatementMap.getEvictionCount()
+                        + statements.mSqlToStatementMap.getEvictionCount();
+                    size += statements.mIdentifierToStatementMap.size()
+                        + statements.mSqlToStatementMap.size();
+                }
+
+                return new SqlBuilderCacheStats(hits, misses, evictions, size);
+            }
+        }
+    }
+
+    /**
+     * Wraps a map that associates a query (its fingerprint, its bind values
+     * and the class of its tuples) with the tuples it has fetched.
+     * <p>
+     * The map is bounded and its entries might expire after a time to live;
+     * moreover the entries are invalidated every time an update statement
+     * executed by the library affects one of the tables the query reads from.
+     * <p>
+     * Every invalidation increments a generation counter: the tuples of a
+     * query are stored only if no invalidation happened since the query has
+     * been started, so that a query that runs concurrently to an update
+     * never caches the rows read before the update.
+     */
+    static class QueryResults {
+
+        /** Default maximum number of results held by the map. */
+        static final int DEFAULT_MAX_SIZE = 256;
+
+        /**
+         * Key of a cached result.
+         * <p>
+         * The database is part of the identity of the key, so that the same
+         * query executed over different databases (e.g. the shards of a table)
+         * doesn't share its result.
+         * The tables read by the query are carried by the key but are not
+         * part of its identity, since they are determined by the shape of
+         * the query.
+         */
+        static final class ResultKey {
+
+            /**
+             * The identity of the database the query is executed over: either
+             * its url or, if it's unknown, the connection (compared by identity).
+             */
+            private final Object mDatabase;
+
+            /** The fingerprint of the query. */
+            private final long mFingerprint;
+
+            /** The values bound to the query. */
+            private final List<Object> mBindables;
+
+            /** The tuple class. */
+            private final Class<?> mClass;
+
+            /** The names of the tables read by the query. */
+            private final Set<String> mTables;
+
+            /** Precomputed hash code of this key. */
+            private final int mHash;
+
+            /**
+             * Creates a key for a result.
+             * @param database the identity of the database (e.g. its url)
+             * @param fingerprint the fingerprint of the query
+             * @param bindables the values bound to the query, might be null
+             * @param clazz the tuple class
+             * @param tables the names of the tables read by the query
+             */
+            ResultKey(Object database, long fingerprint, List<Object> bindables,
+                      Class<?> clazz, Set<String> tables) {
+                mDatabase = database;
+                mFingerprint = fingerprint;
+                mBindables = bindables != null ? bindables : Collections.emptyList();
+                mClass = clazz;
+                mTables = tables;
+                mHash = ((getDatabaseHash(database) * 31 + Long.hashCode(fingerprint)) * 31
+                    + mBindables.hashCode()) * 31 + clazz.hashCode();
+            }
+
+            /**
+             * Returns the hash code of the identity of a database.
+             * @param database the url of the database or a connection
+             * @return the hash code of the url, or the identity hash code of the connection
+             */
+            private static int getDatabaseHash(Object database) {
+                return database instanceof String ?
+                    database.hashCode() :
+                    System.identityHashCode(database);
+            }
+
+            /**
+             * Returns whether two identities denote the same database.
+             * @param database the url of the database or a connection
+             * @param otherDatabase the url of the other database or a connection
+             * @return whether the urls are equal or the connections are the same
+             */
+            private static boolean isSameDatabase(Object database, Object otherDatabase) {
+                return database instanceof String ?
+                    database.equals(otherDatabase) :
+                    database == otherDatabase;
+            }
+
+            /**
+             * Returns whether the query of this key reads from any of the given tables.
+             * @param tables the names of the tables
+             * @return true if the query reads from at least one of the tables
+             */
+            boolean readsFrom(Set<String> tables) {
+                for (String table : tables)
+                    if (mTables.contains(table))
+                        return true;
+                return false;
+            }
+
+            @Override
+            public int hashCode() {
+                return mHash;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (this == o)
+                    return true;
+                if (!(o instanceof ResultKey))
+                    return false;
+
+                ResultKey other = (ResultKey) o;
+
+                return mHash == other.mHash &&
+                    mClass == other.mClass &&
+                    mFingerprint == other.mFingerprint &&
+                    isSameDatabase(mDatabase, other.mDatabase) &&
+                    mBindables.equals(other.mBindables);
+            }
+
+            @Override
+            public String toString() {
+                return Long.toHexString(mFingerprint);
+            }
+        }
+
+        /**
+         * A cached result.
+         */
+        private static final class Result {
+
+            /** The tuples fetched by the query. */
+            private final List<?> mTuples;
+
+            /** The instant (as per System.nanoTime()) the result has been cached at. */
+            private final long mCreationNanos;
+
+            /**
+             * Creates a result for the given tuples.
+             * @param tuples the tuples
+             */
+            Result(List<?> tuples) {
+                mTuples = tuples;
+                mCreationNanos = System.nanoTime();
+            }
+        }
+
+        /** The wrapped map that associates the keys with their result. */
+        private static final LruCache<ResultKey, Result>
+            KEY_TO_RESULT_MAP = new LruCache<>(DEFAULT_MAX_SIZE);
+
+        /** Lock that makes the invalidations atomic with respect to the insertions. */
+        private static final Object INVALIDATION_LOCK = new Object();
+
+        /** Number of invalidations happened so far (guarded by INVALIDATION_LOCK). */
+        private static long sGeneration = 0;
+
+        /** Time to live of the results, in nanoseconds (0 for no expiration). */
+        private static volatile long sTtlNanos = 0;
+
+        /**
+         * The tables written by the transactions in progress on each
+         * connection (guarded by INVALIDATION_LOCK); a null set stands
+         * for unknown tables, i.e. every table.
+         * <p>
+         * The results of the queries that read from these tables are not
+         * cached until the transactions end, since a concurrent query
+         * would read the rows preceding the commit and keep them cached
+         * after it.
+         */
+        private static final Map<Connection, Set<String>>
+            CONNECTION_TO_PENDING_TABLES_MAP = new WeakHashMap<>();
+
+        /**
+         * Returns the tuples associated with a key, if they have not expired.
+         * @param key the key of the query
+         * @return the cached tuples, or null if they don't exist
+         */
+        static List<?> get(ResultKey key) {
+            Result result = KEY_TO_RESULT_MAP.get(key);
+
+            if (result == null)
+                return null;
+
+            long ttlNanos = sTtlNanos;
+
+            if (ttlNanos > 0 && System.nanoTime() - result.mCreationNanos > ttlNanos) {
+                KEY_TO_RESULT_MAP.remove(key);
+                return null;
+            }
+
+            return result.mTuples;
+        }
+
+        /**
+         * Returns the current generation, which must be retrieved before
+         * the execution of a query whose tuples have to be cached.
+         * @return the generation
+         */
+        static long getGeneration() {
+            synchronized (INVALIDATION_LOCK) {
+                return sGeneration;
+            }
+        }
+
+        /**
+         * Inserts an association between a key and the tuples of its query,
+         * unless an invalidation happened after the given generation.
+         * @param key the key of the query
+         * @param tuples the tuples of the query
+         * @param generation the generation retrieved before executing the query
+         */
+        static void put(ResultKey key, List<?> tuples, long generation) {
+            synchronized (INVALIDATION_LOCK) {
+                if (generation != sGeneration)
+                    return;
+
+                for (Set<String> pendingTables : CONNECTION_TO_PENDING_TABLES_MAP.values())
+                    if (pendingTables == null || key.readsFrom(pendingTables))
+                        return;
+
+                KEY_TO_RESULT_MAP.put(key, new Result(tuples));
+            }
         }
 
+        /**
+         * Removes the results of the queries that read from any of the given tables.
+         * @param tables the names of the tables, or null for remove every result
+         */
+        static void invalidate(Set<String> tables) {
+            synchronized (INVALIDATION_LOCK) {
+                invalidateLocked(tables);
+            }
+        }
+
+        /**
+         * Removes the results of the queries that read from any of the given
+         * tables, which have been written on the given connection.
+         * <p>
+         * If the write happened within a transaction the tables are kept
+         * uncacheable until the transaction ends (see {@link #endTransaction(Connection)});
+         * otherwise the transaction previously in progress on the
+         * connection, if any, is considered ended.
+         * @param connection the connection
+         * @param tables the names of the tables, or null for every table
+         * @param inTransaction whether the write happened within a transaction
+         */
+        static void invalidate(Connection connection, Set<String> tables,
+                               boolean inTransaction) {
+            synchronized (INVALIDATION_LOCK) {
+                if (!inTransaction) {
+                    endTransactionLocked(connection);
+                    invalidateLocked(tables);
+                    return;
+                }
+
+                invalidateLocked(tables);
+
+                if (!CONNECTION_TO_PENDING_TABLES_MAP.containsKey(connection)) {
+                    CONNECTION_TO_PENDING_TABLES_MAP.put(
+                        connection, tables != null ? new HashSet<>(tables) : null);
+                    return;
+                }
+
+                Set<String> pendingTables = CONNECTION_TO_PENDING_TABLES_MAP.get(connection);
+
+                if (pendingTables == null)
+                    return;
+
+                if (tables == null)
+                    CONNECTION_TO_PENDING_TABLES_MAP.put(connection, null);
+                else
+                    pendingTables.addAll(tables);
+            }
+        }
+
+        /**
+         * Ends the transaction in progress on the given connection, if any:
+         * the results of the queries that read from the tables written
+         * within the transaction are removed and can be cached again.
+         * @param connection the connection
+         */
+        static void endTransaction(Connection connection) {
+            synchronized (INVALIDATION_LOCK) {
+                endTransactionLocked(connection);
+            }
+        }
+
+        /**
+         * Ends the transaction in progress on the given connection;
+         * must be called while holding INVALIDATION_LOCK.
+         * @param connection the connection
+         */
+        private static void endTransactionLocked(Connection connection) {
+            if (!CONNECTION_TO_PENDING_TABLES_MAP.containsKey(connection))
+                return;
+
+            // The committed rows might have been read by a query that
+            // started before the commit: the invalidation must follow it
+            invalidateLocked(CONNECTION_TO_PENDING_TABLES_MAP.remove(connection));
+        }
+
+        /**
+         * Removes the results of the queries that read from any of the
+         * given tables; must be called while holding INVALIDATION_LOCK.
+         * @param tables the names of the tables, or null for remove every result
+         */
+        private static void invalidateLocked(Set<String> tables) {
+            sGeneration++;
+
+            if (KEY_TO_RESULT_MAP.size() == 0)
+                return;
+
+            if (tables == null)
+                KEY_TO_RESULT_MAP.clear();
+            else if (!tables.isEmpty())
+                KEY_TO_RESULT_MAP.removeIf(key -> key.readsFrom(tables));
+        }
+
+        /**
+         * Sets the maximum number of results held by the map, evicting
+         * the results that exceed the new limit.
+         * @param maxSize the maximum number of results
+         */
+        static void setMaxSize(int maxSize) {
+            KEY_TO_RESULT_MAP.setMaxSize(maxSize);
+        }
+
+        /**
+         * Returns the maximum number of results held by the map.
+         * @return the maximum number of results
+         */
+        static int getMaxSize() {
+            return KEY_TO_RESULT_MAP.getMaxSize();
+        }
+
+        /**
+         * Sets the time to live of the results.
+         * @param ttlNanos the time to live in nanoseconds, or 0 for no expiration
+         */
+        static void setTtlNanos(long ttlNanos) {
+            sTtlNanos = ttlNanos;
+        }
+
+        /**
+         * Returns the time to live of the results.
+         * @return the time to live in nanoseconds, or 0 for no expiration
+         */
+        static long getTtlNanos() {
+            return sTtlNanos;
+        }
+
+        /**
+         * Returns a snapshot of the counters of the result map.
+         * @return the statistics of the result cache
+         */
+        static SqlBuilderCacheStats getStats() {
+            return new SqlBuilderCacheStats(
+                KEY_TO_RESULT_MAP.getHitCount(),
+                KEY_TO_RESULT_MAP.getMissCount(),
+                KEY_TO_RESULT_MAP.getEvictionCount(),
+                KEY_TO_RESULT_MAP.size()
+            );
+        }
     }
 
 }
@@ -0,0 +1,83 @@
+package org.docheinstein.sqlbuilder.commons;
+
+/**
+ * Snapshot of the counters of a cache used by the library.
+ * <p>
+ * Can be obtained via {@link SqlBuilder#getStatementCacheStats()}.
+ */
+public class SqlBuilderCacheStats {
+
+    /** Number of lookups which found a cached entry. */
+    private final long mHitCount;
+
+    /** Number of lookups which didn't find a cached entry. */
+    private final long mMissCount;
+
+    /** Number of entries evicted because the cache exceeded its size. */
+    private final long mEvictionCount;
+
+    /** Number of entries currently held by the cache. */
+    private final int mSize;
+
+    /**
+     * Creates a snapshot of the counters of a cache.
+     * @param hitCount the number of hits
+     * @param missCount the number of misses
+     * @param evictionCount the number of evictions
+     * @param size the current number of entries
+     */
+    public SqlBuilderCacheStats(long hitCount, long missCount,
+                                long evictionCount, int size) {
+        mHitCount = hitCount;
+        mMissCount = missCount;
+        mEvictionCount = evictionCount;
+        mSize = size;
+    }
+
+    /**
+     * Returns the number of lookups which found a cached entry.
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * Returns the number of lookups which didn't find a cached entry.
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Returns the number of entries evicted because the cache exceeded its size.
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    /**
+     * Returns the number of entries currently held by the cache.
+     * @return the size of the cache
+     */
+    public int getSize() {
+        return mSize;
+    }
+
+    /**
+     * Returns the ratio between the hits and the total number of lookups.
+     * @return the hit ratio, or 0 if no lookup has been performed
+     */
+    public double getHitRatio() {
+        long lookups = mHitCount + mMissCount;
+        return lookups == 0 ? 0 : (double) mHitCount / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "hits = " + mHitCount + ", misses = " + mMissCount +
+            ", evictions = " + mEvictionCount + ", size = " + mSize;
+    }
+}
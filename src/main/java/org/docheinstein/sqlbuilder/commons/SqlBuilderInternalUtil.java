@@ -4,12 +4,27 @@ import org.docheinstein.sqlbuilder.SqlBindable;
 import org.docheinstein.sqlbuilder.Sqlable;
 import org.docheinstein.sqlbuilder.exceptions.UnsupportedSqlLanguageException;
 import org.docheinstein.sqlbuilder.expressions.Expression;
+import org.docheinstein.sqlbuilder.metrics.SqlBuilderMetrics;
+import org.docheinstein.sqlbuilder.models.Column;
 import org.docheinstein.sqlbuilder.models.Tuple;
+import org.docheinstein.sqlbuilder.statements.base.CompiledStatement;
+import org.docheinstein.sqlbuilder.statements.base.UpdateStatement;
+import org.docheinstein.sqlbuilder.types.Type;
 
+import javax.sql.DataSource;
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringJoiner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 /**
@@ -41,6 +56,16 @@ public class SqlBuilderInternalUtil {
             throw new UnsupportedSqlLanguageException();
     }
 
+    /**
+     * Throws an {@link IllegalStateException} if the entity that is going
+     * to be modified has been frozen.
+     * @param frozen whether the entity is frozen
+     */
+    public static void throwIfFrozen(boolean frozen) {
+        if (frozen)
+            throw new IllegalStateException("A frozen statement can't be modified");
+    }
+
     // -------------------------------------------------------------------------
     // ------------------------- SQL STRING BUILDING ---------------------------
     // -------------------------------------------------------------------------
@@ -80,6 +105,51 @@ public class SqlBuilderInternalUtil {
         return getAsCommaList(strings, s -> s);
     }
 
+    /**
+     * Scans an iterable collection of elements and appends each of those
+     * to the given builder using the given appender, separating the
+     * elements with a comma.
+     * <p>
+     * This is the single buffer counterpart of
+     * {@link #getAsCommaList(Iterable, Function)}.
+     * @param sql the builder
+     * @param elements the elements to scan
+     * @param appender the interface that defines the rules to use
+     *                 for append an element to the builder
+     * @param <T> any type
+     */
+    public static <T> void appendCommaList(StringBuilder sql,
+                                           Iterable<T> elements,
+                                           BiConsumer<T, StringBuilder> appender) {
+        boolean first = true;
+        for (T el : elements) {
+            if (!first)
+                sql.append(", ");
+            appender.accept(el, sql);
+            first = false;
+        }
+    }
+
+    /**
+     * Appends a string with the format "expressionName (expr_sql)"
+     * to the given builder, or nothing if the expression is null.
+     * <p>
+     * This is the single buffer counterpart of
+     * {@link #getNamedExpressionAsString(Expression, String)}.
+     * @param sql the builder
+     * @param expr the expression
+     * @param expressionName the name of the expression
+     */
+    public static void appendNamedExpression(StringBuilder sql,
+                                             Expression expr,
+                                             String expressionName) {
+        if (expr == null)
+            return;
+        sql.append(' ').append(expressionName).append(" (");
+        expr.appendSql(sql);
+        sql.append(')');
+    }
+
     /**
      * Returns a string with the format "expressionName (expr_sql)".
      * <p>
@@ -128,10 +198,44 @@ public class SqlBuilderInternalUtil {
         return columnFieldMap;
     }
 
+    /**
+     * Returns the {@link TupleMapper} that maps the rows of a query with
+     * the given columns to tuples of the given class.
+     * <p>
+     * Actually this method retrieves the mapper from the cache if exists.
+     * If it doesn't exist a new mapper is created and then cached for
+     * further uses.
+     *
+     * @param clazz the class of the tuples
+     * @param columns the columns of the query
+     * @param <T> the type of the class
+     * @return the mapper for the given class and columns
+     * @throws IllegalAccessException if the class in inaccessible
+     * @throws InstantiationException if the class can't be instantiated
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Tuple> TupleMapper<T> getTupleMapper(Class<T> clazz,
+                                                                 List<Column> columns)
+        throws IllegalAccessException, InstantiationException {
+
+        TupleMapper<T> mapper = (TupleMapper<T>) SqlBuilderCache.TupleMappers.get(clazz, columns);
+
+        recordCacheLookup(SqlBuilderMetrics.Cache.TupleMapper, mapper != null);
+
+        if (mapper == null) {
+            // Creates a new mapper and caches it
+            mapper = new TupleMapper<>(clazz, columns, getColumnFields(clazz));
+            SqlBuilderCache.TupleMappers.put(clazz, columns, mapper);
+        }
+
+        return mapper;
+    }
+
     /**
      * Returns the {@link PreparedStatement} associated with the given sql string.
      * <p>
-     * Actually this method retrieves the statement from the cache if exists.
+     * Actually this method retrieves the statement prepared on the given
+     * connection from the cache if exists.
      * If it doesn't exist, a new statement is created and then cached for
      * further uses.
      *
@@ -155,7 +259,8 @@ public class SqlBuilderInternalUtil {
      * and optionally enables the RETURN_GENERATED_KEYS for the statement
      * which can be used for retrieve an auto increment value of the tuple.
      * <p>
-     * Actually this method retrieves the statement from the cache if exists.
+     * Actually this method retrieves the statement prepared on the given
+     * connection from the cache if exists.
      * If it doesn't exist, a new statement is created and then cached for
      * further uses.
      *
@@ -174,34 +279,309 @@ public class SqlBuilderInternalUtil {
         Connection connection, String sql, boolean returnGeneratedKeys)
         throws SQLException {
 
-        PreparedStatement statement = SqlBuilderCache.Statements.get(sql);
+        PreparedStatement statement =
+            SqlBuilderCache.Statements.get(connection, sql, returnGeneratedKeys);
 
         if (statement != null && !statement.isClosed()) {
-            SqlBuilderLogger.out("Reusing cached statement for SQL {" + sql + "}");
+            SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+                () -> "Reusing cached statement for SQL {" + sql + "}");
+            recordCacheLookup(SqlBuilderMetrics.Cache.Statement, true);
             return statement;
         }
 
+        recordCacheLookup(SqlBuilderMetrics.Cache.Statement, false);
+
         // Creates a new statement and caches it
 
-        SqlBuilderLogger.out(
-            statement == null ?
+        boolean recreated = statement != null;
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> !recreated ?
                 "First creation of statement for SQL {" + sql + "}" :
                 "Recreating statement since cached one is closed for SQL {" + sql + "}"
         );
 
+        long start = startMeasure();
+
+        statement = returnGeneratedKeys ?
+            connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) :
+            connection.prepareStatement(sql);
+
+        onPrepared(statement, Fingerprint.of(sql), sql, start);
+
+        SqlBuilderCache.Statements.put(connection, sql, returnGeneratedKeys, statement);
+
+        return statement;
+    }
+
+    /**
+     * Returns the {@link PreparedStatement} of a query associated with the
+     * given sql string and created with the given {@link FetchOptions}.
+     * <p>
+     * Actually this method retrieves the statement prepared on the given
+     * connection with the same fetch options from the cache if exists.
+     * If it doesn't exist, a new statement is created and then cached for
+     * further uses.
+     *
+     * @param connection the connection
+     * @param sql the sql string
+     * @param fetchOptions the fetch options (null for the default ones)
+     * @return the statement associated with the given sql string
+     * @throws SQLException if the sql string contains errors
+     *
+     * @see #getStatement(Connection, String)
+     */
+    public static PreparedStatement getStatement(
+        Connection connection, String sql, FetchOptions fetchOptions)
+        throws SQLException {
+
+        if (fetchOptions == null || fetchOptions.isDefault())
+            return getStatement(connection, sql);
+
+        PreparedStatement statement =
+            SqlBuilderCache.Statements.get(connection, sql, fetchOptions);
+
+        if (statement != null && !statement.isClosed()) {
+            SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+                () -> "Reusing cached statement for SQL {" + sql + "} (" + fetchOptions + ")");
+            recordCacheLookup(SqlBuilderMetrics.Cache.Statement, true);
+            return statement;
+        }
+
+        recordCacheLookup(SqlBuilderMetrics.Cache.Statement, false);
+
+        // Creates a new statement and caches it
+
+        boolean recreated = statement != null;
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> (!recreated ?
+                "First creation of statement for SQL {" + sql + "}" :
+                "Recreating statement since cached one is closed for SQL {" + sql + "}")
+                + " (" + fetchOptions + ")"
+        );
+
+        long start = startMeasure();
+
+        statement = prepareStatement(connection, sql, fetchOptions);
+
+        onPrepared(statement, Fingerprint.of(sql), sql, start);
+
+        SqlBuilderCache.Statements.put(connection, sql, fetchOptions, statement);
+
+        return statement;
+    }
+
+    /**
+     * Returns the {@link PreparedStatement} associated with the fingerprint
+     * of the given sqlable entity and optionally enables the
+     * RETURN_GENERATED_KEYS for the statement.
+     * <p>
+     * Actually this method retrieves the statement prepared on the given
+     * connection from the cache if exists, without building the sql string
+     * of the sqlable entity (see {@link Fingerprint}).
+     * If it doesn't exist, a new statement is created and then cached for
+     * further uses; the sql string is built only the first time the
+     * fingerprint is prepared, even across different connections.
+     *
+     * @param connection the connection
+     * @param sqlable the sqlable entity
+     * @param returnGeneratedKeys whether the RETURN_GENERATED_KEYS flag should
+     *                            be passed for the creation of the statement
+     * @return the statement associated with the given sqlable entity
+     * @throws SQLException if the sql string contains errors
+     *
+     * @see #getStatement(Connection, Sqlable, FetchOptions)
+     */
+    public static PreparedStatement getStatement(
+        Connection connection, Sqlable sqlable, boolean returnGeneratedKeys)
+        throws SQLException {
+
+        long fingerprint = Fingerprint.of(sqlable);
+
+        PreparedStatement statement =
+            SqlBuilderCache.Statements.get(connection, fingerprint, returnGeneratedKeys);
+
+        if (statement != null && !statement.isClosed()) {
+            SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+                () -> "Reusing cached statement for SQL [FP = " +
+                    Long.toHexString(fingerprint) + "]");
+            recordCacheLookup(SqlBuilderMetrics.Cache.Statement, true);
+            return statement;
+        }
+
+        recordCacheLookup(SqlBuilderMetrics.Cache.Statement, false);
+
+        String sql = getSql(sqlable, fingerprint);
+
+        // Creates a new statement and caches it
+
+        boolean recreated = statement != null;
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> (!recreated ?
+                "First creation of statement for SQL [FP = " :
+                "Recreating statement since cached one is closed for SQL [FP = ")
+                + Long.toHexString(fingerprint) + "] {" + sql + "}"
+        );
+
+        long start = startMeasure();
+
         statement = returnGeneratedKeys ?
             connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) :
             connection.prepareStatement(sql);
 
-        SqlBuilderCache.Statements.put(sql, statement);
+        onPrepared(statement, fingerprint, sql, start);
+
+        SqlBuilderCache.Statements.put(connection, fingerprint, returnGeneratedKeys, statement);
 
         return statement;
     }
 
+    /**
+     * Returns the {@link PreparedStatement} of a query associated with the
+     * fingerprint of the given sqlable entity and created with the given
+     * {@link FetchOptions}.
+     * <p>
+     * Actually this method retrieves the statement prepared on the given
+     * connection with the same fetch options from the cache if exists,
+     * without building the sql string of the sqlable entity.
+     * If it doesn't exist, a new statement is created and then cached for
+     * further uses.
+     *
+     * @param connection the connection
+     * @param sqlable the sqlable entity
+     * @param fetchOptions the fetch options (null for the default ones)
+     * @return the statement associated with the given sqlable entity
+     * @throws SQLException if the sql string contains errors
+     *
+     * @see #getStatement(Connection, Sqlable, boolean)
+     */
+    public static PreparedStatement getStatement(
+        Connection connection, Sqlable sqlable, FetchOptions fetchOptions)
+        throws SQLException {
+
+        if (fetchOptions == null || fetchOptions.isDefault())
+            return getStatement(connection, sqlable, false);
+
+        long fingerprint = Fingerprint.of(sqlable);
+
+        PreparedStatement statement =
+            SqlBuilderCache.Statements.get(connection, fingerprint, fetchOptions);
+
+        if (statement != null && !statement.isClosed()) {
+            SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+                () -> "Reusing cached statement for SQL [FP = " +
+                    Long.toHexString(fingerprint) + "] (" + fetchOptions + ")");
+            recordCacheLookup(SqlBuilderMetrics.Cache.Statement, true);
+            return statement;
+        }
+
+        recordCacheLookup(SqlBuilderMetrics.Cache.Statement, false);
+
+        String sql = getSql(sqlable, fingerprint);
+
+        // Creates a new statement and caches it
+
+        boolean recreated = statement != null;
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> (!recreated ?
+                "First creation of statement for SQL [FP = " :
+                "Recreating statement since cached one is closed for SQL [FP = ")
+                + Long.toHexString(fingerprint) + "] {" + sql + "} (" + fetchOptions + ")"
+        );
+
+        long start = startMeasure();
+
+        statement = prepareStatement(connection, sql, fetchOptions);
+
+        onPrepared(statement, fingerprint, sql, start);
+
+        SqlBuilderCache.Statements.put(connection, fingerprint, fetchOptions, statement);
+
+        return statement;
+    }
+
+    /**
+     * Returns the sql string of the given sqlable entity, which is built
+     * only if it is not associated with its fingerprint yet.
+     * @param sqlable the sqlable entity
+     * @param fingerprint the fingerprint of the entity
+     * @return the sql string of the entity
+     */
+    private static String getSql(Sqlable sqlable, long fingerprint) {
+        String sql = SqlBuilderCache.Fingerprints.get(fingerprint);
+
+        if (sql == null) {
+            sql = render(sqlable, fingerprint);
+            SqlBuilderCache.Fingerprints.put(fingerprint, sql);
+        }
+
+        return sql;
+    }
+
+    /**
+     * Creates a {@link PreparedStatement} of a query with the given fetch options.
+     * @param connection the connection
+     * @param sql the sql string
+     * @param fetchOptions the fetch options
+     * @return the created statement
+     * @throws SQLException if the sql string contains errors
+     */
+    private static PreparedStatement prepareStatement(
+        Connection connection, String sql, FetchOptions fetchOptions)
+        throws SQLException {
+
+        PreparedStatement statement = connection.prepareStatement(sql,
+            fetchOptions.getResultSetType(), fetchOptions.getResultSetConcurrency());
+
+        int fetchSize = fetchOptions.getFetchSize();
+
+        if (fetchOptions.isStreaming()) {
+            if (isMySQL(connection)) {
+                // Connector/J streams the rows one by one only with this value
+                fetchSize = Integer.MIN_VALUE;
+            } else {
+                if (fetchSize == 0)
+                    fetchSize = FetchOptions.DEFAULT_STREAMING_FETCH_SIZE;
+
+                // The other drivers (e.g. PostgreSQL) use a cursor only
+                // within a transaction, which is up to the caller
+                if (connection.getAutoCommit())
+                    SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+                        () -> "Streaming might require the auto-commit to be " +
+                            "disabled for SQL {" + sql + "}");
+            }
+        }
+
+        if (fetchSize != 0)
+            statement.setFetchSize(fetchSize);
+
+        return statement;
+    }
+
+    /**
+     * Returns whether the database of the given connection is MySQL (or MariaDB).
+     * <p>
+     * The language set via {@link SqlBuilder#setLanguage(SqlLanguage)} is
+     * used if set, otherwise the product name of the database is inspected.
+     * @param connection the connection
+     * @return whether the database is MySQL
+     * @throws SQLException if the metadata of the connection can't be retrieved
+     */
+    private static boolean isMySQL(Connection connection) throws SQLException {
+        if (SqlBuilder.isLanguageSet())
+            return SqlBuilder.getLanguage() == SqlLanguage.MySQL;
+
+        DatabaseMetaData metaData = connection.getMetaData();
+        String productName = metaData != null ? metaData.getDatabaseProductName() : null;
+
+        return productName != null &&
+            (productName.contains("MySQL") || productName.contains("MariaDB"));
+    }
+
     /**
      * Returns the {@link PreparedStatement} associated with the given sqlable entity.
      * <p>
-     * Actually this method retrieves the statement from the cache if exists.
+     * Actually this method retrieves the statement prepared on the given
+     * connection from the cache if exists.
      * If it doesn't exist, a new statement is created and then cached for
      * further uses.
      *
@@ -225,9 +605,12 @@ public class SqlBuilderInternalUtil {
      * and optionally enables the RETURN_GENERATED_KEYS for the statement
      * which can be used for retrieve an auto increment value of the tuple.
      * <p>
-     * Actually this method retrieves the statement from the cache if exists.
+     * Actually this method retrieves the statement prepared on the given
+     * connection from the cache if exists, without building the sql string
+     * of the sqlable entity.
      * If it doesn't exist, a new statement is created and then cached for
-     * further uses.
+     * further uses; the sql string is built only the first time the
+     * identifier is used, even across different connections.
      *
      * @param connection the connection
      * @param sqlable the sqlable entity
@@ -245,45 +628,145 @@ public class SqlBuilderInternalUtil {
         Connection connection, Sqlable sqlable,
         int identifier, boolean returnGeneratedKeys) throws SQLException {
 
-        PreparedStatement statement = SqlBuilderCache.Statements.get(identifier);
+        PreparedStatement statement =
+            SqlBuilderCache.Statements.get(connection, identifier, returnGeneratedKeys);
 
         if (statement != null && !statement.isClosed()) {
-            SqlBuilderLogger.out("Reusing cached statement for SQL statement [ID = " + identifier + "]");
+            SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+                () -> "Reusing cached statement for SQL statement [ID = " + identifier + "]");
+            recordCacheLookup(SqlBuilderMetrics.Cache.Statement, true);
             return statement;
         }
 
-        String sql = sqlable.toSql();
+        recordCacheLookup(SqlBuilderMetrics.Cache.Statement, false);
+
+        String sql = getIdentifiedSql(sqlable, identifier);
 
         // Creates a new statement and caches it
 
-        SqlBuilderLogger.out(
-            statement == null ?
+        boolean recreated = statement != null;
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> !recreated ?
                 "First creation of statement for SQL [ID = " + identifier + "]"
                     + " {" + sql + "}" :
                 "Recreating statement since cached one is closed for SQL [ID = "
                     + identifier + "]" + " {" + sql + "}"
         );
 
+        long start = startMeasure();
+
         statement = returnGeneratedKeys ?
             connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS) :
             connection.prepareStatement(sql);
 
-        SqlBuilderCache.Statements.put(sql, statement);
+        onPrepared(statement, Fingerprint.of(sqlable), sql, start);
+
+        SqlBuilderCache.Statements.put(connection, identifier, returnGeneratedKeys, statement);
+
+        return statement;
+    }
+
+    /**
+     * Creates a dedicated {@link PreparedStatement} of a query for the given
+     * sqlable entity with the given {@link FetchOptions}.
+     * <p>
+     * Differently from {@link #getStatement(Connection, Sqlable, FetchOptions)}
+     * the statement is not cached, thus it is never closed or re-executed
+     * by someone else while its result set is in use (e.g. by a lazy iterator);
+     * the caller is responsible for closing it.
+     * The sql string is still built only the first time the fingerprint of
+     * the entity is prepared.
+     *
+     * @param connection the connection
+     * @param sqlable the sqlable entity
+     * @param fetchOptions the fetch options (null for the default ones)
+     * @return a new statement for the given sqlable entity
+     * @throws SQLException if the sql string contains errors
+     */
+    public static PreparedStatement createStatement(
+        Connection connection, Sqlable sqlable, FetchOptions fetchOptions)
+        throws SQLException {
+
+        long fingerprint = Fingerprint.of(sqlable);
+        String sql = getSql(sqlable, fingerprint);
+
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> "Creating uncached statement for SQL [FP = " +
+                Long.toHexString(fingerprint) + "] {" + sql + "}");
+
+        long start = startMeasure();
+
+        PreparedStatement statement = fetchOptions == null || fetchOptions.isDefault() ?
+            connection.prepareStatement(sql) :
+            prepareStatement(connection, sql, fetchOptions);
+
+        onPrepared(statement, fingerprint, sql, start);
 
         return statement;
     }
 
+    /**
+     * Creates a dedicated {@link PreparedStatement} for the given sqlable entity,
+     * building its sql string only the first time the identifier is used.
+     * <p>
+     * The statement is not cached; the caller is responsible for closing it.
+     *
+     * @param connection the connection
+     * @param sqlable the sqlable entity
+     * @param identifier the cache's identifier of the sqlable entity
+     * @return a new statement for the given sqlable entity
+     * @throws SQLException if the sql string contains errors
+     *
+     * @see #createStatement(Connection, Sqlable, FetchOptions)
+     */
+    public static PreparedStatement createStatement(
+        Connection connection, Sqlable sqlable, int identifier) throws SQLException {
+
+        String sql = getIdentifiedSql(sqlable, identifier);
+
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> "Creating uncached statement for SQL [ID = " + identifier + "] {" + sql + "}");
+
+        long start = startMeasure();
+
+        PreparedStatement statement = connection.prepareStatement(sql);
+
+        onPrepared(statement, Fingerprint.of(sqlable), sql, start);
+
+        return statement;
+    }
+
+    /**
+     * Returns the sql string of the given sqlable entity, which is built
+     * only if it is not associated with the given cache identifier yet.
+     * @param sqlable the sqlable entity
+     * @param identifier the cache's identifier of the entity
+     * @return the sql string of the entity
+     */
+    private static String getIdentifiedSql(Sqlable sqlable, int identifier) {
+        String sql = SqlBuilderCache.Identifiers.get(identifier);
+
+        if (sql == null) {
+            sql = render(sqlable);
+            SqlBuilderCache.Identifiers.put(identifier, sql);
+        }
+
+        return sql;
+    }
+
     /**
      * Binds the {@link PreparedStatement} with the given
      * list of bindable objects.
      * <p>
-     * Actually this method calls {@link PreparedStatement#setObject(int, Object)}
-     * for each bindable object.
+     * Actually this method binds each bindable object with the
+     * {@link ParameterBinder} of its class (see {@link ParameterBinders}).
      * @param statement the statement to bind
      * @param bindables the object which are bound
      * @return the bound statement
      * @throws SQLException if the bindable object list mismatch the prepared
      *                      statement parameters
+     *
+     * @see #boundStatement(PreparedStatement, SqlBindable)
      */
     public static PreparedStatement boundStatement(
         PreparedStatement statement, Iterable<Object> bindables) throws SQLException {
@@ -291,25 +774,137 @@ public class SqlBuilderInternalUtil {
         if (bindables == null)
             return statement;
 
-        int paramIndex = 1;
+        long start = startMeasure();
+
+        StatementBinder binder = new StatementBinder(statement);
 
-        String stmtHash = Integer.toHexString(statement.hashCode());
+        for (Object bindable : bindables)
+            binder.accept(bindable);
 
-        for (Object bindable : bindables) {
+        recordLatency(statement, SqlBuilderMetrics.Phase.Bind, start);
 
-            SqlBuilderLogger.out(
-                "Binding " + paramIndex + "° value of type [" +
-                    (bindable != null ?
-                        bindable.getClass().getSimpleName() :
-                        "Null"
-                    ) + "] to value [" + bindable + "] | stmt = " + stmtHash);
+        return statement;
+    }
 
-            statement.setObject(paramIndex++, bindable);
+    /**
+     * Binds the {@link PreparedStatement} with the bindable objects
+     * of the given sqlbindable object.
+     * <p>
+     * The bindable objects are streamed directly into the parameters of
+     * the statement via {@link SqlBindable#collectBindableObjects(SqlBindable.BindableSink)},
+     * without building any intermediate list.
+     * @param statement the statement to bind
+     * @param sqlbindable the sqlbindable object whose objects are bound
+     * @return the bound statement
+     * @throws SQLException if the bindable objects mismatch the prepared
+     *                      statement parameters
+     */
+    public static PreparedStatement boundStatement(
+        PreparedStatement statement, SqlBindable sqlbindable) throws SQLException {
+
+        // Compiled and frozen statements have their own bind plan
+        if (sqlbindable instanceof org.docheinstein.sqlbuilder.statements.base.Statement) {
+            CompiledStatement snapshot =
+                ((org.docheinstein.sqlbuilder.statements.base.Statement) sqlbindable).getSnapshot();
+            if (snapshot != null)
+                return snapshot.boundStatement(statement);
         }
 
+        long start = startMeasure();
+
+        sqlbindable.collectBindableObjects(new StatementBinder(statement));
+
+        recordLatency(statement, SqlBuilderMetrics.Phase.Bind, start);
+
+        return statement;
+    }
+
+    /**
+     * Binds the {@link PreparedStatement} with the given bindable objects
+     * using a precomputed bind plan.
+     * <p>
+     * The i-th object is bound with the i-th binder of the plan, without
+     * resolving the binder of each object again.
+     * @param statement the statement to bind
+     * @param bindables the objects which are bound
+     * @param plan the binders of the parameters of the statement, one
+     *             for each bindable object
+     * @return the bound statement
+     * @throws SQLException if the bindable objects mismatch the prepared
+     *                      statement parameters
+     *
+     * @see ParameterBinders#plan(Class, Type)
+     */
+    public static PreparedStatement boundStatement(
+        PreparedStatement statement, Object[] bindables,
+        ParameterBinder[] plan) throws SQLException {
+
+        long start = startMeasure();
+
+        for (int i = 0; i < bindables.length; i++) {
+            logBinding(statement, i + 1, bindables[i]);
+            plan[i].bind(statement, i + 1, bindables[i]);
+        }
+
+        recordLatency(statement, SqlBuilderMetrics.Phase.Bind, start);
+
         return statement;
     }
 
+    /**
+     * Logs the binding of a value to a parameter of a statement.
+     * @param statement the statement
+     * @param paramIndex the index of the parameter
+     * @param bindable the bound value
+     */
+    private static void logBinding(PreparedStatement statement,
+                                   int paramIndex, Object bindable) {
+        // Avoids to build the message for each bound value if nobody reads it
+        if (!SqlBuilderLogger.isEnabled(SqlBuilderLogger.Level.Trace))
+            return;
+
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Trace,
+            "Binding " + paramIndex + "° value of type [" +
+                (bindable != null ?
+                    bindable.getClass().getSimpleName() :
+                    "Null"
+                ) + "] to value [" + bindable + "] | stmt = " +
+                Integer.toHexString(statement.hashCode()));
+    }
+
+    /**
+     * Sink that binds each received object to the next parameter
+     * of a {@link PreparedStatement}.
+     */
+    private static class StatementBinder implements SqlBindable.BindableSink<SQLException> {
+
+        /** The statement to bind. */
+        private final PreparedStatement mStatement;
+
+        /** The index of the next parameter to bind. */
+        private int mParamIndex = 1;
+
+        /**
+         * Creates a binder for the given statement.
+         * @param statement the statement to bind
+         */
+        StatementBinder(PreparedStatement statement) {
+            mStatement = statement;
+        }
+
+        @Override
+        public void accept(Object bindable) throws SQLException {
+            accept(bindable, null);
+        }
+
+        @Override
+        public void accept(Object bindable, Column<?> column) throws SQLException {
+            logBinding(mStatement, mParamIndex, bindable);
+            ParameterBinders.bind(mStatement, mParamIndex++, bindable,
+                column != null ? column.getType() : null);
+        }
+    }
+
 
     /**
      * Returns a bound statement for the given sqlbindable object retrieving the statement
@@ -332,7 +927,7 @@ public class SqlBuilderInternalUtil {
             getStatement(
                 connection, sqlbindable, identifier, returnGeneratedKeys
             ),
-            sqlbindable.getBindableObjects()
+            sqlbindable
         );
     }
 
@@ -354,9 +949,9 @@ public class SqlBuilderInternalUtil {
         Connection connection, SqlBindable sqlbindable, int identifier
     ) throws SQLException {
 
-        return getBoundStatement(
+        return executeQuery(getBoundStatement(
             connection, sqlbindable, identifier, false
-        ).executeQuery();
+        ));
     }
 
     /**
@@ -375,8 +970,431 @@ public class SqlBuilderInternalUtil {
         int identifier, boolean returnGeneratedKeys
     ) throws SQLException {
 
-        return getBoundStatement(
-            connection, sqlbindable, identifier, returnGeneratedKeys
-        ).executeUpdate();
+        try {
+            return executeUpdate(getBoundStatement(
+                connection, sqlbindable, identifier, returnGeneratedKeys
+            ));
+        } finally {
+            invalidateQueryResults(connection, sqlbindable instanceof UpdateStatement ?
+                ((UpdateStatement) sqlbindable).getAffectedTables() : null);
+        }
+    }
+
+    /**
+     * Executes the given query statement, measuring its execution.
+     * @param statement the statement
+     * @return the result set of the query
+     * @throws SQLException if the query fails
+     */
+    public static ResultSet executeQuery(PreparedStatement statement) throws SQLException {
+        long start = startMeasure();
+        ResultSet resultSet = statement.executeQuery();
+        recordLatency(statement, SqlBuilderMetrics.Phase.Execute, start);
+        return resultSet;
+    }
+
+    /**
+     * Executes the given update statement, measuring its execution.
+     * @param statement the statement
+     * @return the result of {@link PreparedStatement#executeUpdate()}
+     * @throws SQLException if the update fails
+     */
+    public static int executeUpdate(PreparedStatement statement) throws SQLException {
+        long start = startMeasure();
+        int execRes = statement.executeUpdate();
+        recordLatency(statement, SqlBuilderMetrics.Phase.Execute, start);
+        return execRes;
+    }
+
+    // -------------------------------------------------------------------------
+    // ------------------------- ASYNCHRONOUS EXECUTION ------------------------
+    // -------------------------------------------------------------------------
+
+    /**
+     * Runs the given task on the given executor over a connection acquired
+     * from the given data source.
+     * <p>
+     * The connection is acquired when the task starts and it's closed (i.e.
+     * given back to the pool, if the data source is a pool) when the task
+     * ends, after the statements prepared on it have been removed from
+     * the statement cache.
+     * @param dataSource the data source that provides the connection
+     * @param task the task
+     * @param executor the executor, or null for {@link SqlBuilder#getExecutor()}
+     * @param <R> the type of the result of the task
+     * @return a future completed with the result of the task, or completed
+     *         exceptionally with the exception thrown by the task
+     */
+    public static <R> CompletableFuture<R> supplyAsync(
+        DataSource dataSource, ConnectionTask<R> task, Executor executor) {
+
+        CompletableFuture<R> future = new CompletableFuture<>();
+
+        try {
+            (executor != null ? executor : SqlBuilder.getExecutor()).execute(() -> {
+                if (future.isDone())
+                    return; // cancelled before starting
+
+                try (Connection connection = dataSource.getConnection()) {
+                    try {
+                        future.complete(task.run(connection));
+                    } finally {
+                        SqlBuilder.clearStatementCache(connection);
+                    }
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    // -------------------------------------------------------------------------
+    // -------------------------- QUERY RESULT CACHE ---------------------------
+    // -------------------------------------------------------------------------
+
+    /**
+     * Retrieves the tuples of the given query from the query result cache,
+     * or fetches them via the given task and caches them if they aren't there.
+     * <p>
+     * The tuples are cached only if the connection is in auto-commit mode,
+     * since the rows read within a transaction might be rolled back, and
+     * only if no transaction in progress has written the tables the query
+     * reads from (see {@link #invalidateQueryResults(Connection, Set)}).
+     * <p>
+     * The cache holds its own copies of the tuples and each hit returns new
+     * copies, so that the tuples returned to a caller can be modified
+     * without affecting the cached result.
+     * <p>
+     * The results are cached per database (see {@link #getDatabaseIdentity(Connection)}),
+     * thus the same query executed over different databases doesn't share them.
+     * @param connection the connection
+     * @param query the query
+     * @param clazz the class of the tuples
+     * @param tables the names of the tables the query reads from
+     * @param fetcher the task that fetches the tuples of the query
+     * @param <T> the type of the tuples
+     * @return the tuples of the query
+     * @throws SQLException if the query fails
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Tuple> List<T> fetchCachedResults(
+        Connection connection, Sqlable query, Class<T> clazz,
+        Set<String> tables, ConnectionTask<List<T>> fetcher) throws SQLException {
+
+        long fingerprint = Fingerprint.of(query);
+
+        boolean autoCommit = connection.getAutoCommit();
+
+        // Back in auto-commit mode: the transaction previously in
+        // progress on the connection, if any, has ended
+        if (autoCommit)
+            SqlBuilderCache.QueryResults.endTransaction(connection);
+
+        SqlBuilderCache.QueryResults.ResultKey key = new SqlBuilderCache.QueryResults.ResultKey(
+            getDatabaseIdentity(connection), fingerprint, query instanceof SqlBindable ? ((SqlBindable) query).getBindableObjects() : null,
+            clazz, tables);
+
+        List<?> cached = SqlBuilderCache.QueryResults.get(key);
+
+        recordCacheLookup(SqlBuilderMetrics.Cache.QueryResult, cached != null);
+
+        if (cached != null) {
+            SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+                () -> "Using cached result [FP = " + Long.toHexString(fingerprint) + "]");
+            return copyTuples((List<T>) cached, clazz);
+        }
+
+        long generation = SqlBuilderCache.QueryResults.getGeneration();
+
+        List<T> tuples = fetcher.run(connection);
+
+        if (autoCommit)
+            SqlBuilderCache.QueryResults.put(
+                key, Collections.unmodifiableList(copyTuples(tuples, clazz)), generation);
+
+        return tuples;
+    }
+
+    /**
+     * Returns the identity of the database the given connection is
+     * connected to, i.e. its url, which is shared by the connections
+     * to the same database.
+     * <p>
+     * If the url can't be retrieved the connection itself is returned,
+     * thus its results are not shared with the other connections.
+     * @param connection the connection
+     * @return the identity of the database of the connection
+     */
+    private static Object getDatabaseIdentity(Connection connection) {
+        try {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String url = metaData != null ? metaData.getURL() : null;
+
+            if (url != null)
+                return url;
+        } catch (SQLException e) {
+            SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+                () -> "Failed to retrieve the database url: " + e.getMessage());
+        }
+
+        return connection;
+    }
+
+    /**
+     * Removes from the query result cache the results of the queries that
+     * read from any of the given tables.
+     * @param tables the names of the tables, or null if they are unknown,
+     *               in which case every result is removed
+     */
+    public static void invalidateQueryResults(Set<String> tables) {
+        SqlBuilderCache.QueryResults.invalidate(tables);
+    }
+
+    /**
+     * Removes from the query result cache the results of the queries that
+     * read from any of the given tables, after they have been written
+     * on the given connection.
+     * <p>
+     * If the connection is within a transaction the written rows become
+     * visible to the other connections only when the transaction commits,
+     * thus the results of the queries that read from the tables are not
+     * cached until the transaction ends, i.e. until one of the following
+     * happens (and the results are invalidated again):
+     * <ul>
+     *     <li>the transaction is ended via {@link SqlBuilder#commit(Connection)}
+     *     or {@link SqlBuilder#rollback(Connection)}</li>
+     *     <li>the connection is used by the library in auto-commit mode</li>
+     *     <li>the statement cache of the connection is cleared via
+     *     {@link SqlBuilder#clearStatementCache(Connection)}</li>
+     * </ul>
+     * @param connection the connection
+     * @param tables the names of the tables, or null if they are unknown,
+     *               in which case every result is removed
+     */
+    public static void invalidateQueryResults(Connection connection, Set<String> tables) {
+        boolean inTransaction;
+
+        try {
+            inTransaction = !connection.getAutoCommit();
+        } catch (SQLException e) {
+            // Be conservative: keep the tables uncacheable
+            inTransaction = true;
+        }
+
+        SqlBuilderCache.QueryResults.invalidate(connection, tables, inTransaction);
+    }
+
+    /**
+     * Removes from the query result cache the results of the queries that
+     * read from any of the given tables, after they have been written
+     * by the given statement.
+     * @param statement the statement
+     * @param tables the names of the tables, or null if they are unknown,
+     *               in which case every result is removed
+     * @see #invalidateQueryResults(Connection, Set)
+     */
+    public static void invalidateQueryResults(Statement statement, Set<String> tables) {
+        Connection connection;
+
+        try {
+            connection = statement.getConnection();
+        } catch (SQLException e) {
+            connection = null;
+        }
+
+        if (connection != null)
+            invalidateQueryResults(connection, tables);
+        else
+            invalidateQueryResults(tables);
+    }
+
+    /**
+     * Ends the transaction in progress on the given connection from the
+     * point of view of the query result cache: the results of the queries
+     * that read from the tables written within the transaction are
+     * invalidated and can be cached again.
+     * @param connection the connection
+     */
+    public static void endTransaction(Connection connection) {
+        SqlBuilderCache.QueryResults.endTransaction(connection);
+    }
+
+    /**
+     * Returns a copy of each of the given tuples.
+     * <p>
+     * The copies are created with the default constructor of the tuple
+     * class and share the values of the column fields of the originals.
+     * @param tuples the tuples
+     * @param clazz the class of the tuples
+     * @param <T> the type of the tuples
+     * @return the copies of the tuples
+     */
+    private static <T extends Tuple> List<T> copyTuples(List<T> tuples, Class<T> clazz) {
+        try {
+            Map<String, Field> columnFieldMap = getColumnFields(clazz);
+            Constructor<T> constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+
+            List<T> copies = new ArrayList<>(tuples.size());
+
+            for (T tuple : tuples) {
+                T copy = constructor.newInstance();
+                for (Field field : columnFieldMap.values())
+                    field.set(copy, field.get(tuple));
+                copies.add(copy);
+            }
+
+            return copies;
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Error while trying to copy the tuples of class " +
+                clazz.getName() + ". (The class must have a default constructor)");
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // -------------------------------- METRICS --------------------------------
+    // -------------------------------------------------------------------------
+
+    /** Start instant of a phase which is not measured. */
+    private static final long NOT_MEASURED = Long.MIN_VALUE;
+
+    /**
+     * Returns the sql string of the given statement, measuring its rendering.
+     * <p>
+     * The fingerprint of the statement is computed only if the metrics are enabled.
+     * @param sqlable the statement
+     * @return the sql string of the statement
+     */
+    public static String render(Sqlable sqlable) {
+        long start = startMeasure();
+        String sql = sqlable.toSql();
+        if (start != NOT_MEASURED)
+            recordLatency(Fingerprint.of(sqlable), SqlBuilderMetrics.Phase.Render, start);
+        return sql;
+    }
+
+    /**
+     * Returns the sql string of the given statement, measuring its rendering.
+     * @param sqlable the statement
+     * @param fingerprint the fingerprint of the statement
+     * @return the sql string of the statement
+     */
+    private static String render(Sqlable sqlable, long fingerprint) {
+        long start = startMeasure();
+        String sql = sqlable.toSql();
+        recordLatency(fingerprint, SqlBuilderMetrics.Phase.Render, start);
+        return sql;
+    }
+
+    /**
+     * Returns the start instant of a phase to measure.
+     * @return the current instant, or a placeholder if the metrics are disabled
+     */
+    public static long startMeasure() {
+        return SqlBuilder.getMetrics().isEnabled() ? System.nanoTime() : NOT_MEASURED;
+    }
+
+    /**
+     * Returns whether the phases of the executions have to be measured,
+     * i.e. whether the metrics are enabled.
+     * @return whether the phases are measured
+     */
+    public static boolean isMeasuring() {
+        return SqlBuilder.getMetrics().isEnabled();
+    }
+
+    /**
+     * Records the latency of a phase of the execution of a statement,
+     * if it has been measured.
+     * @param fingerprint the fingerprint of the statement
+     * @param phase the phase
+     * @param start the start instant of the phase, as returned by {@link #startMeasure()}
+     */
+    public static void recordLatency(long fingerprint, SqlBuilderMetrics.Phase phase, long start) {
+        if (start != NOT_MEASURED)
+            SqlBuilder.getMetrics().recordLatency(fingerprint, phase, System.nanoTime() - start);
+    }
+
+    /**
+     * Records the latency of a phase of the execution of a statement,
+     * if it has been measured.
+     * @param statement the statement
+     * @param phase the phase
+     * @param start the start instant of the phase, as returned by {@link #startMeasure()}
+     */
+    public static void recordLatency(Statement statement, SqlBuilderMetrics.Phase phase, long start) {
+        if (start != NOT_MEASURED)
+            recordLatency(getFingerprint(statement), phase, start);
+    }
+
+    /**
+     * Records the latency of a phase of the execution of a statement which
+     * has been measured in several parts (e.g. the mapping of each row).
+     * @param statement the statement
+     * @param phase the phase
+     * @param nanos the overall duration of the phase, in nanoseconds
+     */
+    public static void recordDuration(Statement statement, SqlBuilderMetrics.Phase phase, long nanos) {
+        SqlBuilderMetrics metrics = SqlBuilder.getMetrics();
+        if (metrics.isEnabled())
+            metrics.recordLatency(getFingerprint(statement), phase, nanos);
+    }
+
+    /**
+     * Records the number of rows mapped by an execution of a statement,
+     * if the metrics are enabled.
+     * @param statement the statement
+     * @param rows the number of rows
+     */
+    public static void recordRows(Statement statement, long rows) {
+        SqlBuilderMetrics metrics = SqlBuilder.getMetrics();
+        if (metrics.isEnabled())
+            metrics.recordRows(getFingerprint(statement), rows);
+    }
+
+    /**
+     * Records a lookup of a cache, if the metrics are enabled.
+     * @param cache the cache
+     * @param hit whether the cache contained the entry
+     */
+    public static void recordCacheLookup(SqlBuilderMetrics.Cache cache, boolean hit) {
+        SqlBuilderMetrics metrics = SqlBuilder.getMetrics();
+        if (metrics.isEnabled())
+            metrics.recordCacheLookup(cache, hit);
+    }
+
+    /**
+     * Returns the fingerprint of the given statement within the metrics.
+     * @param statement the statement, might be null
+     * @return the fingerprint the statement has been prepared for, or
+     *         {@link SqlBuilderMetrics#UNKNOWN_STATEMENT}
+     */
+    private static long getFingerprint(Statement statement) {
+        Long fingerprint = statement != null ?
+            SqlBuilderCache.PreparedFingerprints.get(statement) : null;
+        return fingerprint != null ? fingerprint : SqlBuilderMetrics.UNKNOWN_STATEMENT;
+    }
+
+    /**
+     * Handles a statement just prepared: remembers its fingerprint and
+     * records its sql string and the latency of its preparation.
+     * @param statement the statement
+     * @param fingerprint the fingerprint of the statement
+     * @param sql the sql string of the statement
+     * @param start the start instant of the preparation
+     */
+    private static void onPrepared(PreparedStatement statement, long fingerprint,
+                                   String sql, long start) {
+        SqlBuilderCache.PreparedFingerprints.put(statement, fingerprint);
+
+        SqlBuilderMetrics metrics = SqlBuilder.getMetrics();
+        if (metrics.isEnabled())
+            metrics.recordStatement(fingerprint, sql);
+
+        recordLatency(fingerprint, SqlBuilderMetrics.Phase.Prepare, start);
     }
 }
@@ -2,9 +2,15 @@ package org.docheinstein.sqlbuilder.commons;
 
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Supplier;
 
 /**
  * Library's logger for debug purpose
+ * <p>
+ * The messages are built only if the logger is enabled for their level
+ * and there is at least a listener, thus the hot paths of the library
+ * should either use {@link #out(Level, Supplier)} or check
+ * {@link #isEnabled(Level)} before building a message.
  */
 public class SqlBuilderLogger {
 
@@ -15,8 +21,21 @@ public class SqlBuilderLogger {
         void onLoggerMessage(String message);
     }
 
+    /**
+     * Level of a message, from the less verbose to the most verbose.
+     */
+    public enum Level {
+        /** Messages about statements (e.g. creation, caching). */
+        Debug,
+        /** Messages about single values (e.g. binding, fetching). */
+        Trace
+    }
+
     /** Whether the logger is currently enabled. */
-    private static boolean sEnabled = false;
+    private static volatile boolean sEnabled = false;
+
+    /** The most verbose level delivered to the listeners. */
+    private static volatile Level sLevel = Level.Trace;
 
     /** The listeners of this logger. */
     private static final Set<LoggerListener> sListeners = new CopyOnWriteArraySet<>();
@@ -31,6 +50,36 @@ public class SqlBuilderLogger {
         sEnabled = enabled;
     }
 
+    /**
+     * Sets the most verbose level delivered to the listeners.
+     * <p>
+     * The default level is {@link Level#Trace}, i.e. every message is delivered.
+     * @param level the level
+     */
+    public static void setLevel(Level level) {
+        sLevel = level;
+    }
+
+    /**
+     * Returns the most verbose level delivered to the listeners.
+     * @return the level
+     */
+    public static Level getLevel() {
+        return sLevel;
+    }
+
+    /**
+     * Returns whether a message of the given level would be delivered
+     * to any listener.
+     * @param level the level of the message
+     * @return whether the logger is enabled for the given level
+     */
+    public static boolean isEnabled(Level level) {
+        return sEnabled &&
+            level.compareTo(sLevel) <= 0 &&
+            !sListeners.isEmpty();
+    }
+
     /**
      * Adds a listener that will be notified about new message.
      * @param ll the logger listener
@@ -48,11 +97,33 @@ public class SqlBuilderLogger {
     }
 
     /**
-     * Notifies the listeners about a new message.
+     * Notifies the listeners about a new message of level {@link Level#Debug}.
      * @param str the message
      */
     public static void out(String str) {
-        if (sEnabled)
+        out(Level.Debug, str);
+    }
+
+    /**
+     * Notifies the listeners about a new message.
+     * @param level the level of the message
+     * @param str the message
+     */
+    public static void out(Level level, String str) {
+        if (isEnabled(level))
             sListeners.forEach(l -> l.onLoggerMessage(str));
     }
+
+    /**
+     * Notifies the listeners about a new message which is built
+     * only if the logger is enabled for its level.
+     * @param level the level of the message
+     * @param message the supplier of the message
+     */
+    public static void out(Level level, Supplier<String> message) {
+        if (!isEnabled(level))
+            return;
+        String str = message.get();
+        sListeners.forEach(l -> l.onLoggerMessage(str));
+    }
 }
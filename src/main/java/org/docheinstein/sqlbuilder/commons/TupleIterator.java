@@ -0,0 +1,154 @@
+package org.docheinstein.sqlbuilder.commons;
+
+import org.docheinstein.sqlbuilder.exceptions.UncheckedSQLException;
+import org.docheinstein.sqlbuilder.models.Column;
+import org.docheinstein.sqlbuilder.models.Tuple;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator that lazily maps the rows of a result set to tuples of a given
+ * class: a row is read from the result set only when the next tuple is
+ * requested.
+ * <p>
+ * The result set is closed either when the iterator is closed or when
+ * its rows are exhausted, together with its statement if the iterator
+ * owns it.
+ * <p>
+ * Failures of the underlying result set are thrown as
+ * {@link UncheckedSQLException}s.
+ * @param <T> the type of the tuples
+ */
+public class TupleIterator<T extends Tuple> implements Iterator<T>, AutoCloseable {
+
+    /** The class of the tuples. */
+    private final Class<T> mClass;
+
+    /** The columns of the query. */
+    private final List<Column> mColumns;
+
+    /** The result set from which the tuples are retrieved. */
+    private final ResultSet mResultSet;
+
+    /** Whether the statement of the result set is closed with the result set. */
+    private final boolean mCloseStatement;
+
+    /** The mapper of the rows, resolved with the first row. */
+    private TupleMapper<T> mMapper;
+
+    /** The indexes of the mapped columns, resolved with the first row. */
+    private int[] mIndexes;
+
+    /** Whether the result set is positioned on a row not returned yet. */
+    private boolean mHasRow;
+
+    /** Whether the result set has been closed. */
+    private boolean mClosed;
+
+    /**
+     * Creates an iterator over the tuples of the given result set.
+     * @param clazz the class of the tuples
+     * @param columns the columns of the query
+     * @param resultSet the result set (might be null for an empty iterator)
+     */
+    public TupleIterator(Class<T> clazz, List<Column> columns, ResultSet resultSet) {
+        this(clazz, columns, resultSet, false);
+    }
+
+    /**
+     * Creates an iterator over the tuples of the given result set.
+     * @param clazz the class of the tuples
+     * @param columns the columns of the query
+     * @param resultSet the result set (might be null for an empty iterator)
+     * @param closeStatement whether the statement which produced the result
+     *                       set is dedicated to this iterator and must be
+     *                       closed together with the result set
+     */
+    public TupleIterator(Class<T> clazz, List<Column> columns,
+                         ResultSet resultSet, boolean closeStatement) {
+        mClass = clazz;
+        mColumns = columns;
+        mResultSet = resultSet;
+        mCloseStatement = closeStatement;
+        mClosed = resultSet == null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (mHasRow)
+            return true;
+
+        if (mClosed)
+            return false;
+
+        try {
+            mHasRow = mResultSet.next();
+        } catch (SQLException e) {
+            close();
+            throw new UncheckedSQLException(e);
+        }
+
+        if (!mHasRow)
+            close();
+
+        return mHasRow;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        mHasRow = false;
+
+        try {
+            if (mMapper == null) {
+                mMapper = SqlBuilderInternalUtil.getTupleMapper(mClass, mColumns);
+                mIndexes = mMapper.getColumnIndexes(mResultSet);
+            }
+
+            return mMapper.map(mResultSet, mIndexes);
+        } catch (SQLException e) {
+            close();
+            throw new UncheckedSQLException(e);
+        } catch (IllegalAccessException | InstantiationException e) {
+            close();
+            e.printStackTrace();
+            throw new RuntimeException("Fetch failed for type: " + mClass.getName());
+        }
+    }
+
+    /**
+     * Closes the underlying result set.
+     * <p>
+     * The statement which produced the result set is closed too only if
+     * it is dedicated to this iterator, since otherwise it might be cached
+     * for further executions.
+     */
+    @Override
+    public void close() {
+        if (mClosed)
+            return;
+
+        mClosed = true;
+        mHasRow = false;
+
+        try {
+            Statement statement = mCloseStatement ? mResultSet.getStatement() : null;
+
+            try {
+                mResultSet.close();
+            } finally {
+                if (statement != null)
+                    statement.close();
+            }
+        } catch (SQLException e) {
+            throw new UncheckedSQLException(e);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package org.docheinstein.sqlbuilder.commons;
+
+import org.docheinstein.sqlbuilder.models.Column;
+import org.docheinstein.sqlbuilder.models.Tuple;
+import org.docheinstein.sqlbuilder.types.Type;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the rows of a result set to tuples of a given class.
+ * <p>
+ * The constructor of the tuple class and the fields annotated with
+ * {@link org.docheinstein.sqlbuilder.models.ColumnField} that match the
+ * columns of the query are resolved once into {@link MethodHandle}s, so
+ * that mapping a row doesn't involve any reflective access nor any
+ * lookup by column name.
+ * <p>
+ * The values are retrieved by column index: the indexes of the columns
+ * are resolved once per result set via {@link #getColumnIndexes(ResultSet)}.
+ * The columns whose type doesn't override
+ * {@link Type#getFromResultSet(ResultSet, int)} below its
+ * {@link Type#getFromResultSet(ResultSet, String)} (e.g. custom types
+ * written before the former existed) are retrieved by their TABLE.COLUMN
+ * label instead.
+ * <p>
+ * Mappers are typically retrieved via
+ * {@link SqlBuilderInternalUtil#getTupleMapper(Class, List)}, which caches
+ * them for each tuple class and list of columns.
+ * @param <T> the type of the tuples
+ */
+public class TupleMapper<T extends Tuple> {
+
+    /** The class of the tuples. */
+    private final Class<T> mClass;
+
+    /** Creates a new tuple, typed as ()Object. */
+    private final MethodHandle mConstructor;
+
+    /** The types of the mapped columns. */
+    private final Type<?>[] mTypes;
+
+    /** The labels of the mapped columns (i.e. TABLE.COLUMN). */
+    private final String[] mLabels;
+
+    /** The names of the mapped columns. */
+    private final String[] mNames;
+
+    /** The positions of the mapped columns in the query (starting from 1). */
+    private final int[] mPositions;
+
+    /** Set the field of a mapped column, typed as (Object, Object)void. */
+    private final MethodHandle[] mSetters;
+
+    /** Whether the field of a mapped column is of a primitive type. */
+    private final boolean[] mPrimitives;
+
+    /** Whether the value of a mapped column is retrieved by index rather than by label. */
+    private final boolean[] mByIndex;
+
+    /**
+     * Creates a mapper for the tuples of the given class and the given columns.
+     * @param clazz the class of the tuples
+     * @param columns the columns of the query
+     * @param columnFieldMap the fields of the tuple class associated with
+     *                       their column name
+     */
+    TupleMapper(Class<T> clazz, List<Column> columns, Map<String, Field> columnFieldMap) {
+        mClass = clazz;
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        try {
+            Constructor<T> constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            mConstructor = lookup.unreflectConstructor(constructor)
+                .asType(MethodType.methodType(Object.class));
+
+            List<Column> mappedColumns = new ArrayList<>();
+            List<Integer> positions = new ArrayList<>();
+            List<MethodHandle> setters = new ArrayList<>();
+            List<Boolean> primitives = new ArrayList<>();
+
+            for (int c = 0; c < columns.size(); c++) {
+                Column column = columns.get(c);
+
+                if (!column.isWellDefined())
+                    throw new RuntimeException("Can't fetch a string column, provide a valid one");
+
+                Field field = columnFieldMap.get(column.getName());
+                if (field == null)
+                    continue;
+
+                mappedColumns.add(column);
+                positions.add(c + 1);
+                setters.add(lookup.unreflectSetter(field)
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class)));
+                primitives.add(field.getType().isPrimitive());
+            }
+
+            int size = mappedColumns.size();
+            mTypes = new Type<?>[size];
+            mLabels = new String[size];
+            mNames = new String[size];
+            mPositions = new int[size];
+            mSetters = setters.toArray(new MethodHandle[size]);
+            mPrimitives = new boolean[size];
+            mByIndex = new boolean[size];
+
+            for (int i = 0; i < size; i++) {
+                Column column = mappedColumns.get(i);
+                mTypes[i] = column.getType();
+                mLabels[i] = column.getTableDotName();
+                mNames[i] = column.getName();
+                mPositions[i] = positions.get(i);
+                mPrimitives[i] = primitives.get(i);
+                mByIndex[i] = isRetrievableByIndex(mTypes[i]);
+            }
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Fetch failed for type: " + clazz.getName() +
+                ". (The class must have a default constructor)");
+        }
+    }
+
+    /**
+     * Returns whether the values of the given type can be retrieved by
+     * column index, i.e. whether {@link Type#getFromResultSet(ResultSet, int)}
+     * is overridden by the class that overrides
+     * {@link Type#getFromResultSet(ResultSet, String)} or by one of its
+     * subclasses.
+     * <p>
+     * Otherwise the index getter is either the default one or inherited
+     * from a superclass whose label getter has been overridden, thus it
+     * might not retrieve the value the way the type expects.
+     * @param type the type
+     * @return whether the values of the type can be retrieved by index
+     */
+    private static boolean isRetrievableByIndex(Type<?> type) {
+        try {
+            Class<?> byLabel = type.getClass()
+                .getMethod("getFromResultSet", ResultSet.class, String.class)
+                .getDeclaringClass();
+            Class<?> byIndex = type.getClass()
+                .getMethod("getFromResultSet", ResultSet.class, int.class)
+                .getDeclaringClass();
+
+            return byIndex != Type.class && byLabel.isAssignableFrom(byIndex);
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Resolves the indexes of the mapped columns in the given result set.
+     * <p>
+     * The position of each column in the query is used if the result set
+     * actually has a column with the same name at that position; otherwise
+     * the column is looked up by its TABLE.COLUMN label.
+     * <p>
+     * This should be called once per result set, before mapping its rows.
+     * @param resultSet the result set
+     * @return the indexes of the mapped columns, to pass to
+     *         {@link #map(ResultSet, int[])}
+     * @throws SQLException if a column can't be found in the result set
+     */
+    public int[] getColumnIndexes(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        int columnCount = metaData != null ? metaData.getColumnCount() : 0;
+
+        int[] indexes = new int[mPositions.length];
+
+        for (int i = 0; i < mPositions.length; i++) {
+            int position = mPositions[i];
+
+            if (position <= columnCount &&
+                mNames[i].equalsIgnoreCase(metaData.getColumnLabel(position)))
+                indexes[i] = position;
+            else
+                indexes[i] = resultSet.findColumn(mLabels[i]);
+        }
+
+        return indexes;
+    }
+
+    /**
+     * Creates a tuple from the current row of the given result set.
+     * <p>
+     * Null values are not assigned to the fields of primitive type,
+     * which keep their default value.
+     * @param resultSet the result set, positioned on the row to map
+     * @param indexes the indexes of the mapped columns, as returned by
+     *                {@link #getColumnIndexes(ResultSet)} for the result set
+     * @return the tuple
+     * @throws SQLException if the values can't be retrieved from the result set
+     */
+    @SuppressWarnings("unchecked")
+    public T map(ResultSet resultSet, int[] indexes) throws SQLException {
+        boolean trace = SqlBuilderLogger.isEnabled(SqlBuilderLogger.Level.Trace);
+
+        try {
+            T t = (T) (Object) mConstructor.invokeExact();
+
+            for (int i = 0; i < mSetters.length; i++) {
+                Object o = mByIndex[i] ?
+                    mTypes[i].getFromResultSet(resultSet, indexes[i]) :
+                    mTypes[i].getFromResultSet(resultSet, mLabels[i]);
+
+                if (trace)
+                    SqlBuilderLogger.out(SqlBuilderLogger.Level.Trace,
+                        "Filling field [" + mNames[i] + "] with [" + o + "]");
+
+                if (o == null && mPrimitives[i])
+                    continue;
+
+                mSetters[i].invokeExact((Object) t, o);
+            }
+
+            return t;
+        } catch (SQLException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            e.printStackTrace();
+            throw new RuntimeException("Fetch failed for type: " + mClass.getName());
+        }
+    }
+}
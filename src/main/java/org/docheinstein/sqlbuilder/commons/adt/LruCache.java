@@ -0,0 +1,285 @@
+package org.docheinstein.sqlbuilder.commons.adt;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * A thread safe map with a maximum number of entries which evicts the
+ * least recently used entry when the maximum size is exceeded.
+ *
+ * <p>
+ *
+ * Evicted entries are delivered to an optional {@link EvictionListener}
+ * outside the cache's lock, so that the listener can perform slow operations
+ * (e.g. closing a resource) without blocking the other users of the cache.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class LruCache<K, V> {
+
+    /**
+     * Listener notified when an entry is removed from the cache because of
+     * the size limit or because of an explicit invalidation.
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    public interface EvictionListener<K, V> {
+
+        /**
+         * Called when an entry leaves the cache.
+         * @param key the key of the entry
+         * @param value the value of the entry
+         */
+        void onEvicted(K key, V value);
+    }
+
+    /** The wrapped map, ordered by access (least recently used first). */
+    private final LinkedHashMap<K, V> mMap = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Listener of the evicted entries; might be null. */
+    private final EvictionListener<K, V> mEvictionListener;
+
+    /** Maximum number of entries this cache can hold. */
+    private int mMaxSize;
+
+    /** Number of lookups which found a value. */
+    private final AtomicLong mHits = new AtomicLong();
+
+    /** Number of lookups which didn't find a value. */
+    private final AtomicLong mMisses = new AtomicLong();
+
+    /** Number of entries evicted because the cache exceeded its size. */
+    private final AtomicLong mEvictions = new AtomicLong();
+
+    /**
+     * Creates a cache with the given maximum size.
+     * @param maxSize the maximum number of entries
+     */
+    public LruCache(int maxSize) {
+        this(maxSize, null);
+    }
+
+    /**
+     * Creates a cache with the given maximum size.
+     * @param maxSize the maximum number of entries
+     * @param evictionListener an optional listener of the evicted entries
+     */
+    public LruCache(int maxSize, EvictionListener<K, V> evictionListener) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("The maximum size of the cache must be positive");
+        mMaxSize = maxSize;
+        mEvictionListener = evictionListener;
+    }
+
+    /**
+     * Returns the value associated with the given key and marks the entry
+     * as the most recently used one.
+     * @param key the key
+     * @return the value associated with the key or null if it doesn't exist
+     */
+    public V get(K key) {
+        V value;
+
+        synchronized (this) {
+            value = mMap.get(key);
+        }
+
+        if (value != null)
+            mHits.incrementAndGet();
+        else
+            mMisses.incrementAndGet();
+
+        return value;
+    }
+
+    /**
+     * Inserts an association between a key and a value, evicting the least
+     * recently used entries if the maximum size is exceeded.
+     * <p>
+     * A different value previously associated with the key leaves the
+     * cache, thus the eviction listener is notified about it too.
+     * @param key the key
+     * @param value the value
+     * @return the value previously associated with the key, or null
+     */
+    public V put(K key, V value) {
+        V previous;
+        List<Map.Entry<K, V>> evicted;
+
+        synchronized (this) {
+            previous = mMap.put(key, value);
+            evicted = trim();
+        }
+
+        if (previous != null && previous != value && mEvictionListener != null)
+            mEvictionListener.onEvicted(key, previous);
+
+        notifyEvicted(evicted);
+
+        return previous;
+    }
+
+    /**
+     * Removes the entry associated with the given key, notifying the
+     * eviction listener.
+     * @param key the key
+     * @return the value that was associated with the key, or null
+     */
+    public V remove(K key) {
+        V value;
+
+        synchronized (this) {
+            value = mMap.remove(key);
+        }
+
+        if (value != null && mEvictionListener != null)
+            mEvictionListener.onEvicted(key, value);
+
+        return value;
+    }
+
+    /**
+     * Removes every entry whose key satisfies the given predicate,
+     * notifying the eviction listener.
+     * @param keyFilter the predicate that selects the keys to remove
+     */
+    public void removeIf(Predicate<K> keyFilter) {
+        List<Map.Entry<K, V>> evicted = null;
+
+        synchronized (this) {
+            Iterator<Map.Entry<K, V>> it = mMap.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, V> entry = it.next();
+                if (keyFilter.test(entry.getKey())) {
+                    if (evicted == null)
+                        evicted = new ArrayList<>();
+                    evicted.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+                    it.remove();
+                }
+            }
+        }
+
+        notifyEvicted(evicted);
+    }
+
+    /**
+     * Removes every entry from the cache, notifying the eviction listener.
+     */
+    public void clear() {
+        List<Map.Entry<K, V>> evicted;
+
+        synchronized (this) {
+            evicted = new ArrayList<>(mMap.size());
+            for (Map.Entry<K, V> entry : mMap.entrySet())
+                evicted.add(new AbstractMap.SimpleImmutableEntry<>(entry));
+            mMap.clear();
+        }
+
+        notifyEvicted(evicted);
+    }
+
+    /**
+     * Sets the maximum number of entries of this cache, evicting the
+     * least recently used entries if the new size is smaller than the
+     * current one.
+     * @param maxSize the maximum number of entries
+     */
+    public void setMaxSize(int maxSize) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("The maximum size of the cache must be positive");
+
+        List<Map.Entry<K, V>> evicted;
+
+        synchronized (this) {
+            mMaxSize = maxSize;
+            evicted = trim();
+        }
+
+        notifyEvicted(evicted);
+    }
+
+    /**
+     * Returns the maximum number of entries of this cache.
+     * @return the maximum size
+     */
+    public synchronized int getMaxSize() {
+        return mMaxSize;
+    }
+
+    /**
+     * Returns the current number of entries of this cache.
+     * @return the size of the cache
+     */
+    public synchronized int size() {
+        return mMap.size();
+    }
+
+    /**
+     * Returns the number of lookups that found a value.
+     * @return the hit count
+     */
+    public long getHitCount() {
+        return mHits.get();
+    }
+
+    /**
+     * Returns the number of lookups that didn't find a value.
+     * @return the miss count
+     */
+    public long getMissCount() {
+        return mMisses.get();
+    }
+
+    /**
+     * Returns the number of entries evicted because of the size limit.
+     * @return the eviction count
+     */
+    public long getEvictionCount() {
+        return mEvictions.get();
+    }
+
+    /**
+     * Removes the least recently used entries until the size of the map
+     * doesn't exceed the maximum size.
+     * <p>
+     * Must be called while holding the lock of this cache.
+     * @return the evicted entries, or null if nothing has been evicted
+     */
+    private List<Map.Entry<K, V>> trim() {
+        List<Map.Entry<K, V>> evicted = null;
+
+        Iterator<Map.Entry<K, V>> it = mMap.entrySet().iterator();
+
+        while (mMap.size() > mMaxSize && it.hasNext()) {
+            Map.Entry<K, V> eldest = it.next();
+            if (evicted == null)
+                evicted = new ArrayList<>();
+            evicted.add(new AbstractMap.SimpleImmutableEntry<>(eldest));
+            it.remove();
+            mEvictions.incrementAndGet();
+        }
+
+        return evicted;
+    }
+
+    /**
+     * Notifies the eviction listener about the given entries.
+     * <p>
+     * Must be called without holding the lock of this cache.
+     * @param evicted the evicted entries (might be null)
+     */
+    private void notifyEvicted(List<Map.Entry<K, V>> evicted) {
+        if (evicted == null || mEvictionListener == null)
+            return;
+
+        for (Map.Entry<K, V> entry : evicted)
+            mEvictionListener.onEvicted(entry.getKey(), entry.getValue());
+    }
+}
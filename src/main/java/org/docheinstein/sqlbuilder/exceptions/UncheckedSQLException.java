@@ -0,0 +1,22 @@
+package org.docheinstein.sqlbuilder.exceptions;
+
+import java.sql.SQLException;
+
+/**
+ * Exception that wraps an {@link SQLException} thrown where checked
+ * exceptions can't be propagated (e.g. while iterating over the tuples
+ * of a {@link java.util.stream.Stream}).
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedSQLException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
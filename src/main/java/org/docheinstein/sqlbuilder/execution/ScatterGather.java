@@ -0,0 +1,423 @@
+package org.docheinstein.sqlbuilder.execution;
+
+import org.docheinstein.sqlbuilder.commons.SqlBuilder;
+import org.docheinstein.sqlbuilder.commons.SqlBuilderInternalUtil;
+import org.docheinstein.sqlbuilder.commons.TupleIterator;
+import org.docheinstein.sqlbuilder.exceptions.UncheckedSQLException;
+import org.docheinstein.sqlbuilder.expressions.Operators;
+import org.docheinstein.sqlbuilder.models.Tuple;
+import org.docheinstein.sqlbuilder.statements.base.QueryStatement;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Executes the branches of a query in parallel over more data sources
+ * (e.g. the shards of a database) and merges their tuples client-side.
+ * <p>
+ * Each branch is executed over each data source on a connection of its own,
+ * then the tuples are gathered as they arrive: they're concatenated for
+ * UNION ALL and deduplicated (by the values of their column fields) for
+ * UNION. The merge is streamed, i.e. the tuples are handed to the caller
+ * while the branches are still running, with at most a bounded number of
+ * tuples waiting to be consumed.
+ * <p>
+ * e.g.
+ *
+ * <pre>
+ * ScatterGather shards = new ScatterGather(Arrays.asList(shard1, shard2));
+ *
+ * try (Stream&lt;PersonTuple&gt; persons = shards.stream(
+ *         PERSONS.select(PERSONS.getColumns()).where(AGE.gt(18)), PersonTuple.class)) {
+ *     persons.forEach(...);
+ * }
+ * </pre>
+ */
+public class ScatterGather {
+
+    /** Default maximum number of tuples waiting to be consumed. */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /** Marks the end of the tuples of a branch. */
+    private static final Object END = new Object();
+
+    /** The data sources the branches are executed over. */
+    private final List<DataSource> mDataSources;
+
+    /** The executor of the branches (null for the library's one). */
+    private final Executor mExecutor;
+
+    /** Maximum number of tuples waiting to be consumed. */
+    private int mQueueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+    /**
+     * Creates a scatter-gather executor over the given data sources which
+     * runs the branches on {@link SqlBuilder#getExecutor()}.
+     * @param dataSources the data sources
+     */
+    public ScatterGather(List<DataSource> dataSources) {
+        this(dataSources, null);
+    }
+
+    /**
+     * Creates a scatter-gather executor over the given data sources.
+     * @param dataSources the data sources
+     * @param executor the executor of the branches, or null for
+     *                 {@link SqlBuilder#getExecutor()}
+     */
+    public ScatterGather(List<DataSource> dataSources, Executor executor) {
+        if (dataSources == null || dataSources.isEmpty())
+            throw new IllegalArgumentException("At least a data source must be provided");
+
+        mDataSources = new ArrayList<>(dataSources);
+        mExecutor = executor;
+    }
+
+    /**
+     * Sets the maximum number of tuples waiting to be consumed: the branches
+     * are paused while this many tuples have not been consumed yet.
+     * <p>
+     * The default is {@link #DEFAULT_QUEUE_CAPACITY}.
+     * @param queueCapacity the capacity of the queue of the tuples
+     * @return this executor
+     */
+    public ScatterGather queueCapacity(int queueCapacity) {
+        if (queueCapacity <= 0)
+            throw new IllegalArgumentException("The queue capacity must be positive");
+
+        mQueueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Executes the given query over every data source and returns the
+     * concatenation of the tuples (i.e. UNION ALL).
+     * <p>
+     * A binary query is split into its branches whatever the static type
+     * it is passed as (see {@link #stream(Operators.BinaryQueryStatement, Class)}),
+     * since the whole query executed over each data source would not
+     * deduplicate the tuples of different data sources.
+     * @param query the query
+     * @param clazz the class of the tuples to retrieve
+     * @param <T> the type of the tuples
+     * @return a stream of the tuples, which must be closed
+     * @throws IllegalArgumentException if the query is a binary query
+     *                                  other than UNION and UNION ALL
+     */
+    public <T extends Tuple> Stream<T> stream(QueryStatement query, Class<T> clazz) {
+        if (query instanceof Operators.BinaryQueryStatement)
+            return stream((Operators.BinaryQueryStatement) query, clazz);
+
+        return stream(Collections.singletonList(query), false, clazz);
+    }
+
+    /**
+     * Executes the branches of the given UNION or UNION ALL query over
+     * every data source and merges their tuples.
+     * @param query the binary query
+     * @param clazz the class of the tuples to retrieve
+     * @param <T> the type of the tuples
+     * @return a stream of the tuples, which must be closed
+     * @throws IllegalArgumentException if the query is neither an UNION
+     *                                  nor an UNION ALL
+     */
+    public <T extends Tuple> Stream<T> stream(Operators.BinaryQueryStatement query,
+                                              Class<T> clazz) {
+        boolean distinct;
+
+        if (query instanceof Operators.UnionAll)
+            distinct = false;
+        else if (query instanceof Operators.Union)
+            distinct = true;
+        else
+            throw new IllegalArgumentException(
+                "Only UNION and UNION ALL queries can be executed with scatter-gather");
+
+        return stream(Arrays.asList(query.getFirstQuery(), query.getSecondQuery()),
+            distinct, clazz);
+    }
+
+    /**
+     * Executes each of the given branches over every data source and
+     * merges their tuples.
+     * <p>
+     * The tuples are handed in the order they arrive, thus the order of
+     * the tuples of different branches is not defined.
+     * Failures of the branches are thrown by the stream as
+     * {@link UncheckedSQLException}s (or as the original runtime exceptions
+     * and errors).
+     * @param branches the queries
+     * @param distinct true for remove the duplicate tuples (UNION), false
+     *                 for keep them (UNION ALL)
+     * @param clazz the class of the tuples to retrieve
+     * @param <T> the type of the tuples
+     * @return a stream of the tuples, which must be closed for stop the
+     *         branches if it is not entirely consumed
+     */
+    public <T extends Tuple> Stream<T> stream(List<? extends QueryStatement> branches,
+                                              boolean distinct, Class<T> clazz) {
+        Gatherer<T> gatherer = new Gatherer<>(
+            clazz, branches.size() * mDataSources.size(), distinct);
+
+        Executor executor = mExecutor != null ? mExecutor : SqlBuilder.getExecutor();
+
+        try {
+            for (QueryStatement branch : branches)
+                for (DataSource dataSource : mDataSources)
+                    executor.execute(() -> gatherer.scatter(branch, dataSource));
+        } catch (RuntimeException e) {
+            gatherer.close();
+            throw e;
+        }
+
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(gatherer,
+                Spliterator.NONNULL), false)
+            .onClose(gatherer::close);
+    }
+
+    /**
+     * Executes the given query over every data source and returns all the
+     * tuples (i.e. UNION ALL).
+     * <p>
+     * A binary query is split into its branches whatever the static type
+     * it is passed as (see {@link #fetch(Operators.BinaryQueryStatement, Class)}).
+     * @param query the query
+     * @param clazz the class of the tuples to retrieve
+     * @param <T> the type of the tuples
+     * @return the tuples
+     * @throws SQLException if a branch fails
+     * @throws IllegalArgumentException if the query is a binary query
+     *                                  other than UNION and UNION ALL
+     */
+    public <T extends Tuple> List<T> fetch(QueryStatement query, Class<T> clazz)
+        throws SQLException {
+        return collect(stream(query, clazz));
+    }
+
+    /**
+     * Executes the branches of the given UNION or UNION ALL query over
+     * every data source and returns the merged tuples.
+     * @param query the binary query
+     * @param clazz the class of the tuples to retrieve
+     * @param <T> the type of the tuples
+     * @return the tuples
+     * @throws SQLException if a branch fails
+     */
+    public <T extends Tuple> List<T> fetch(Operators.BinaryQueryStatement query, Class<T> clazz)
+        throws SQLException {
+        return collect(stream(query, clazz));
+    }
+
+    /**
+     * Executes each of the given branches over every data source and
+     * returns the merged tuples.
+     * @param branches the queries
+     * @param distinct true for remove the duplicate tuples (UNION), false
+     *                 for keep them (UNION ALL)
+     * @param clazz the class of the tuples to retrieve
+     * @param <T> the type of the tuples
+     * @return the tuples
+     * @throws SQLException if a branch fails
+     */
+    public <T extends Tuple> List<T> fetch(List<? extends QueryStatement> branches,
+                                           boolean distinct, Class<T> clazz)
+        throws SQLException {
+        return collect(stream(branches, distinct, clazz));
+    }
+
+    /**
+     * Collects the tuples of the given stream and closes it.
+     * @param stream the stream
+     * @param <T> the type of the tuples
+     * @return the tuples
+     * @throws SQLException if a branch fails
+     */
+    private static <T> List<T> collect(Stream<T> stream) throws SQLException {
+        try (Stream<T> s = stream) {
+            return s.collect(Collectors.toList());
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Gathers the tuples produced by the branches into a bounded queue
+     * and hands them to the consumer.
+     * @param <T> the type of the tuples
+     */
+    private class Gatherer<T extends Tuple> implements Iterator<T>, AutoCloseable {
+
+        /** The class of the tuples. */
+        private final Class<T> mClass;
+
+        /** The tuples waiting to be consumed and the ends of the branches. */
+        private final BlockingQueue<Object> mQueue;
+
+        /** The number of branches still running. */
+        private int mRunning;
+
+        /** The keys of the handed tuples, or null if duplicates are kept. */
+        private final Set<List<Object>> mSeen;
+
+        /** The column fields of the tuples, resolved for deduplication. */
+        private Field[] mFields;
+
+        /** The next tuple to hand. */
+        private T mNext;
+
+        /** Whether the consumer has closed this gatherer. */
+        private volatile boolean mClosed;
+
+        /**
+         * Creates a gatherer for the given number of branches.
+         * @param clazz the class of the tuples
+         * @param branches the number of branches
+         * @param distinct whether the duplicate tuples should be removed
+         */
+        Gatherer(Class<T> clazz, int branches, boolean distinct) {
+            mClass = clazz;
+            mQueue = new ArrayBlockingQueue<>(mQueueCapacity);
+            mRunning = branches;
+            mSeen = distinct ? new HashSet<>() : null;
+        }
+
+        /**
+         * Executes a branch over a connection of the given data source
+         * and puts its tuples into the queue.
+         * <p>
+         * This is run by the executor.
+         * @param branch the query
+         * @param dataSource the data source
+         */
+        void scatter(QueryStatement branch, DataSource dataSource) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (TupleIterator<T> tuples = branch.iterator(connection, mClass)) {
+                    while (!mClosed && tuples.hasNext())
+                        put(tuples.next());
+                } finally {
+                    SqlBuilder.clearStatementCache(connection);
+                }
+            } catch (SQLException e) {
+                put(new UncheckedSQLException(e));
+            } catch (Throwable t) {
+                // Anything else (e.g. an Error) must reach the consumer too,
+                // otherwise the branch would look like it ended successfully
+                put(t);
+            } finally {
+                put(END);
+            }
+        }
+
+        /**
+         * Puts an element into the queue, waiting for space unless
+         * this gatherer is closed.
+         * @param o the element
+         */
+        private void put(Object o) {
+            try {
+                while (!mClosed)
+                    if (mQueue.offer(o, 100, TimeUnit.MILLISECONDS))
+                        return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean hasNext() {
+            if (mNext != null)
+                return true;
+
+            try {
+                while (mRunning > 0) {
+                    Object o = mQueue.take();
+
+                    if (o == END) {
+                        mRunning--;
+                        continue;
+                    }
+
+                    if (o instanceof Throwable) {
+                        close();
+                        if (o instanceof Error)
+                            throw (Error) o;
+                        if (o instanceof RuntimeException)
+                            throw (RuntimeException) o;
+                        throw new RuntimeException((Throwable) o);
+                    }
+
+                    T tuple = (T) o;
+
+                    if (mSeen != null && !mSeen.add(getKey(tuple)))
+                        continue;
+
+                    mNext = tuple;
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                close();
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for the tuples");
+            }
+
+            return false;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            T next = mNext;
+            mNext = null;
+            return next;
+        }
+
+        /**
+         * Stops the branches still running and discards the tuples
+         * not consumed yet.
+         */
+        @Override
+        public void close() {
+            mClosed = true;
+            mRunning = 0;
+            mQueue.clear();
+        }
+
+        /**
+         * Returns the key used for deduplicate the given tuple, i.e.
+         * the values of its column fields.
+         * @param tuple the tuple
+         * @return the key of the tuple
+         */
+        private List<Object> getKey(T tuple) {
+            try {
+                if (mFields == null)
+                    mFields = SqlBuilderInternalUtil.getColumnFields(mClass)
+                        .values().toArray(new Field[0]);
+
+                Object[] key = new Object[mFields.length];
+                for (int i = 0; i < mFields.length; i++)
+                    key[i] = mFields[i].get(tuple);
+
+                return Arrays.asList(key);
+            } catch (IllegalAccessException | InstantiationException e) {
+                e.printStackTrace();
+                throw new RuntimeException("Error while trying to access column field of class " +
+                    mClass.getName() + ". (The class must have a default constructor)");
+            }
+        }
+    }
+}
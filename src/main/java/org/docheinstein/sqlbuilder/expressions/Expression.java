@@ -1,8 +1,12 @@
 package org.docheinstein.sqlbuilder.expressions;
 
 import org.docheinstein.sqlbuilder.SqlBindable;
+import org.docheinstein.sqlbuilder.commons.Fingerprint;
 import org.docheinstein.sqlbuilder.commons.SqlBindableFactory;
+import org.docheinstein.sqlbuilder.commons.SqlBuilderInternalUtil;
+import org.docheinstein.sqlbuilder.models.Column;
 import org.docheinstein.sqlbuilder.models.SqlBindableObject;
+import org.docheinstein.sqlbuilder.statements.shared.Select;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -70,6 +74,9 @@ public abstract class Expression implements SqlBindable {
      **/
     private boolean mSecondParentheses;
 
+    /** Whether the expression has been frozen (see {@link #freeze()}). */
+    private volatile boolean mFrozen;
+
     /**
      * Returns the string to used as operator between the two nested expressions.
      * <p>
@@ -124,6 +131,22 @@ public abstract class Expression implements SqlBindable {
         mFirstParentheses = firstParentheses;
         mSecondParentheses = secondParentheses;
     }
+
+    /**
+     * Returns the left operand of this expression.
+     * @return the first operand, or null if it doesn't exist
+     */
+    public SqlBindable getFirstOperand() {
+        return mBindable1;
+    }
+
+    /**
+     * Returns the right operand of this expression.
+     * @return the second operand, or null if the expression is unary
+     */
+    public SqlBindable getSecondOperand() {
+        return mBindable2;
+    }
     
     
 
@@ -254,6 +277,7 @@ public abstract class Expression implements SqlBindable {
      * @return this expression
      */
     public Expression enclosingParentheses(boolean yes) {
+        SqlBuilderInternalUtil.throwIfFrozen(mFrozen);
         mEnclosingParentheses = yes;
         return this;
     }
@@ -265,6 +289,7 @@ public abstract class Expression implements SqlBindable {
      * @return this expression
      */
     public Expression firstParentheses(boolean yes) {
+        SqlBuilderInternalUtil.throwIfFrozen(mFrozen);
         mFirstParentheses = yes;
         return this;
     }
@@ -276,105 +301,140 @@ public abstract class Expression implements SqlBindable {
      * @return this expression
      */
     public Expression secondParentheses(boolean yes) {
+        SqlBuilderInternalUtil.throwIfFrozen(mFrozen);
         mSecondParentheses = yes;
         return this;
     }
 
-    @Override
-    public List<Object> getBindableObjects() {
-        // Appends all the object from the first bindable to the objects
-        // of the second bindable
-//        SqlBuilderLogger.out("getBindableObjects on " + hashCode() + " [" + this.getClass().getSimpleName() + "]");
-        List<Object> objects = new ArrayList<>();
-//        SqlBuilderLogger.out(this.getClass().getSimpleName() + " Objects #1");
-        if (mBindable1 != null) {
-            List<Object> b1Objects = mBindable1.getBindableObjects();
-
-            if (b1Objects != null) {
-//                int i = 0;
-//                for (Object b : b1Objects) {
-//                    i++;
-//                    SqlBuilderLogger.out(this.getClass().getSimpleName() + " " + i + "° object #1: " + b);
-//                }
-                objects.addAll(b1Objects);
-            }
+    /**
+     * Freezes this expression: from now on it can't be modified anymore
+     * (its setters throw an {@link IllegalStateException}) and it can be
+     * shared across threads and statements.
+     * <p>
+     * The nested expressions and sub queries are frozen too.
+     * @return this expression
+     */
+    public Expression freeze() {
+        if (mFrozen)
+            return this;
 
-        }
-//        SqlBuilderLogger.out(this.getClass().getSimpleName() + " Objects #2");
+        mFrozen = true;
+        freezeOperand(mBindable1);
+        freezeOperand(mBindable2);
 
-        if (mBindable2 != null) {
-            List<Object> b2Objects = mBindable2.getBindableObjects();
-
-            if (b2Objects != null) {
-//                int i = 0;
-//                for (Object b : b2Objects) {
-//                    i++;
-//                    SqlBuilderLogger.out(this.getClass().getSimpleName() + " " + i + "° object #2: " + b);
-//                }
-                objects.addAll(b2Objects);
-            }
-        }
+        return this;
+    }
 
-//        SqlBuilderLogger.out(this.getClass().getSimpleName() + " END");
+    /**
+     * Returns whether this expression has been frozen.
+     * @return whether this expression is frozen
+     * @see #freeze()
+     */
+    public boolean isFrozen() {
+        return mFrozen;
+    }
 
+    /**
+     * Freezes the given operand, if it is an expression or a sub query.
+     * @param operand the operand, might be null
+     */
+    private static void freezeOperand(SqlBindable operand) {
+        if (operand instanceof Expression)
+            ((Expression) operand).freeze();
+        else if (operand instanceof Select)
+            ((Select) operand).freeze();
+    }
 
+    @Override
+    public List<Object> getBindableObjects() {
+        List<Object> objects = new ArrayList<>();
+        collectBindableObjects(objects::add);
         return objects;
     }
 
+    @Override
+    public <E extends Exception> void collectBindableObjects(BindableSink<E> sink) throws E {
+        // The objects of the first bindable come before the objects
+        // of the second bindable
+        if (mBindable1 != null)
+            collectOperandBindableObjects(sink, mBindable1, mBindable2);
+        if (mBindable2 != null)
+            collectOperandBindableObjects(sink, mBindable2, mBindable1);
+    }
+
+    /**
+     * Passes the objects of an operand of this expression to the given sink.
+     * <p>
+     * If the operand is a single object and the other operand is a column,
+     * the object is passed together with the column.
+     * @param sink the sink
+     * @param operand the operand
+     * @param other the other operand, might be null
+     * @param <E> the type of the exception the sink might throw
+     * @throws E if the sink fails to handle an object
+     */
+    private static <E extends Exception> void collectOperandBindableObjects(
+        BindableSink<E> sink, SqlBindable operand, SqlBindable other) throws E {
+        if (operand instanceof SqlBindableObject && other instanceof Column)
+            sink.accept(((SqlBindableObject) operand).getObject(), (Column<?>) other);
+        else
+            operand.collectBindableObjects(sink);
+    }
+
     @Override
     public String toSql() {
-        String sqlPattern = buildSqlPattern();
+        StringBuilder sql = new StringBuilder();
+        appendSql(sql);
+        return sql.toString();
+    }
+
+    @Override
+    public void appendSql(StringBuilder sql) {
+        if (mEnclosingParentheses)
+            sql.append('(');
 
         // <A> <OPERATOR> <B>
-        if (mBindable1 != null && mBindable2 != null)
-            return String.format(
-                sqlPattern,
-                mBindable1.toSql(),
-                mOperatorKeyword,
-                mBindable2.toSql()
-            );
-
-        // <OPERATOR>
-        if (mBindable1 == null && mBindable2 == null)
-            return String.format(
-                sqlPattern,
-                mOperatorKeyword
-            );
+        // <A> <OPERATOR>
+        if (mBindable1 != null) {
+            appendOperand(sql, mBindable1, mFirstParentheses);
+            sql.append(' ');
+        }
+
+        sql.append(mOperatorKeyword);
 
         // <OPERATOR> <B>
-        if (mBindable1 == null)
-            return String.format(
-                sqlPattern,
-                mOperatorKeyword,
-                mBindable2.toSql()
-            );
+        if (mBindable2 != null) {
+            sql.append(' ');
+            appendOperand(sql, mBindable2, mSecondParentheses);
+        }
 
-        // <A> <OPERATOR>
-        // if (mBindable2 == null) always true
-            return String.format(
-                sqlPattern,
-                mBindable1.toSql(),
-                mOperatorKeyword
-            );
+        if (mEnclosingParentheses)
+            sql.append(')');
     }
 
-    private String buildSqlPattern() {
-        String b1 = mFirstParentheses ? "(%s)" : "%s";
-        String b2 = mSecondParentheses ? "(%s)" : "%s";
-        String internalPattern;
-
-        if (mBindable1 != null && mBindable2 != null) {
-            internalPattern = b1 + " %s " + b2;
-        }
-        else if (mBindable1 != null) {
-            internalPattern = b1 + " %s";
-        }
-        else
-            internalPattern = "%s "  + b2;
+    @Override
+    public void appendFingerprint(Fingerprint fingerprint) {
+        fingerprint
+            .append(mOperatorKeyword)
+            .append(mEnclosingParentheses)
+            .append(mFirstParentheses)
+            .append(mSecondParentheses)
+            .append(mBindable1)
+            .append(mBindable2);
+    }
 
-        return
-            mEnclosingParentheses ?
-                "(" + internalPattern + ")" :
-                internalPattern;
+    /**
+     * Appends the sql string of an operand of this expression to the given builder.
+     * @param sql the builder
+     * @param operand the operand
+     * @param parentheses whether the operand should be enclosed in parentheses
+     */
+    private static void appendOperand(StringBuilder sql, SqlBindable operand,
+                                      boolean parentheses) {
+        if (parentheses)
+            sql.append('(');
+        operand.appendSql(sql);
+        if (parentheses)
+            sql.append(')');
     }
 }
@@ -469,9 +469,13 @@ public class Operators {
     public static abstract class BinaryQueryStatement
         extends Expression implements QueryStatement {
         private final List<Column> mColumns;
+        private final Select mQuery1;
+        private final Select mQuery2;
 
         public BinaryQueryStatement(Select s1, Select s2) {
             super(s1, s2, false, true, true);
+            mQuery1 = s1;
+            mQuery2 = s2;
 
             if (s1.getColumns().size() != s2.getColumns().size())
                 throw new InvalidParameterException(
@@ -487,6 +491,22 @@ public class Operators {
         public List<Column> getColumns() {
             return mColumns;
         }
+
+        /**
+         * Returns the left query of this binary query.
+         * @return the first query
+         */
+        public Select getFirstQuery() {
+            return mQuery1;
+        }
+
+        /**
+         * Returns the right query of this binary query.
+         * @return the second query
+         */
+        public Select getSecondQuery() {
+            return mQuery2;
+        }
     }
 
     public static class Union extends BinaryQueryStatement {
@@ -498,6 +518,15 @@ public class Operators {
         }
     }
 
+    public static class UnionAll extends BinaryQueryStatement {
+        public UnionAll(Select s1, Select s2) { super(s1, s2); }
+
+        @Override
+        protected String getOperatorKeyword() {
+            return "UNION ALL";
+        }
+    }
+
     public static class Except extends BinaryQueryStatement {
         public Except(Select s1, Select s2) {
             super(s1, s2);
@@ -2,6 +2,7 @@ package org.docheinstein.sqlbuilder.functions;
 
 import org.docheinstein.sqlbuilder.SqlBindable;
 import org.docheinstein.sqlbuilder.Sqlable;
+import org.docheinstein.sqlbuilder.commons.Fingerprint;
 import org.docheinstein.sqlbuilder.commons.SqlBindableFactory;
 import org.docheinstein.sqlbuilder.commons.SqlBuilderInternalUtil;
 
@@ -43,28 +44,36 @@ public abstract class Function implements SqlBindable {
     @Override
     public List<Object> getBindableObjects() {
         List<Object> bindables = new ArrayList<>();
-
-        for (SqlBindable param  : mParameters) {
-            List<Object> paramBindables = param.getBindableObjects();
-            if (paramBindables != null)
-                bindables.addAll(paramBindables);
-        }
-
+        collectBindableObjects(bindables::add);
         return bindables;
     }
 
+    @Override
+    public <E extends Exception> void collectBindableObjects(BindableSink<E> sink) throws E {
+        for (SqlBindable param : mParameters)
+            param.collectBindableObjects(sink);
+    }
+
     @Override
     public String toSql() {
         StringBuilder sb = new StringBuilder();
-        sb.append(" ");
-        sb.append(mFunctionName);
-        sb.append("(");
-        sb.append(SqlBuilderInternalUtil.getAsCommaList(
-            mParameters,
-            Sqlable::toSql)
-        );
-        sb.append(") ");
-
+        appendSql(sb);
         return sb.toString();
     }
+
+    @Override
+    public void appendSql(StringBuilder sql) {
+        sql.append(" ");
+        sql.append(mFunctionName);
+        sql.append("(");
+        SqlBuilderInternalUtil.appendCommaList(sql, mParameters, Sqlable::appendSql);
+        sql.append(") ");
+    }
+
+    @Override
+    public void appendFingerprint(Fingerprint fingerprint) {
+        fingerprint.append(mFunctionName).append(mParameters.size());
+        for (SqlBindable param : mParameters)
+            fingerprint.append(param);
+    }
 }
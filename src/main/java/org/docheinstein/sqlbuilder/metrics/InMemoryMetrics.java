@@ -0,0 +1,267 @@
+package org.docheinstein.sqlbuilder.metrics;
+
+import org.docheinstein.sqlbuilder.commons.SqlBuilderLogger;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics which keep the measurements in memory: a {@link LatencyHistogram}
+ * for each phase of each statement, the number of mapped rows of each
+ * statement and the hits and misses of each cache.
+ * <p>
+ * The recorded metrics can be read via {@link #snapshot()} or published to
+ * the {@link MetricsListener}s, either on demand via {@link #publish()} or
+ * periodically via {@link #publishEvery(long, TimeUnit)}.
+ * <p>
+ * e.g.
+ *
+ * <pre>
+ * InMemoryMetrics metrics = new InMemoryMetrics();
+ * metrics.addListener(snapshot -&gt; System.out.println(snapshot));
+ * metrics.publishEvery(1, TimeUnit.MINUTES);
+ *
+ * SqlBuilder.setMetrics(metrics);
+ * </pre>
+ */
+public class InMemoryMetrics implements SqlBuilderMetrics {
+
+    /** Default maximum number of statements tracked separately. */
+    public static final int DEFAULT_MAX_STATEMENTS = 1000;
+
+    /** Fingerprint of the statements which exceed the maximum number of statements. */
+    public static final long OTHER_STATEMENTS = -1;
+
+    /**
+     * The measurements of a statement.
+     */
+    private static class StatementRecorder {
+
+        /** The sql string of the statement, if known. */
+        private volatile String mSql;
+
+        /** The latencies of each phase. */
+        private final LatencyHistogram[] mLatencies =
+            new LatencyHistogram[Phase.values().length];
+
+        /** The number of mapped rows. */
+        private final LongAdder mRows = new LongAdder();
+
+        StatementRecorder(String sql) {
+            mSql = sql;
+            for (int i = 0; i < mLatencies.length; i++)
+                mLatencies[i] = new LatencyHistogram();
+        }
+
+        /**
+         * Returns a snapshot of the measurements of the statement.
+         * @return the metrics of the statement
+         */
+        MetricsSnapshot.StatementMetrics snapshot() {
+            Map<Phase, LatencyHistogram> latencies = new EnumMap<>(Phase.class);
+
+            for (Phase phase : Phase.values())
+                if (mLatencies[phase.ordinal()].getCount() > 0)
+                    latencies.put(phase, mLatencies[phase.ordinal()].copy());
+
+            return new MetricsSnapshot.StatementMetrics(mSql, latencies, mRows.sum());
+        }
+    }
+
+    /** The maximum number of statements tracked separately. */
+    private final int mMaxStatements;
+
+    /** The measurements of each statement, by fingerprint. */
+    private final Map<Long, StatementRecorder> mStatements = new ConcurrentHashMap<>();
+
+    /** The hits of each cache. */
+    private final LongAdder[] mCacheHits = new LongAdder[Cache.values().length];
+
+    /** The misses of each cache. */
+    private final LongAdder[] mCacheMisses = new LongAdder[Cache.values().length];
+
+    /** The listeners of the published snapshots. */
+    private final List<MetricsListener> mListeners = new CopyOnWriteArrayList<>();
+
+    /** The scheduler of the periodic publications, if any. */
+    private ScheduledExecutorService mPublisher;
+
+    /**
+     * Creates metrics which track up to {@link #DEFAULT_MAX_STATEMENTS} statements.
+     */
+    public InMemoryMetrics() {
+        this(DEFAULT_MAX_STATEMENTS);
+    }
+
+    /**
+     * Creates metrics which track up to the given number of statements.
+     * <p>
+     * The measurements of the statements which exceed the limit are
+     * aggregated under {@link #OTHER_STATEMENTS}, so that statements built
+     * with always different shapes don't make the metrics grow
+     * indefinitely.
+     * @param maxStatements the maximum number of statements
+     */
+    public InMemoryMetrics(int maxStatements) {
+        if (maxStatements <= 0)
+            throw new IllegalArgumentException("The maximum number of statements must be positive");
+
+        mMaxStatements = maxStatements;
+
+        for (int i = 0; i < mCacheHits.length; i++) {
+            mCacheHits[i] = new LongAdder();
+            mCacheMisses[i] = new LongAdder();
+        }
+    }
+
+    // ---- RECORDING ----
+
+    @Override
+    public void recordStatement(long fingerprint, String sql) {
+        StatementRecorder recorder = mStatements.get(fingerprint);
+
+        if (recorder != null)
+            recorder.mSql = sql;
+        else if (mStatements.size() < mMaxStatements)
+            mStatements.putIfAbsent(fingerprint, new StatementRecorder(sql));
+    }
+
+    @Override
+    public void recordLatency(long fingerprint, Phase phase, long nanos) {
+        getRecorder(fingerprint).mLatencies[phase.ordinal()].record(nanos);
+    }
+
+    @Override
+    public void recordRows(long fingerprint, long rows) {
+        getRecorder(fingerprint).mRows.add(rows);
+    }
+
+    @Override
+    public void recordCacheLookup(Cache cache, boolean hit) {
+        (hit ? mCacheHits : mCacheMisses)[cache.ordinal()].increment();
+    }
+
+    /**
+     * Returns the recorder of the given statement, creating it if needed.
+     * @param fingerprint the fingerprint of the statement
+     * @return the recorder
+     */
+    private StatementRecorder getRecorder(long fingerprint) {
+        StatementRecorder recorder = mStatements.get(fingerprint);
+
+        if (recorder != null)
+            return recorder;
+
+        // The limit is approximate under contention, which is fine
+        long key = mStatements.size() < mMaxStatements ? fingerprint : OTHER_STATEMENTS;
+
+        return mStatements.computeIfAbsent(key, k -> new StatementRecorder(
+            k == OTHER_STATEMENTS ? "<other>" :
+            k == UNKNOWN_STATEMENT ? "<unknown>" : null));
+    }
+
+    // ---- READING ----
+
+    /**
+     * Returns a snapshot of the metrics recorded so far.
+     * @return the snapshot
+     */
+    public MetricsSnapshot snapshot() {
+        Map<Long, MetricsSnapshot.StatementMetrics> statements = new LinkedHashMap<>();
+        mStatements.forEach((statement, recorder) -> statements.put(statement, recorder.snapshot()));
+
+        EnumMap<Cache, MetricsSnapshot.CacheMetrics> caches = new EnumMap<>(Cache.class);
+        for (Cache cache : Cache.values())
+            caches.put(cache, new MetricsSnapshot.CacheMetrics(
+                mCacheHits[cache.ordinal()].sum(), mCacheMisses[cache.ordinal()].sum()));
+
+        return new MetricsSnapshot(statements, caches);
+    }
+
+    /**
+     * Discards every measurement recorded so far.
+     */
+    public void reset() {
+        mStatements.clear();
+
+        for (int i = 0; i < mCacheHits.length; i++) {
+            mCacheHits[i].reset();
+            mCacheMisses[i].reset();
+        }
+    }
+
+    // ---- PUBLISHING ----
+
+    /**
+     * Adds a listener of the published snapshots.
+     * @param listener the listener
+     */
+    public void addListener(MetricsListener listener) {
+        mListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener of the published snapshots.
+     * @param listener the listener
+     */
+    public void removeListener(MetricsListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Takes a snapshot of the metrics and delivers it to the listeners.
+     * @return the published snapshot
+     */
+    public MetricsSnapshot publish() {
+        MetricsSnapshot snapshot = snapshot();
+
+        for (MetricsListener listener : mListeners) {
+            try {
+                listener.onMetrics(snapshot);
+            } catch (RuntimeException e) {
+                SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+                    () -> "Metrics listener failed: " + e.getMessage());
+            }
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Publishes a snapshot of the metrics periodically, on a daemon thread,
+     * replacing the previous period if any.
+     * @param period the period between two publications
+     * @param unit the unit of the period
+     * @return these metrics
+     */
+    public synchronized InMemoryMetrics publishEvery(long period, TimeUnit unit) {
+        stopPublishing();
+
+        mPublisher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sqlbuilder-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        mPublisher.scheduleAtFixedRate(this::publish, period, period, unit);
+
+        return this;
+    }
+
+    /**
+     * Stops the periodic publication of the metrics, if any.
+     */
+    public synchronized void stopPublishing() {
+        if (mPublisher != null) {
+            mPublisher.shutdownNow();
+            mPublisher = null;
+        }
+    }
+}
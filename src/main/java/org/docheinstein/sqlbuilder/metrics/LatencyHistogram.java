@@ -0,0 +1,176 @@
+package org.docheinstein.sqlbuilder.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread safe histogram of latencies, in nanoseconds.
+ * <p>
+ * As an HdrHistogram does, the values are counted in buckets whose width
+ * grows with the magnitude of the values: each power of two is split into
+ * {@link #SUB_BUCKET_COUNT} buckets, thus the percentiles have a relative
+ * error lower than 1 / {@link #SUB_BUCKET_COUNT} over the whole range of
+ * a long, while the histogram takes a fixed amount of memory.
+ */
+public class LatencyHistogram {
+
+    /** Number of bits of the index of a bucket within a power of two. */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /** Number of buckets each power of two is split into. */
+    public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** Number of buckets of the histogram. */
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT * (64 - SUB_BUCKET_BITS);
+
+    /** The number of values of each bucket. */
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKET_COUNT);
+
+    /** The number of recorded values. */
+    private final LongAdder mCount = new LongAdder();
+
+    /** The sum of the recorded values. */
+    private final LongAdder mSum = new LongAdder();
+
+    /** The maximum recorded value. */
+    private final AtomicLong mMax = new AtomicLong();
+
+    /**
+     * Records a value.
+     * @param nanos the value, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+
+        mBuckets.incrementAndGet(getBucketIndex(value));
+        mCount.increment();
+        mSum.add(value);
+
+        long max;
+        while (value > (max = mMax.get()))
+            if (mMax.compareAndSet(max, value))
+                break;
+    }
+
+    /**
+     * Returns the number of recorded values.
+     * @return the count
+     */
+    public long getCount() {
+        return mCount.sum();
+    }
+
+    /**
+     * Returns the sum of the recorded values.
+     * @return the total, in nanoseconds
+     */
+    public long getTotal() {
+        return mSum.sum();
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     * @return the mean, in nanoseconds, or 0 if no value has been recorded
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getTotal() / count;
+    }
+
+    /**
+     * Returns the maximum recorded value.
+     * @return the maximum, in nanoseconds
+     */
+    public long getMax() {
+        return mMax.get();
+    }
+
+    /**
+     * Returns the value below which the given percentage of the recorded
+     * values falls, i.e. the upper bound of the bucket that contains it.
+     * @param percentile the percentile, between 0 and 100
+     * @return the percentile, in nanoseconds, or 0 if no value has been recorded
+     */
+    public long getPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("The percentile must be between 0 and 100");
+
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            count += mBuckets.get(i);
+
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += mBuckets.get(i);
+            if (seen >= rank)
+                return Math.min(getBucketUpperBound(i), getMax());
+        }
+
+        return getMax();
+    }
+
+    /**
+     * Returns a copy of this histogram.
+     * @return the copy
+     */
+    public LatencyHistogram copy() {
+        LatencyHistogram copy = new LatencyHistogram();
+
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            copy.mBuckets.set(i, mBuckets.get(i));
+
+        copy.mCount.add(mCount.sum());
+        copy.mSum.add(mSum.sum());
+        copy.mMax.set(mMax.get());
+
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() +
+            " mean=" + (long) getMean() + "ns" +
+            " p50=" + getPercentile(50) + "ns" +
+            " p99=" + getPercentile(99) + "ns" +
+            " max=" + getMax() + "ns";
+    }
+
+    /**
+     * Returns the index of the bucket of the given value.
+     * @param value the value, not negative
+     * @return the index of the bucket
+     */
+    private static int getBucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT)
+            return (int) value;
+
+        // The position of the highest bit selects the power of two,
+        // the SUB_BUCKET_BITS bits after it select the bucket within it
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+
+        return SUB_BUCKET_COUNT * (shift + 1) + subBucket;
+    }
+
+    /**
+     * Returns the highest value counted by the given bucket.
+     * @param index the index of the bucket
+     * @return the upper bound of the bucket
+     */
+    private static long getBucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT)
+            return index;
+
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long subBucket = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
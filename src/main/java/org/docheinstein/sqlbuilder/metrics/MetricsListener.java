@@ -0,0 +1,14 @@
+package org.docheinstein.sqlbuilder.metrics;
+
+/**
+ * Listener of the snapshots published by {@link InMemoryMetrics}
+ * (e.g. for export them to a monitoring system).
+ */
+public interface MetricsListener {
+
+    /**
+     * Called when a snapshot of the metrics is published.
+     * @param snapshot the snapshot
+     */
+    void onMetrics(MetricsSnapshot snapshot);
+}
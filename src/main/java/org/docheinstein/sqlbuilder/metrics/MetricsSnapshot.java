@@ -0,0 +1,201 @@
+package org.docheinstein.sqlbuilder.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the metrics recorded by {@link InMemoryMetrics}.
+ */
+public class MetricsSnapshot {
+
+    /**
+     * The metrics of a statement.
+     */
+    public static class StatementMetrics {
+
+        /** The sql string of the statement, if known. */
+        private final String mSql;
+
+        /** The latencies of each phase. */
+        private final Map<SqlBuilderMetrics.Phase, LatencyHistogram> mLatencies;
+
+        /** The number of mapped rows. */
+        private final long mRows;
+
+        /**
+         * Creates the metrics of a statement.
+         * @param sql the sql string of the statement, might be null
+         * @param latencies the latencies of each phase
+         * @param rows the number of mapped rows
+         */
+        StatementMetrics(String sql,
+                         Map<SqlBuilderMetrics.Phase, LatencyHistogram> latencies, long rows) {
+            mSql = sql;
+            mLatencies = Collections.unmodifiableMap(latencies);
+            mRows = rows;
+        }
+
+        /**
+         * Returns the sql string of the statement.
+         * @return the sql string, or null if the statement has not been
+         *         prepared since the metrics have been set
+         */
+        public String getSql() {
+            return mSql;
+        }
+
+        /**
+         * Returns the latencies of the given phase.
+         * @param phase the phase
+         * @return the histogram of the latencies, or null if the phase
+         *         has never been recorded for the statement
+         */
+        public LatencyHistogram getLatencies(SqlBuilderMetrics.Phase phase) {
+            return mLatencies.get(phase);
+        }
+
+        /**
+         * Returns the latencies of every recorded phase.
+         * @return the histograms of the latencies by phase
+         */
+        public Map<SqlBuilderMetrics.Phase, LatencyHistogram> getLatencies() {
+            return mLatencies;
+        }
+
+        /**
+         * Returns the number of rows mapped by the executions of the statement.
+         * @return the number of mapped rows
+         */
+        public long getRows() {
+            return mRows;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder str = new StringBuilder("rows=").append(mRows);
+            mLatencies.forEach((phase, histogram) ->
+                str.append(" | ").append(phase).append(": ").append(histogram));
+            return str.toString();
+        }
+    }
+
+    /**
+     * The lookups of a cache.
+     */
+    public static class CacheMetrics {
+
+        /** Number of lookups which found the entry. */
+        private final long mHits;
+
+        /** Number of lookups which didn't find the entry. */
+        private final long mMisses;
+
+        /**
+         * Creates the metrics of a cache.
+         * @param hits the number of hits
+         * @param misses the number of misses
+         */
+        CacheMetrics(long hits, long misses) {
+            mHits = hits;
+            mMisses = misses;
+        }
+
+        /**
+         * Returns the number of lookups which found the entry.
+         * @return the hit count
+         */
+        public long getHits() {
+            return mHits;
+        }
+
+        /**
+         * Returns the number of lookups which didn't find the entry.
+         * @return the miss count
+         */
+        public long getMisses() {
+            return mMisses;
+        }
+
+        /**
+         * Returns the ratio between the hits and the lookups.
+         * @return the hit ratio, between 0 and 1, or 0 if there were no lookups
+         */
+        public double getHitRatio() {
+            long lookups = mHits + mMisses;
+            return lookups == 0 ? 0 : (double) mHits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + mHits + " misses=" + mMisses +
+                " ratio=" + String.format("%.3f", getHitRatio());
+        }
+    }
+
+    /** The metrics of each statement, by fingerprint. */
+    private final Map<Long, StatementMetrics> mStatements;
+
+    /** The metrics of each cache. */
+    private final Map<SqlBuilderMetrics.Cache, CacheMetrics> mCaches;
+
+    /** The instant the snapshot has been taken at, in milliseconds since the epoch. */
+    private final long mTimestamp;
+
+    /**
+     * Creates a snapshot.
+     * @param statements the metrics of each statement
+     * @param caches the metrics of each cache
+     */
+    MetricsSnapshot(Map<Long, StatementMetrics> statements,
+                    EnumMap<SqlBuilderMetrics.Cache, CacheMetrics> caches) {
+        mStatements = Collections.unmodifiableMap(statements);
+        mCaches = Collections.unmodifiableMap(caches);
+        mTimestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the metrics of each statement.
+     * @return the metrics by statement fingerprint
+     */
+    public Map<Long, StatementMetrics> getStatements() {
+        return mStatements;
+    }
+
+    /**
+     * Returns the metrics of the given statement.
+     * @param fingerprint the fingerprint of the statement
+     * @return the metrics of the statement, or null if it has never been recorded
+     */
+    public StatementMetrics getStatement(long fingerprint) {
+        return mStatements.get(fingerprint);
+    }
+
+    /**
+     * Returns the metrics of the given cache.
+     * @param cache the cache
+     * @return the lookups of the cache
+     */
+    public CacheMetrics getCache(SqlBuilderMetrics.Cache cache) {
+        return mCaches.get(cache);
+    }
+
+    /**
+     * Returns the instant the snapshot has been taken at.
+     * @return the timestamp, in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return mTimestamp;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder();
+        mCaches.forEach((cache, metrics) ->
+            str.append(cache).append(" cache: ").append(metrics).append('\n'));
+        mStatements.forEach((fingerprint, metrics) ->
+            str.append(metrics.getSql() != null ? metrics.getSql() : Long.toHexString(fingerprint))
+                .append('\n').append("    ").append(metrics).append('\n'));
+        return str.toString();
+    }
+}
@@ -0,0 +1,113 @@
+package org.docheinstein.sqlbuilder.metrics;
+
+/**
+ * Receives the measurements of the executions of the statements performed
+ * by the library.
+ * <p>
+ * The statements are identified by their fingerprint (see
+ * {@link org.docheinstein.sqlbuilder.statements.base.Statement#fingerprint()}),
+ * whose sql string is reported once, when the statement is prepared;
+ * each execution is split into phases, whose latencies are recorded separately:
+ * the rendering of the sql string, the preparation of the statement, the
+ * binding of its values, its execution and the mapping of its rows.
+ * <p>
+ * The implementation is set via
+ * {@link org.docheinstein.sqlbuilder.commons.SqlBuilder#setMetrics(SqlBuilderMetrics)};
+ * the default one ({@link #NONE}) is disabled, in which case the library
+ * doesn't even measure the phases.
+ * The methods are invoked by the threads that execute the statements,
+ * thus they must be thread safe and fast.
+ *
+ * @see InMemoryMetrics
+ */
+public interface SqlBuilderMetrics {
+
+    /**
+     * Phase of the execution of a statement.
+     */
+    enum Phase {
+        /** Rendering of the sql string of the statement (toSql). */
+        Render,
+        /** Creation of the {@link java.sql.PreparedStatement} (cache misses only). */
+        Prepare,
+        /** Binding of the values to the parameters of the statement. */
+        Bind,
+        /** Execution of the statement by the database. */
+        Execute,
+        /** Mapping of the rows of the result set to tuples. */
+        Map
+    }
+
+    /**
+     * Cache used by the library.
+     */
+    enum Cache {
+        /** The cache of the {@link java.sql.PreparedStatement}s. */
+        Statement,
+        /** The cache of the mappers of the tuple classes. */
+        TupleMapper,
+        /** The cache of the query results. */
+        QueryResult
+    }
+
+    /** Fingerprint of the statements which have not been prepared by the library. */
+    long UNKNOWN_STATEMENT = 0;
+
+    /** Metrics which discard every measurement. */
+    SqlBuilderMetrics NONE = new SqlBuilderMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void recordLatency(long fingerprint, Phase phase, long nanos) {}
+
+        @Override
+        public void recordRows(long fingerprint, long rows) {}
+
+        @Override
+        public void recordCacheLookup(Cache cache, boolean hit) {}
+    };
+
+    /**
+     * Returns whether the measurements should be recorded.
+     * <p>
+     * If false, the library doesn't measure the phases at all.
+     * @return whether these metrics are enabled
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Records the sql string of a statement, which has just been prepared.
+     * <p>
+     * The default implementation does nothing.
+     * @param fingerprint the fingerprint of the statement
+     * @param sql the sql string of the statement
+     */
+    default void recordStatement(long fingerprint, String sql) {}
+
+    /**
+     * Records the latency of a phase of the execution of a statement.
+     * @param fingerprint the fingerprint of the statement
+     * @param phase the phase
+     * @param nanos the latency, in nanoseconds
+     */
+    void recordLatency(long fingerprint, Phase phase, long nanos);
+
+    /**
+     * Records the number of rows mapped by an execution of a query.
+     * @param fingerprint the fingerprint of the statement
+     * @param rows the number of rows
+     */
+    void recordRows(long fingerprint, long rows);
+
+    /**
+     * Records a lookup of a cache.
+     * @param cache the cache
+     * @param hit whether the cache contained the entry
+     */
+    void recordCacheLookup(Cache cache, boolean hit);
+}
@@ -2,6 +2,7 @@ package org.docheinstein.sqlbuilder.models;
 
 import org.docheinstein.sqlbuilder.SqlBindable;
 import org.docheinstein.sqlbuilder.Sqlable;
+import org.docheinstein.sqlbuilder.commons.Fingerprint;
 import org.docheinstein.sqlbuilder.expressions.Operators;
 import org.docheinstein.sqlbuilder.expressions.Expression;
 import org.docheinstein.sqlbuilder.statements.shared.Select;
@@ -17,13 +18,24 @@ import java.util.List;
 public class Column<T> implements SqlBindable {
 
     /** Name of the table this column belongs to. */
-    private String mTable;
+    private final String mTable;
 
     /** Column name. */
-    private String mColumnName;
+    private final String mColumnName;
 
     /** Column type. */
-    private Type<T> mColumnType;
+    private final Type<T> mColumnType;
+
+    /** TABLE.COLUMN string, built once since table and name never change. */
+    private final String mTableDotName;
+
+    /**
+     * The DDL string of this column, built lazily and discarded whenever
+     * a DDL flag changes (null if not built yet).
+     * <p>
+     * Concurrent builds are harmless since they produce equal strings.
+     */
+    private String mColumnDefinition;
 
     /** Whether this column has AUTO_INCREMENT flag. */
     private boolean mAutoIncrement = false;
@@ -61,6 +73,7 @@ public class Column<T> implements SqlBindable {
         mTable = tableName;
         mColumnName = name;
         mColumnType = type;
+        mTableDotName = tableName != null ? tableName + "." + name : name;
     }
 
     // -------------------------------------------------------------------------
@@ -74,6 +87,7 @@ public class Column<T> implements SqlBindable {
      */
     public Column<T> primaryKey(boolean primaryKey) {
         mPrimaryKey = primaryKey;
+        mColumnDefinition = null;
         return this;
     }
 
@@ -92,6 +106,7 @@ public class Column<T> implements SqlBindable {
      */
     public Column<T> notNull(boolean notNull) {
         mNotNull = notNull;
+        mColumnDefinition = null;
         return this;
     }
 
@@ -118,6 +133,7 @@ public class Column<T> implements SqlBindable {
      */
     public Column<T> autoIncrement(boolean autoIncrement) {
         mAutoIncrement = autoIncrement;
+        mColumnDefinition = null;
         return this;
     }
 
@@ -129,6 +145,7 @@ public class Column<T> implements SqlBindable {
     // This is preferred over the generic defaultValueObject() for have type control
     public Column<T> defaultValue(T value) {
         mDefault = value;
+        mColumnDefinition = null;
         return this;
     }
 
@@ -140,6 +157,7 @@ public class Column<T> implements SqlBindable {
      */
     public Column<T> defaultValueObject(Object value) {
         mDefault = value;
+        mColumnDefinition = null;
         return this;
     }
 
@@ -216,11 +234,7 @@ public class Column<T> implements SqlBindable {
      * @return the table name, a dot and the column name
      */
     public String getTableDotName() {
-        String tableNameDotColumnName = "";
-        if (mTable != null)
-            tableNameDotColumnName += mTable + ".";
-        tableNameDotColumnName += mColumnName;
-        return tableNameDotColumnName;
+        return mTableDotName;
     }
 
     /**
@@ -238,7 +252,11 @@ public class Column<T> implements SqlBindable {
      * @return the definition of this column
      */
     public String getColumnDefinition() {
-        String colStr = mColumnName + " " + mColumnType.toSql();
+        String colStr = mColumnDefinition;
+        if (colStr != null)
+            return colStr;
+
+        colStr = mColumnName + " " + mColumnType.toSql();
         if (isPrimaryKey())
             colStr += " PRIMARY KEY";
         if (getNotNull())
@@ -248,6 +266,8 @@ public class Column<T> implements SqlBindable {
         if (hasDefaultValue())
             colStr += " DEFAULT ?";
         // Inline FK not implemented since MYSQL doesn't support it
+
+        mColumnDefinition = colStr;
         return colStr;
     }
 
@@ -257,6 +277,16 @@ public class Column<T> implements SqlBindable {
         return getTableDotName();
     }
 
+    @Override
+    public void appendSql(StringBuilder sql) {
+        sql.append(mTableDotName);
+    }
+
+    @Override
+    public void appendFingerprint(Fingerprint fingerprint) {
+        fingerprint.append(mTable).append(mColumnName);
+    }
+
 
     public List<Object> getDDLBindableObjects() {
         List<Object> objs = null;
@@ -1,6 +1,7 @@
 package org.docheinstein.sqlbuilder.models;
 
 import org.docheinstein.sqlbuilder.SqlBindable;
+import org.docheinstein.sqlbuilder.commons.Fingerprint;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -27,13 +28,36 @@ public class SqlBindableObject implements SqlBindable {
         mObject.add(o);
     }
 
+    /**
+     * Returns the wrapped object.
+     * @return the wrapped object
+     */
+    public Object getObject() {
+        return mObject.get(0);
+    }
+
     @Override
     public List<Object> getBindableObjects() {
         return mObject;
     }
 
+    @Override
+    public <E extends Exception> void collectBindableObjects(BindableSink<E> sink) throws E {
+        sink.accept(mObject.get(0));
+    }
+
     @Override
     public String toSql() {
         return "?";
     }
+
+    @Override
+    public void appendSql(StringBuilder sql) {
+        sql.append('?');
+    }
+
+    @Override
+    public void appendFingerprint(Fingerprint fingerprint) {
+        fingerprint.append("?");
+    }
 }
@@ -0,0 +1,272 @@
+package org.docheinstein.sqlbuilder.routing;
+
+import org.docheinstein.sqlbuilder.Sqlable;
+import org.docheinstein.sqlbuilder.commons.ConnectionTask;
+import org.docheinstein.sqlbuilder.commons.SqlBuilder;
+import org.docheinstein.sqlbuilder.commons.SqlBuilderInternalUtil;
+import org.docheinstein.sqlbuilder.models.Tuple;
+import org.docheinstein.sqlbuilder.statements.base.QueryStatement;
+import org.docheinstein.sqlbuilder.statements.base.SingleShotStatement;
+import org.docheinstein.sqlbuilder.statements.base.UpdateStatement;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Chooses the {@link DataSource} each statement is executed on.
+ * <p>
+ * The execution methods of the router acquire a connection from the data
+ * source the statement is routed to, execute the statement and close the
+ * connection; the outcome of each execution is notified to the router via
+ * {@link #onExecuted(Sqlable, DataSource, long, Throwable)}, and the failures
+ * of the data sources to provide a connection via
+ * {@link #onConnectionFailed(Sqlable, DataSource, Throwable)}, so that it can
+ * adapt its further choices (e.g. by latency).
+ *
+ * @see ReadWriteRouter
+ */
+public abstract class ConnectionRouter {
+
+    /** Class of the SQLStates of the connection exceptions. */
+    private static final String CONNECTION_EXCEPTION_SQL_STATE_CLASS = "08";
+
+    /**
+     * Returns the data source the given statement must be executed on.
+     * @param statement the statement
+     * @return the data source
+     */
+    public abstract DataSource route(Sqlable statement);
+
+    /**
+     * Called after the execution of a statement routed by this router
+     * over a connection of the given data source.
+     * <p>
+     * The failure might be caused either by the statement itself (e.g.
+     * a syntax error or a constraint violation) or by the connection
+     * (see {@link #isConnectionFailure(Throwable)}).
+     * <p>
+     * The default implementation does nothing.
+     * @param statement the statement
+     * @param dataSource the data source the statement has been executed on
+     * @param elapsedNanos the duration of the execution, in nanoseconds
+     * @param failure the failure of the execution, or null if it succeeded
+     */
+    protected void onExecuted(Sqlable statement, DataSource dataSource,
+                              long elapsedNanos, Throwable failure) {
+    }
+
+    /**
+     * Called when the data source a statement is routed to fails to
+     * provide the connection for it.
+     * <p>
+     * The default implementation does nothing.
+     * @param statement the statement
+     * @param dataSource the data source
+     * @param failure the failure of the data source
+     */
+    protected void onConnectionFailed(Sqlable statement, DataSource dataSource,
+                                      Throwable failure) {
+    }
+
+    /**
+     * Returns whether the given failure of an execution has been caused by
+     * the connection to the database rather than by the statement, i.e.
+     * whether it is (or is caused by) a {@link SQLTransientConnectionException},
+     * a {@link SQLNonTransientConnectionException} or a {@link SQLException}
+     * whose SQLState belongs to the class 08 (connection exception).
+     * @param failure the failure
+     * @return whether the failure concerns the connection
+     */
+    protected static boolean isConnectionFailure(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransientConnectionException ||
+                t instanceof SQLNonTransientConnectionException)
+                return true;
+
+            if (t instanceof SQLException) {
+                String sqlState = ((SQLException) t).getSQLState();
+                if (sqlState != null && sqlState.startsWith(CONNECTION_EXCEPTION_SQL_STATE_CLASS))
+                    return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Executes the given statement over a connection of the data source
+     * it is routed to.
+     * @param statement the statement
+     * @return the number of affected rows
+     * @throws SQLException if the statement execution fails
+     */
+    public int exec(UpdateStatement statement) throws SQLException {
+        return exec(statement, false);
+    }
+
+    /**
+     * Executes the given statement over a connection of the data source
+     * it is routed to.
+     * @param statement the statement
+     * @param returnLastInsertedId true for return the key of the affected row
+     *                             false for return the number of affected rows
+     * @return the number of affected rows or the key of the affected row
+     * @throws SQLException if the statement execution fails
+     */
+    public int exec(UpdateStatement statement, boolean returnLastInsertedId)
+        throws SQLException {
+        return run(statement, connection -> statement.exec(connection, returnLastInsertedId));
+    }
+
+    /**
+     * Executes the given statement over a connection of the data source
+     * it is routed to.
+     * @param statement the statement
+     * @return whether the statement has been executed successfully
+     * @throws SQLException if the statement execution fails
+     */
+    public boolean exec(SingleShotStatement statement) throws SQLException {
+        return run(statement, statement::exec);
+    }
+
+    /**
+     * Retrieves the tuples that satisfy the given query over a connection
+     * of the data source it is routed to.
+     * @param query the query
+     * @param clazz the class of the tuples to retrieve
+     * @param <T> the type of the tuples to retrieve
+     * @return a list of tuples that satisfy the query
+     * @throws SQLException if the query fails
+     */
+    public <T extends Tuple> List<T> fetch(QueryStatement query, Class<T> clazz)
+        throws SQLException {
+        return run(query, connection -> query.fetch(connection, clazz));
+    }
+
+    /**
+     * Asynchronously executes the given statement over a connection of the
+     * data source it is routed to.
+     * @param statement the statement
+     * @param executor the executor, or null for {@link SqlBuilder#getExecutor()}
+     * @return a future completed with the number of affected rows
+     */
+    public CompletableFuture<Integer> execAsync(UpdateStatement statement, Executor executor) {
+        return runAsync(statement, statement::exec, executor);
+    }
+
+    /**
+     * Asynchronously retrieves the tuples that satisfy the given query over
+     * a connection of the data source it is routed to.
+     * @param query the query
+     * @param clazz the class of the tuples to retrieve
+     * @param executor the executor, or null for {@link SqlBuilder#getExecutor()}
+     * @param <T> the type of the tuples to retrieve
+     * @return a future completed with the tuples that satisfy the query
+     */
+    public <T extends Tuple> CompletableFuture<List<T>> fetchAsync(QueryStatement query,
+                                                                  Class<T> clazz,
+                                                                  Executor executor) {
+        return runAsync(query, connection -> query.fetch(connection, clazz), executor);
+    }
+
+    /**
+     * Runs the given task over a connection of the data source the given
+     * statement is routed to.
+     * @param statement the statement
+     * @param task the task that executes the statement
+     * @param <R> the type of the result of the task
+     * @return the result of the task
+     * @throws SQLException if the task fails
+     */
+    private <R> R run(Sqlable statement, ConnectionTask<R> task) throws SQLException {
+        DataSource dataSource = route(statement);
+        Connection acquired;
+
+        try {
+            acquired = dataSource.getConnection();
+        } catch (SQLException | RuntimeException e) {
+            onConnectionFailed(statement, dataSource, e);
+            throw e;
+        }
+
+        try (Connection connection = acquired) {
+            try {
+                return timed(statement, dataSource, connection, task);
+            } finally {
+                SqlBuilder.clearStatementCache(connection);
+            }
+        }
+    }
+
+    /**
+     * Asynchronously runs the given task over a connection of the data source
+     * the given statement is routed to.
+     * <p>
+     * The statement is routed immediately, while the connection is acquired
+     * by the executor.
+     * @param statement the statement
+     * @param task the task that executes the statement
+     * @param executor the executor, or null for {@link SqlBuilder#getExecutor()}
+     * @param <R> the type of the result of the task
+     * @return a future completed with the result of the task
+     */
+    private <R> CompletableFuture<R> runAsync(Sqlable statement, ConnectionTask<R> task,
+                                              Executor executor) {
+        DataSource dataSource = route(statement);
+        AtomicBoolean acquired = new AtomicBoolean();
+
+        CompletableFuture<R> future = SqlBuilderInternalUtil.supplyAsync(dataSource,
+            connection -> {
+                acquired.set(true);
+                return timed(statement, dataSource, connection, task);
+            }, executor);
+
+        // The failures of the executions are notified by timed(), while the
+        // ones of the data source (i.e. no connection) are notified here
+        future.whenComplete((result, failure) -> {
+            if (failure != null && !acquired.get() &&
+                !(failure instanceof CancellationException) &&
+                !(failure instanceof RejectedExecutionException))
+                onConnectionFailed(statement, dataSource, failure);
+        });
+
+        return future;
+    }
+
+    /**
+     * Runs the given task over the given connection, which has been acquired
+     * from the data source the statement is routed to, and notifies the
+     * outcome of the execution.
+     * @param statement the statement
+     * @param dataSource the data source the statement is routed to
+     * @param connection the connection
+     * @param task the task that executes the statement
+     * @param <R> the type of the result of the task
+     * @return the result of the task
+     * @throws SQLException if the task fails
+     */
+    private <R> R timed(Sqlable statement, DataSource dataSource, Connection connection,
+                        ConnectionTask<R> task) throws SQLException {
+        long start = System.nanoTime();
+        R result;
+
+        try {
+            result = task.run(connection);
+        } catch (SQLException | RuntimeException | Error e) {
+            onExecuted(statement, dataSource, System.nanoTime() - start, e);
+            throw e;
+        }
+
+        onExecuted(statement, dataSource, System.nanoTime() - start, null);
+        return result;
+    }
+}
@@ -0,0 +1,331 @@
+package org.docheinstein.sqlbuilder.routing;
+
+import org.docheinstein.sqlbuilder.Sqlable;
+import org.docheinstein.sqlbuilder.commons.SqlBuilderLogger;
+import org.docheinstein.sqlbuilder.statements.base.QueryStatement;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Router that splits reads and writes between a primary database and
+ * its read replicas.
+ * <p>
+ * Queries ({@link QueryStatement}s, e.g. SELECT and UNION) are executed on
+ * one of the replicas, chosen either in round-robin or by the lowest
+ * latency observed so far; every other statement (e.g. INSERT, UPDATE,
+ * CREATE TRIGGER) is executed on the primary.
+ * <p>
+ * Since replicas might lag behind the primary, after a write the queries
+ * are executed on the primary too for the pin window (see
+ * {@link #pinWindow(long, TimeUnit)}), so that they read the data just
+ * written. The window is shared by every thread that uses this router.
+ * <p>
+ * A replica which fails to provide a connection, or whose execution fails
+ * because of the connection (see {@link #isConnectionFailure(Throwable)}),
+ * is not chosen for a backoff period (see {@link #failureBackoff(long, TimeUnit)}),
+ * which doubles at each consecutive failure; the queries are executed on
+ * the primary while every replica is backing off. The other failures
+ * (e.g. syntax errors, constraint violations) don't affect the health of
+ * the replica, and the latency of a failed execution is not taken
+ * into account.
+ * <p>
+ * e.g.
+ *
+ * <pre>
+ * ReadWriteRouter router = new ReadWriteRouter(primary, Arrays.asList(replica1, replica2))
+ *     .replicaSelection(ReadWriteRouter.ReplicaSelection.LeastLatency)
+ *     .pinWindow(2, TimeUnit.SECONDS);
+ *
+ * router.exec(PERSONS.insert().values(1, "John"));   // primary
+ * router.fetch(PERSONS.select(NAME), PersonTuple.class);  // replica
+ * </pre>
+ */
+public class ReadWriteRouter extends ConnectionRouter {
+
+    /**
+     * Strategy used for choose the replica a query is executed on.
+     */
+    public enum ReplicaSelection {
+        /** The replicas are used in turn. */
+        RoundRobin,
+        /** The replica with the lowest average latency is used. */
+        LeastLatency
+    }
+
+    /**
+     * Weight of the last execution in the average latency of a replica,
+     * as the reciprocal (i.e. 1/4).
+     */
+    private static final int LATENCY_SMOOTHING = 4;
+
+    /** Default backoff of a replica after a failure, in nanoseconds. */
+    private static final long DEFAULT_FAILURE_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /** Maximum number of times the backoff of a replica is doubled (i.e. 64x). */
+    private static final int MAX_FAILURE_BACKOFF_DOUBLINGS = 6;
+
+    /** The primary database, which executes the writes. */
+    private final DataSource mPrimary;
+
+    /** The read replicas, which execute the queries. */
+    private final List<DataSource> mReplicas;
+
+    /** The strategy used for choose the replica of a query. */
+    private volatile ReplicaSelection mReplicaSelection = ReplicaSelection.RoundRobin;
+
+    /** The duration of the pin window, in nanoseconds. */
+    private volatile long mPinWindowNanos = 0;
+
+    /** The instant (as per System.nanoTime()) the pin window ends at. */
+    private volatile long mPinnedUntilNanos = System.nanoTime();
+
+    /** The index of the next replica for the round-robin. */
+    private final AtomicInteger mNextReplica = new AtomicInteger();
+
+    /** The average latency of each replica, in nanoseconds (0 if unknown). */
+    private final AtomicLongArray mReplicaLatencies;
+
+    /** The backoff of a replica after its first consecutive failure, in nanoseconds. */
+    private volatile long mFailureBackoffNanos = DEFAULT_FAILURE_BACKOFF_NANOS;
+
+    /** The number of consecutive failures of each replica. */
+    private final AtomicIntegerArray mReplicaFailures;
+
+    /** The instant (as per System.nanoTime()) the backoff of each replica ends at. */
+    private final AtomicLongArray mReplicaBackoffUntilNanos;
+
+    /**
+     * Creates a router for the given primary and replicas.
+     * @param primary the primary database
+     * @param replicas the read replicas (might be empty, in which
+     *                 case every statement is executed on the primary)
+     */
+    public ReadWriteRouter(DataSource primary, List<DataSource> replicas) {
+        if (primary == null)
+            throw new IllegalArgumentException("The primary data source must be provided");
+
+        mPrimary = primary;
+        mReplicas = replicas != null ? new ArrayList<>(replicas) : new ArrayList<>();
+        mReplicaLatencies = new AtomicLongArray(mReplicas.size());
+        mReplicaFailures = new AtomicIntegerArray(mReplicas.size());
+        mReplicaBackoffUntilNanos = new AtomicLongArray(mReplicas.size());
+    }
+
+    /**
+     * Sets the strategy used for choose the replica a query is executed on.
+     * <p>
+     * The default is {@link ReplicaSelection#RoundRobin}.
+     * @param replicaSelection the strategy
+     * @return this router
+     */
+    public ReadWriteRouter replicaSelection(ReplicaSelection replicaSelection) {
+        mReplicaSelection = replicaSelection;
+        return this;
+    }
+
+    /**
+     * Sets the duration of the window after a write during which the
+     * queries are executed on the primary (read-your-writes).
+     * <p>
+     * The default is 0, i.e. the queries are always executed on the replicas.
+     * @param duration the duration of the window
+     * @param unit the unit of the duration
+     * @return this router
+     */
+    public ReadWriteRouter pinWindow(long duration, TimeUnit unit) {
+        mPinWindowNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Sets the duration a replica is not chosen for after a connection failure;
+     * the duration doubles at each consecutive failure of the replica
+     * (up to 64 times) and it's reset by a successful execution.
+     * <p>
+     * The default is 1 second; 0 disables the backoff.
+     * @param duration the duration of the backoff after the first failure
+     * @param unit the unit of the duration
+     * @return this router
+     */
+    public ReadWriteRouter failureBackoff(long duration, TimeUnit unit) {
+        mFailureBackoffNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Returns whether the queries are currently pinned to the primary
+     * because of a recent write.
+     * @return whether the pin window is open
+     */
+    public boolean isPinned() {
+        return mPinnedUntilNanos - System.nanoTime() > 0;
+    }
+
+    @Override
+    public DataSource route(Sqlable statement) {
+        if (!(statement instanceof QueryStatement)) {
+            pin();
+            return mPrimary;
+        }
+
+        if (mReplicas.isEmpty() || isPinned())
+            return mPrimary;
+
+        int replica = mReplicaSelection == ReplicaSelection.LeastLatency ?
+            getLeastLatencyReplica() :
+            getNextReplica();
+
+        if (replica < 0) {
+            SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+                () -> "Routing query to primary since every replica is backing off");
+            return mPrimary;
+        }
+
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> "Routing query to replica " + replica);
+
+        return mReplicas.get(replica);
+    }
+
+    @Override
+    protected void onExecuted(Sqlable statement, DataSource dataSource,
+                              long elapsedNanos, Throwable failure) {
+        if (dataSource == mPrimary) {
+            // The window starts when the write actually ends
+            if (!(statement instanceof QueryStatement))
+                pin();
+            return;
+        }
+
+        int replica = indexOfReplica(dataSource);
+
+        if (replica < 0)
+            return;
+
+        if (failure == null)
+            onReplicaSucceeded(replica, elapsedNanos);
+        else if (isConnectionFailure(failure))
+            onReplicaFailed(replica);
+    }
+
+    @Override
+    protected void onConnectionFailed(Sqlable statement, DataSource dataSource,
+                                      Throwable failure) {
+        int replica = indexOfReplica(dataSource);
+
+        if (replica >= 0)
+            onReplicaFailed(replica);
+    }
+
+    /**
+     * Returns the index of the given data source among the replicas,
+     * compared by identity.
+     * @param dataSource the data source
+     * @return the index of the replica, or -1 if it isn't a replica
+     */
+    private int indexOfReplica(DataSource dataSource) {
+        for (int i = 0; i < mReplicas.size(); i++)
+            if (mReplicas.get(i) == dataSource)
+                return i;
+        return -1;
+    }
+
+    /**
+     * Records a successful execution of the given replica: its latency is
+     * taken into account and its backoff is reset.
+     * @param replica the index of the replica
+     * @param elapsedNanos the duration of the execution, in nanoseconds
+     */
+    private void onReplicaSucceeded(int replica, long elapsedNanos) {
+        long average = mReplicaLatencies.get(replica);
+        mReplicaLatencies.set(replica, average == 0 ?
+            elapsedNanos :
+            average + (elapsedNanos - average) / LATENCY_SMOOTHING);
+
+        mReplicaFailures.set(replica, 0);
+        mReplicaBackoffUntilNanos.set(replica, 0);
+    }
+
+    /**
+     * Records a connection failure of the given replica, which starts
+     * (or extends) its backoff.
+     * @param replica the index of the replica
+     */
+    private void onReplicaFailed(int replica) {
+        int failures = mReplicaFailures.incrementAndGet(replica);
+        long backoff = mFailureBackoffNanos;
+
+        if (backoff <= 0)
+            return;
+
+        backoff <<= Math.min(failures - 1, MAX_FAILURE_BACKOFF_DOUBLINGS);
+        mReplicaBackoffUntilNanos.set(replica, System.nanoTime() + backoff);
+
+        long backoffMillis = TimeUnit.NANOSECONDS.toMillis(backoff);
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> "Replica " + replica + " failed " + failures + " times in a row, " +
+                "backing off for " + backoffMillis + "ms");
+    }
+
+    /**
+     * Returns whether the given replica is backing off after a failure.
+     * @param replica the index of the replica
+     * @return whether the replica must not be chosen
+     */
+    private boolean isBackingOff(int replica) {
+        long until = mReplicaBackoffUntilNanos.get(replica);
+        return until != 0 && until - System.nanoTime() > 0;
+    }
+
+    /**
+     * Returns the next replica in round-robin which is not backing off.
+     * @return the index of the replica, or -1 if every replica is backing off
+     */
+    private int getNextReplica() {
+        for (int attempt = 0; attempt < mReplicas.size(); attempt++) {
+            int replica = Math.floorMod(mNextReplica.getAndIncrement(), mReplicas.size());
+            if (!isBackingOff(replica))
+                return replica;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Opens the pin window, from now on.
+     */
+    private void pin() {
+        if (mPinWindowNanos > 0)
+            mPinnedUntilNanos = System.nanoTime() + mPinWindowNanos;
+    }
+
+    /**
+     * Returns the replica with the lowest average latency which is not
+     * backing off; replicas which have never been used are preferred,
+     * so that their latency gets known.
+     * @return the index of the replica, or -1 if every replica is backing off
+     */
+    private int getLeastLatencyReplica() {
+        int best = -1;
+        long bestLatency = Long.MAX_VALUE;
+
+        for (int i = 0; i < mReplicas.size(); i++) {
+            if (isBackingOff(i))
+                continue;
+
+            long latency = mReplicaLatencies.get(i);
+            if (best < 0 || latency < bestLatency) {
+                best = i;
+                bestLatency = latency;
+            }
+        }
+
+        return best;
+    }
+}
@@ -0,0 +1,31 @@
+package org.docheinstein.sqlbuilder.routing;
+
+import java.util.Objects;
+
+/**
+ * Function that maps the value of a shard key to the shard that holds it.
+ *
+ * @see ShardRouter
+ */
+@FunctionalInterface
+public interface ShardFunction {
+
+    /**
+     * Returns the shard of the given shard key value.
+     * @param key the value of the shard key
+     * @param shardCount the number of shards
+     * @return the index of the shard, in the range [0, shardCount)
+     */
+    int shardOf(Object key, int shardCount);
+
+    /**
+     * Returns a shard function which distributes the keys by their hash code.
+     * <p>
+     * Since the hash code depends on the class of the key, the values of the
+     * shard key should always be of the same class (e.g. always Integer).
+     * @return the hash based shard function
+     */
+    static ShardFunction hash() {
+        return (key, shardCount) -> Math.floorMod(Objects.hashCode(key), shardCount);
+    }
+}
@@ -0,0 +1,733 @@
+package org.docheinstein.sqlbuilder.routing;
+
+import org.docheinstein.sqlbuilder.SqlBindable;
+import org.docheinstein.sqlbuilder.clauses.OrderBy;
+import org.docheinstein.sqlbuilder.commons.SqlBuilder;
+import org.docheinstein.sqlbuilder.commons.SqlBuilderInternalUtil;
+import org.docheinstein.sqlbuilder.commons.adt.Pair;
+import org.docheinstein.sqlbuilder.exceptions.UncheckedSQLException;
+import org.docheinstein.sqlbuilder.execution.ScatterGather;
+import org.docheinstein.sqlbuilder.expressions.Expression;
+import org.docheinstein.sqlbuilder.expressions.Operators;
+import org.docheinstein.sqlbuilder.models.Column;
+import org.docheinstein.sqlbuilder.models.SqlBindableObject;
+import org.docheinstein.sqlbuilder.models.Table;
+import org.docheinstein.sqlbuilder.models.Tuple;
+import org.docheinstein.sqlbuilder.statements.base.Put;
+import org.docheinstein.sqlbuilder.statements.base.QueryStatement;
+import org.docheinstein.sqlbuilder.statements.base.Statement;
+import org.docheinstein.sqlbuilder.statements.base.UpdateStatement;
+import org.docheinstein.sqlbuilder.statements.shared.Delete;
+import org.docheinstein.sqlbuilder.statements.shared.Select;
+import org.docheinstein.sqlbuilder.statements.shared.Update;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Routes the statements over a table split into shards to the shards
+ * that hold the affected rows.
+ * <p>
+ * The shard of a row is given by the {@link ShardFunction} applied to the
+ * value of its shard key column. A statement is routed by inspecting:
+ * <ul>
+ *     <li>the WHERE expression of a SELECT, UPDATE or DELETE: equalities
+ *     between the shard key and a value select a single shard; AND and OR
+ *     of such equalities select the intersection and the union of their
+ *     shards respectively</li>
+ *     <li>the values of an INSERT or REPLACE: the rows are split among
+ *     the shards they belong to</li>
+ * </ul>
+ * Any other statement (or a WHERE expression that doesn't restrict the
+ * shard key) is routed to every shard (i.e. fan-out).
+ * An UPDATE that assigns the shard key can't be routed, since the updated
+ * rows would have to move to another shard.
+ * <p>
+ * The tuples of a query executed over more shards are merged client-side:
+ * the ORDER BY is applied with a k-way merge of the sorted tuples of each
+ * shard, then the LIMIT (without offset) and the DISTINCT are applied to
+ * the merged tuples. A query executed over more shards can't have a GROUP BY,
+ * a HAVING, an aggregate function or a LIMIT with an offset, since their
+ * results can't be merged.
+ * <p>
+ * e.g.
+ *
+ * <pre>
+ * ShardRouter router = new ShardRouter(PERSONS, PERSON_ID, Arrays.asList(shard1, shard2));
+ *
+ * // Executed only on the shard of the person 10
+ * router.fetch(PERSONS.select(PERSONS.getColumns()).where(PERSON_ID.eq(10)), PersonTuple.class);
+ *
+ * // Executed on every shard
+ * router.exec(PERSONS.update().set(AGE, 0).where(AGE.lt(0)));
+ * </pre>
+ */
+public class ShardRouter {
+
+    /** The sharded table. */
+    private final Table mTable;
+
+    /** The column whose value determines the shard of a row. */
+    private final Column<?> mShardKey;
+
+    /** The shards, by index. */
+    private final List<DataSource> mShards;
+
+    /** Maps a value of the shard key to the index of its shard. */
+    private final ShardFunction mShardFunction;
+
+    /** The executor of the fan-out executions (null for the library's one). */
+    private Executor mExecutor;
+
+    /** Matches the columns of a query which are aggregate functions (e.g. COUNT(*)). */
+    private static final Pattern AGGREGATE_PATTERN = Pattern.compile(
+        "\\b(COUNT|SUM|AVG|MIN|MAX|GROUP_CONCAT|STRING_AGG|ARRAY_AGG)\\s*\\(",
+        Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Creates a router for the given table which distributes the rows
+     * by the hash of their shard key.
+     * @param table the sharded table
+     * @param shardKey the shard key column
+     * @param shards the shards
+     *
+     * @see ShardFunction#hash()
+     */
+    public ShardRouter(Table table, Column<?> shardKey, List<DataSource> shards) {
+        this(table, shardKey, shards, ShardFunction.hash());
+    }
+
+    /**
+     * Creates a router for the given table.
+     * @param table the sharded table
+     * @param shardKey the shard key column
+     * @param shards the shards
+     * @param shardFunction the function that maps a value of the shard key
+     *                      to the index of its shard
+     */
+    public ShardRouter(Table table, Column<?> shardKey, List<DataSource> shards,
+                       ShardFunction shardFunction) {
+        if (shards == null || shards.isEmpty())
+            throw new IllegalArgumentException("At least a shard must be provided");
+
+        mTable = table;
+        mShardKey = shardKey;
+        mShards = new ArrayList<>(shards);
+        mShardFunction = shardFunction;
+    }
+
+    /**
+     * Sets the executor used for execute a statement over more shards.
+     * @param executor the executor, or null for {@link SqlBuilder#getExecutor()}
+     * @return this router
+     */
+    public ShardRouter executor(Executor executor) {
+        mExecutor = executor;
+        return this;
+    }
+
+    // ---- ROUTING ----
+
+    /**
+     * Returns the index of the shard that holds the rows with the
+     * given value of the shard key.
+     * @param key the value of the shard key
+     * @return the index of the shard
+     */
+    public int getShard(Object key) {
+        int shard = mShardFunction.shardOf(key, mShards.size());
+
+        if (shard < 0 || shard >= mShards.size())
+            throw new IllegalStateException("The shard function returned an invalid shard: " + shard);
+
+        return shard;
+    }
+
+    /**
+     * Returns the shards the given statement has to be executed on.
+     * @param statement the statement
+     * @return the indexes of the shards, in ascending order; might be empty
+     *         if no row can satisfy the statement (e.g. WHERE k = 1 AND k = 2)
+     *         or if it's an INSERT or REPLACE without rows
+     * @throws IllegalArgumentException if the statement affects another table
+     *                                  or if it's an UPDATE that assigns
+     *                                  the shard key
+     */
+    public List<Integer> route(Statement statement) {
+        Set<Integer> shards;
+
+        if (statement instanceof Select) {
+            Select select = (Select) statement;
+            checkTable(select.getTable());
+            shards = routeExpression(select.getWhere());
+        } else if (statement instanceof Update) {
+            Update update = (Update) statement;
+            checkTable(update.getTable());
+            checkShardKeyNotAssigned(update);
+            shards = routeExpression(update.getWhere());
+        } else if (statement instanceof Delete) {
+            Delete delete = (Delete) statement;
+            checkTable(delete.getTable());
+            shards = routeExpression(delete.getWhere());
+        } else if (statement instanceof Put) {
+            Put<?> put = (Put<?>) statement;
+            checkTable(put.getTable());
+            shards = routePut(put);
+        } else {
+            shards = null;
+        }
+
+        if (shards == null) {
+            List<Integer> all = new ArrayList<>(mShards.size());
+            for (int i = 0; i < mShards.size(); i++)
+                all.add(i);
+            return all;
+        }
+
+        return new ArrayList<>(shards);
+    }
+
+    /**
+     * Returns the data sources of the shards the given statement has
+     * to be executed on.
+     * @param statement the statement
+     * @return the data sources of the shards
+     * @see #route(Statement)
+     */
+    public List<DataSource> getDataSources(Statement statement) {
+        List<DataSource> dataSources = new ArrayList<>();
+        for (int shard : route(statement))
+            dataSources.add(mShards.get(shard));
+        return dataSources;
+    }
+
+    // ---- EXECUTION ----
+
+    /**
+     * Executes the given statement over the shards it is routed to,
+     * in parallel if they're more than one.
+     * <p>
+     * The rows of an INSERT or REPLACE that belong to different shards
+     * are put by a statement for each shard; the statements of different
+     * shards are not executed within a single transaction.
+     * @param statement the statement
+     * @return the total number of affected rows
+     * @throws SQLException if the execution fails on any shard
+     */
+    public int exec(UpdateStatement statement) throws SQLException {
+        if (statement instanceof Put) {
+            Put<?> put = (Put<?>) statement;
+            checkTable(put.getTable());
+
+            Map<Integer, List<List<Object>>> shardRows = groupRowsByShard(put);
+
+            if (shardRows.size() > 1) {
+                List<CompletableFuture<Integer>> results = new ArrayList<>();
+
+                for (Map.Entry<Integer, List<List<Object>>> rows : shardRows.entrySet())
+                    results.add(put.subset(rows.getValue())
+                        .execAsync(mShards.get(rows.getKey()), false, mExecutor));
+
+                return sum(results);
+            }
+        }
+
+        List<DataSource> dataSources = getDataSources(statement);
+
+        if (dataSources.size() == 1)
+            return execOn(dataSources.get(0), statement);
+
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+
+        for (DataSource dataSource : dataSources)
+            results.add(statement.execAsync(dataSource, false, mExecutor));
+
+        return sum(results);
+    }
+
+    /**
+     * Retrieves the tuples that satisfy the given query from the shards it
+     * is routed to; if they're more than one, the query is executed in
+     * parallel and the tuples of the shards are merged.
+     * <p>
+     * A SELECT executed over more shards is merged as described in
+     * {@link ShardRouter}; the branches of an UNION or UNION ALL executed
+     * over more shards can't have an ORDER BY or a LIMIT either.
+     * @param query the query
+     * @param clazz the class of the tuples to retrieve
+     * @param <T> the type of the tuples
+     * @return the tuples that satisfy the query
+     * @throws SQLException if the query fails on any shard
+     * @throws IllegalArgumentException if the query is executed over more
+     *                                  shards and its tuples can't be merged
+     *
+     * @see ScatterGather
+     */
+    public <T extends Tuple> List<T> fetch(QueryStatement query, Class<T> clazz)
+        throws SQLException {
+        List<DataSource> dataSources = getDataSources(query);
+
+        if (dataSources.isEmpty())
+            return new ArrayList<>();
+
+        if (dataSources.size() == 1) {
+            try (Connection connection = dataSources.get(0).getConnection()) {
+                try {
+                    return query.fetch(connection, clazz);
+                } finally {
+                    SqlBuilder.clearStatementCache(connection);
+                }
+            }
+        }
+
+        if (query instanceof Select)
+            return fetchFanOut((Select) query, dataSources, clazz);
+
+        if (query instanceof Operators.Union || query instanceof Operators.UnionAll) {
+            Operators.BinaryQueryStatement union = (Operators.BinaryQueryStatement) query;
+
+            checkMergeableBranch(union.getFirstQuery());
+            checkMergeableBranch(union.getSecondQuery());
+
+            return new ScatterGather(dataSources, mExecutor).fetch(union, clazz);
+        }
+
+        throw new IllegalArgumentException("The tuples of a " +
+            query.getClass().getSimpleName() + " can't be merged across shards");
+    }
+
+    /**
+     * Retrieves the tuples that satisfy the given SELECT from more shards
+     * and merges them.
+     * @param select the query
+     * @param dataSources the data sources of the shards
+     * @param clazz the class of the tuples to retrieve
+     * @param <T> the type of the tuples
+     * @return the merged tuples
+     * @throws SQLException if the query fails on any shard
+     */
+    private <T extends Tuple> List<T> fetchFanOut(Select select, List<DataSource> dataSources,
+                                                  Class<T> clazz) throws SQLException {
+        checkMergeable(select);
+
+        Pair<Integer, Integer> limit = select.getLimit();
+        int maxRows = limit != null && limit.getValue() != null ?
+            limit.getValue() : Integer.MAX_VALUE;
+
+        if (select.getOrderBy().isEmpty()) {
+            // Any rows satisfy an unordered query, thus the first ones gathered
+            // are taken (each shard returns at most LIMIT rows itself)
+            try (Stream<T> tuples = new ScatterGather(dataSources, mExecutor).stream(
+                    Collections.singletonList(select), select.isDistinct(), clazz)) {
+                return tuples.limit(maxRows).collect(Collectors.toList());
+            } catch (UncheckedSQLException e) {
+                throw e.getCause();
+            }
+        }
+
+        // Each shard returns its first LIMIT rows already sorted, thus the
+        // first LIMIT rows of their k-way merge are the first ones overall
+        List<CompletableFuture<List<T>>> results = new ArrayList<>();
+
+        for (DataSource dataSource : dataSources)
+            results.add(select.fetchAsync(dataSource, clazz, mExecutor));
+
+        List<List<T>> shardTuples = new ArrayList<>();
+
+        for (CompletableFuture<List<T>> result : results)
+            shardTuples.add(join(result));
+
+        return merge(shardTuples, getComparator(select.getOrderBy(), clazz),
+            select.isDistinct() ? getFields(clazz) : null, maxRows);
+    }
+
+    /**
+     * Executes the given statement over a connection of the given data source.
+     * @param dataSource the data source
+     * @param statement the statement
+     * @return the number of affected rows
+     * @throws SQLException if the execution fails
+     */
+    private static int execOn(DataSource dataSource, UpdateStatement statement)
+        throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            try {
+                return statement.exec(connection);
+            } finally {
+                SqlBuilder.clearStatementCache(connection);
+            }
+        }
+    }
+
+    /**
+     * Waits for the given results and returns their sum.
+     * @param results the numbers of affected rows of each shard
+     * @return the total number of affected rows
+     * @throws SQLException if a result has been completed with it
+     */
+    private static int sum(List<CompletableFuture<Integer>> results) throws SQLException {
+        int execRes = 0;
+
+        for (CompletableFuture<Integer> result : results)
+            execRes += join(result);
+
+        return execRes;
+    }
+
+    /**
+     * Waits for the given result, rethrowing the {@link SQLException}
+     * it might have been completed with.
+     * @param result the result
+     * @param <R> the type of the result
+     * @return the result
+     * @throws SQLException if the result has been completed with it
+     */
+    private static <R> R join(CompletableFuture<R> result) throws SQLException {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException)
+                throw (SQLException) e.getCause();
+            throw e;
+        }
+    }
+
+    // ---- INSPECTION ----
+
+    /**
+     * Throws an {@link IllegalArgumentException} if the given table
+     * isn't the sharded one.
+     * @param table the table of a statement
+     */
+    private void checkTable(Table table) {
+        if (table != mTable && (table == null || !table.getName().equals(mTable.getName())))
+            throw new IllegalArgumentException("The statement doesn't affect the sharded table "
+                + mTable.getName());
+    }
+
+    /**
+     * Returns the shards the rows that satisfy the given expression belong to.
+     * @param expr the expression
+     * @return the shards, or null if the expression doesn't restrict the shards
+     */
+    private Set<Integer> routeExpression(SqlBindable expr) {
+        if (expr instanceof Operators.Eq) {
+            Expression eq = (Expression) expr;
+
+            SqlBindable first = eq.getFirstOperand();
+            SqlBindable second = eq.getSecondOperand();
+
+            if (isShardKey(first) && second instanceof SqlBindableObject)
+                return Collections.singleton(getShard(((SqlBindableObject) second).getObject()));
+            if (isShardKey(second) && first instanceof SqlBindableObject)
+                return Collections.singleton(getShard(((SqlBindableObject) first).getObject()));
+
+            return null;
+        }
+
+        if (expr instanceof Operators.And) {
+            Expression and = (Expression) expr;
+
+            Set<Integer> first = routeExpression(and.getFirstOperand());
+            Set<Integer> second = routeExpression(and.getSecondOperand());
+
+            if (first == null)
+                return second;
+            if (second == null)
+                return first;
+
+            Set<Integer> shards = new TreeSet<>(first);
+            shards.retainAll(second);
+            return shards;
+        }
+
+        if (expr instanceof Operators.Or) {
+            Expression or = (Expression) expr;
+
+            Set<Integer> first = routeExpression(or.getFirstOperand());
+            Set<Integer> second = routeExpression(or.getSecondOperand());
+
+            if (first == null || second == null)
+                return null;
+
+            Set<Integer> shards = new TreeSet<>(first);
+            shards.addAll(second);
+            return shards;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the shards the rows of the given put statement belong to.
+     * @param put the put statement
+     * @return the shards of the rows, empty if there are no rows
+     */
+    private Set<Integer> routePut(Put<?> put) {
+        // A put without rows affects no shard
+        return groupRowsByShard(put).keySet();
+    }
+
+    /**
+     * Groups the rows of the given put statement by the shard they belong to.
+     * @param put the put statement
+     * @return the rows of each shard, by ascending index of the shard
+     */
+    private Map<Integer, List<List<Object>>> groupRowsByShard(Put<?> put) {
+        List<Column> columns = mTable.getColumns();
+
+        int keyIndex = -1;
+        for (int i = 0; i < columns.size(); i++)
+            if (isShardKey(columns.get(i)))
+                keyIndex = i;
+
+        if (keyIndex < 0)
+            throw new IllegalArgumentException("The shard key " + mShardKey.getName() +
+                " is not a column of the table " + mTable.getName());
+
+        Map<Integer, List<List<Object>>> shardRows = new TreeMap<>();
+
+        for (List<Object> values : put.getValuesList()) {
+            if (values.size() != columns.size())
+                throw new IllegalArgumentException(
+                    "Can't route a statement which doesn't provide a value for each column");
+
+            shardRows.computeIfAbsent(getShard(values.get(keyIndex)), shard -> new ArrayList<>())
+                .add(values);
+        }
+
+        return shardRows;
+    }
+
+    /**
+     * Throws an {@link IllegalArgumentException} if the given UPDATE assigns
+     * the shard key, since the rows would have to move to another shard.
+     * @param update the update statement
+     */
+    private void checkShardKeyNotAssigned(Update update) {
+        for (String columnName : update.getSetColumnNames())
+            if (columnName.equals(mShardKey.getName()))
+                throw new IllegalArgumentException("Can't route an UPDATE which assigns " +
+                    "the shard key " + mShardKey.getName() + ", the rows would change shard");
+    }
+
+    // ---- MERGE ----
+
+    /**
+     * Throws an {@link IllegalArgumentException} if the tuples of the given
+     * query can't be merged when it is executed over more shards.
+     * @param select the query
+     */
+    private static void checkMergeable(Select select) {
+        if (!select.getGroupBy().isEmpty() || select.getHaving() != null)
+            throw new IllegalArgumentException(
+                "Can't merge the groups of a query executed over more shards");
+
+        for (Column column : select.getColumns())
+            if (column.getName() != null && AGGREGATE_PATTERN.matcher(column.getName()).find())
+                throw new IllegalArgumentException("Can't merge the aggregate " +
+                    column.getName() + " of a query executed over more shards");
+
+        Pair<Integer, Integer> limit = select.getLimit();
+
+        if (limit != null && limit.getKey() != null && limit.getKey() > 0)
+            throw new IllegalArgumentException(
+                "Can't apply the offset of the LIMIT of a query executed over more shards");
+    }
+
+    /**
+     * Throws an {@link IllegalArgumentException} if the tuples of the given
+     * branch of an UNION can't be merged when it is executed over more shards.
+     * @param branch the branch of the query
+     */
+    private static void checkMergeableBranch(Select branch) {
+        checkMergeable(branch);
+
+        Pair<Integer, Integer> limit = branch.getLimit();
+
+        if (!branch.getOrderBy().isEmpty() ||
+            (limit != null && limit.getValue() != null))
+            throw new IllegalArgumentException("Can't merge the branches of an UNION " +
+                "with ORDER BY or LIMIT executed over more shards");
+    }
+
+    /**
+     * Returns the comparator that sorts the tuples of the given class as
+     * the given ORDER BY columns do.
+     * <p>
+     * The values are compared by their natural order (which might differ from
+     * the collation of the database for the strings) and the null values
+     * come first in ascending order, as MySQL does.
+     * @param orderBy the ORDER BY columns
+     * @param clazz the class of the tuples
+     * @param <T> the type of the tuples
+     * @return the comparator of the tuples
+     */
+    private static <T extends Tuple> Comparator<T> getComparator(
+        List<Pair<Column, OrderBy>> orderBy, Class<T> clazz) {
+
+        Map<String, Field> columnFields = getColumnFields(clazz);
+        Comparator<T> comparator = null;
+
+        for (Pair<Column, OrderBy> order : orderBy) {
+            Field field = columnFields.get(order.getKey().getName());
+
+            if (field == null)
+                throw new IllegalArgumentException("The tuple of class " + clazz.getSimpleName() +
+                    " doesn't have a field for the ORDER BY column " + order.getKey().getName() +
+                    ", the tuples of the shards can't be merged");
+
+            Comparator<T> columnComparator =
+                (t1, t2) -> compareValues(getValue(field, t1), getValue(field, t2));
+
+            if (order.getValue() == OrderBy.Desc)
+                columnComparator = columnComparator.reversed();
+
+            comparator = comparator == null ?
+                columnComparator : comparator.thenComparing(columnComparator);
+        }
+
+        return comparator;
+    }
+
+    /**
+     * Merges the given sorted lists of tuples (k-way merge), eventually
+     * removing the duplicate tuples.
+     * @param lists the sorted tuples of each shard
+     * @param comparator the comparator the lists are sorted with
+     * @param distinctFields the column fields of the tuples for remove the
+     *                       duplicates, or null if they're kept
+     * @param maxRows the maximum number of merged tuples
+     * @param <T> the type of the tuples
+     * @return the merged tuples
+     */
+    private static <T extends Tuple> List<T> merge(List<List<T>> lists, Comparator<T> comparator,
+                                                   Field[] distinctFields, int maxRows) {
+        int[] positions = new int[lists.size()];
+
+        // The heads of the lists, ties are broken by the index of the shard
+        PriorityQueue<Integer> heads = new PriorityQueue<>(Math.max(1, lists.size()), (a, b) -> {
+            int cmp = comparator.compare(lists.get(a).get(positions[a]), lists.get(b).get(positions[b]));
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+
+        for (int i = 0; i < lists.size(); i++)
+            if (!lists.get(i).isEmpty())
+                heads.add(i);
+
+        List<T> merged = new ArrayList<>();
+        Set<List<Object>> seen = distinctFields != null ? new HashSet<>() : null;
+
+        while (!heads.isEmpty() && merged.size() < maxRows) {
+            int list = heads.poll();
+            T tuple = lists.get(list).get(positions[list]++);
+
+            if (positions[list] < lists.get(list).size())
+                heads.add(list);
+
+            if (seen == null || seen.add(getKey(distinctFields, tuple)))
+                merged.add(tuple);
+        }
+
+        return merged;
+    }
+
+    /**
+     * Compares two values of a column, the null values come first.
+     * @param first the first value
+     * @param second the second value
+     * @return the comparison of the values
+     */
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object first, Object second) {
+        if (first == null || second == null)
+            return first == null ? (second == null ? 0 : -1) : 1;
+
+        if (!(first instanceof Comparable))
+            throw new IllegalArgumentException("Can't sort the values of class " +
+                first.getClass().getSimpleName() + " for merge the tuples of the shards");
+
+        return ((Comparable<Object>) first).compareTo(second);
+    }
+
+    /**
+     * Returns the key used for deduplicate the given tuple, i.e.
+     * the values of its column fields.
+     * @param fields the column fields of the tuple
+     * @param tuple the tuple
+     * @return the key of the tuple
+     */
+    private static List<Object> getKey(Field[] fields, Tuple tuple) {
+        Object[] key = new Object[fields.length];
+        for (int i = 0; i < fields.length; i++)
+            key[i] = getValue(fields[i], tuple);
+        return Arrays.asList(key);
+    }
+
+    /**
+     * Returns the value of the given column field of a tuple.
+     * @param field the column field
+     * @param tuple the tuple
+     * @return the value of the field
+     */
+    private static Object getValue(Field field, Tuple tuple) {
+        try {
+            return field.get(tuple);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Error while trying to access instance of class "
+                + tuple.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Returns the column fields of the given tuple class.
+     * @param clazz the class of the tuples
+     * @return the column fields
+     */
+    private static Field[] getFields(Class<? extends Tuple> clazz) {
+        return getColumnFields(clazz).values().toArray(new Field[0]);
+    }
+
+    /**
+     * Returns the column field map of the given tuple class.
+     * @param clazz the class of the tuples
+     * @param <T> the type of the tuples
+     * @return the column field map
+     */
+    private static <T extends Tuple> Map<String, Field> getColumnFields(Class<T> clazz) {
+        try {
+            return SqlBuilderInternalUtil.getColumnFields(clazz);
+        } catch (IllegalAccessException | InstantiationException e) {
+            e.printStackTrace();
+            throw new RuntimeException("Error while trying to access column field of class " +
+                clazz.getName() + ". (The class must have a default constructor)");
+        }
+    }
+
+    /**
+     * Returns whether the given bindable is the shard key column.
+     * @param bindable the bindable
+     * @return whether the bindable is the shard key
+     */
+    private boolean isShardKey(SqlBindable bindable) {
+        if (bindable == mShardKey)
+            return true;
+
+        if (!(bindable instanceof Column))
+            return false;
+
+        Column<?> column = (Column<?>) bindable;
+
+        return Objects.equals(column.getTable(), mShardKey.getTable()) &&
+            Objects.equals(column.getName(), mShardKey.getName());
+    }
+}
@@ -0,0 +1,130 @@
+package org.docheinstein.sqlbuilder.statements.base;
+
+import org.docheinstein.sqlbuilder.SqlBindable;
+import org.docheinstein.sqlbuilder.commons.FetchOptions;
+import org.docheinstein.sqlbuilder.models.Column;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents a compiled query statement.
+ * <p>
+ * A compiled query keeps the fetch options of the query it has
+ * been compiled from.
+ *
+ * <p>
+ *
+ * e.g.
+ *
+ * <pre>
+ * CompiledQueryStatement byAge = PERSON_TABLE.select(PERSON_TABLE.getColumns())
+ *     .where(AGE.eq(0))
+ *     .compile();
+ *
+ * // Only bind and execute
+ * List&lt;PersonTuple&gt; adults = byAge.bind(18).fetch(connection, PersonTuple.class);
+ * </pre>
+ *
+ * @see CompiledStatement
+ */
+public class CompiledQueryStatement extends CompiledStatement implements QueryStatement {
+
+    /** The columns the compiled query works on. */
+    private final List<Column> mColumns;
+
+    /** The options of the statement created for the compiled query. */
+    private final FetchOptions mFetchOptions;
+
+    /**
+     * Creates a compiled query for the given sql string, bind values and columns.
+     * @param sql the sql string
+     * @param bindables the values to bind to the slots of the query
+     * @param columns the columns the query works on
+     */
+    public CompiledQueryStatement(String sql, List<Object> bindables, List<Column> columns) {
+        this(sql, bindables, columns, FetchOptions.DEFAULT);
+    }
+
+    /**
+     * Creates a compiled query for the given sql string, bind values, columns
+     * and fetch options.
+     * @param sql the sql string
+     * @param bindables the values to bind to the slots of the query
+     * @param columns the columns the query works on
+     * @param fetchOptions the options of the statement created for the query
+     */
+    public CompiledQueryStatement(String sql, List<Object> bindables, List<Column> columns,
+                                  FetchOptions fetchOptions) {
+        super(sql, bindables);
+        mColumns = Collections.unmodifiableList(new ArrayList<>(columns));
+        mFetchOptions = fetchOptions != null ? fetchOptions : FetchOptions.DEFAULT;
+    }
+
+    /**
+     * Creates a compiled query for the given sql string, the bind values
+     * of the given bindable and columns.
+     * @param sql the sql string
+     * @param bindable the bindable that provides the values to bind to
+     *                 the slots of the query
+     * @param columns the columns the query works on
+     */
+    public CompiledQueryStatement(String sql, SqlBindable bindable, List<Column> columns) {
+        this(sql, bindable, columns, FetchOptions.DEFAULT);
+    }
+
+    /**
+     * Creates a compiled query for the given sql string, the bind values
+     * of the given bindable, columns and fetch options.
+     * @param sql the sql string
+     * @param bindable the bindable that provides the values to bind to
+     *                 the slots of the query
+     * @param columns the columns the query works on
+     * @param fetchOptions the options of the statement created for the query
+     */
+    public CompiledQueryStatement(String sql, SqlBindable bindable, List<Column> columns,
+                                  FetchOptions fetchOptions) {
+        super(sql, bindable);
+        mColumns = Collections.unmodifiableList(new ArrayList<>(columns));
+        mFetchOptions = fetchOptions != null ? fetchOptions : FetchOptions.DEFAULT;
+    }
+
+    /**
+     * Creates a compiled query which shares the sql string and the columns
+     * of the given one but binds different values.
+     * @param template the compiled query to share the sql string with
+     * @param bindables the values to bind to the slots of the query
+     */
+    protected CompiledQueryStatement(CompiledQueryStatement template, Object[] bindables) {
+        super(template, bindables);
+        mColumns = template.mColumns;
+        mFetchOptions = template.mFetchOptions;
+    }
+
+    /**
+     * Returns a compiled query which shares the sql string of this query
+     * but binds the given values.
+     * @param values the values to bind, in slot order; the number of values
+     *               must be equal to {@link #getBindCount()}
+     * @return a compiled query bound to the given values
+     */
+    public CompiledQueryStatement bind(Object... values) {
+        return new CompiledQueryStatement(this, values);
+    }
+
+    @Override
+    public CompiledQueryStatement compile() {
+        return this;
+    }
+
+    @Override
+    public List<Column> getColumns() {
+        return mColumns;
+    }
+
+    @Override
+    public FetchOptions getFetchOptions() {
+        return mFetchOptions;
+    }
+}
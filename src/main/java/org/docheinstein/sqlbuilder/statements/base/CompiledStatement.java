@@ -0,0 +1,208 @@
+package org.docheinstein.sqlbuilder.statements.base;
+
+import org.docheinstein.sqlbuilder.SqlBindable;
+import org.docheinstein.sqlbuilder.commons.Fingerprint;
+import org.docheinstein.sqlbuilder.commons.ParameterBinder;
+import org.docheinstein.sqlbuilder.commons.ParameterBinders;
+import org.docheinstein.sqlbuilder.commons.SqlBuilderInternalUtil;
+import org.docheinstein.sqlbuilder.models.Column;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents a statement whose SQL string has been rendered once and frozen
+ * together with the layout of its bind slots (i.e. the '?' placeholders).
+ *
+ * <p>
+ *
+ * A compiled statement is immutable: the values bound to its slots can be
+ * replaced only by creating a new compiled statement which shares the
+ * frozen SQL string with this one (see the bind() methods of the concrete
+ * implementations). Executing a compiled statement doesn't walk the
+ * expression tree of the statement it has been compiled from, thus it costs
+ * only the binding of the values and the execution itself.
+ *
+ * <p>
+ *
+ * The layout of the slots contains the column of each slot (if known) and
+ * the {@link ParameterBinder} planned for it, so that binding the values
+ * doesn't require to figure out the setter to use for each value.
+ *
+ * <p>
+ *
+ * Compiled statements are typically created with
+ * {@link QueryStatement#compile()} or {@link UpdateStatement#compile()}.
+ */
+public abstract class CompiledStatement implements Statement {
+
+    /** The frozen sql string. */
+    protected final String mSql;
+
+    /**
+     * The fingerprint of this statement.
+     * <p>
+     * The fingerprint is the one of the statement this one has been compiled
+     * from, if any, so that both share the prepared statement and the metrics;
+     * otherwise it is computed on the sql string.
+     */
+    protected final long mFingerprint;
+
+    /** The values bound to the slots of this statement, in slot order. */
+    protected final Object[] mBindables;
+
+    /** The columns of the slots of this statement (null if unknown). */
+    protected final Column<?>[] mBindColumns;
+
+    /** The binders planned for the slots of this statement. */
+    protected final ParameterBinder[] mBindPlan;
+
+    /**
+     * Creates a compiled statement for the given sql string and bind values.
+     * @param sql the sql string
+     * @param bindables the values to bind to the slots of the statement
+     *                  (might be null if the statement has no slots)
+     */
+    protected CompiledStatement(String sql, List<Object> bindables) {
+        mSql = sql;
+        mFingerprint = Fingerprint.of(sql);
+        mBindables = bindables == null ? new Object[0] : bindables.toArray();
+        mBindColumns = new Column<?>[mBindables.length];
+        mBindPlan = createBindPlan(mBindables, mBindColumns);
+    }
+
+    /**
+     * Creates a compiled statement for the given sql string and the bind
+     * values, and their columns, of the given bindable.
+     * <p>
+     * The sql string must be the one rendered by the bindable, whose
+     * fingerprint is adopted by this statement.
+     * @param sql the sql string
+     * @param bindable the bindable that provides the values to bind to
+     *                 the slots of the statement
+     */
+    protected CompiledStatement(String sql, SqlBindable bindable) {
+        List<Object> bindables = new ArrayList<>();
+        List<Column<?>> columns = new ArrayList<>();
+
+        bindable.collectBindableObjects(new BindableSink<RuntimeException>() {
+            @Override
+            public void accept(Object o) {
+                accept(o, null);
+            }
+
+            @Override
+            public void accept(Object o, Column<?> column) {
+                bindables.add(o);
+                columns.add(column);
+            }
+        });
+
+        mSql = sql;
+        mFingerprint = Fingerprint.of(bindable);
+        mBindables = bindables.toArray();
+        mBindColumns = columns.toArray(new Column<?>[0]);
+        mBindPlan = createBindPlan(mBindables, mBindColumns);
+    }
+
+    /**
+     * Creates a compiled statement which shares the sql string and the
+     * slots layout of the given one but binds different values.
+     * @param template the compiled statement to share the sql string with
+     * @param bindables the values to bind to the slots of the statement
+     */
+    protected CompiledStatement(CompiledStatement template, Object[] bindables) {
+        if (bindables == null || bindables.length != template.getBindCount())
+            throw new IllegalArgumentException(
+                "The compiled statement requires exactly " + template.getBindCount() +
+                " values to bind, " + (bindables == null ? 0 : bindables.length) + " provided");
+
+        mSql = template.mSql;
+        mFingerprint = template.mFingerprint;
+        mBindables = bindables.clone();
+        mBindColumns = template.mBindColumns;
+        mBindPlan = template.mBindPlan;
+    }
+
+    /**
+     * Returns the number of slots of this statement.
+     * @return the number of values that must be bound to this statement
+     */
+    public int getBindCount() {
+        return mBindables.length;
+    }
+
+    /**
+     * Returns the columns of the slots of this statement.
+     * @return the column of each slot, in slot order; an element is null
+     *         if the column of the slot is unknown
+     */
+    public List<Column<?>> getBindColumns() {
+        return Collections.unmodifiableList(Arrays.asList(mBindColumns));
+    }
+
+    /**
+     * Binds the values of this statement to the given {@link PreparedStatement}
+     * using the binders planned for the slots.
+     * @param statement the statement to bind
+     * @return the bound statement
+     * @throws SQLException if the values mismatch the prepared statement parameters
+     */
+    public PreparedStatement boundStatement(PreparedStatement statement) throws SQLException {
+        return SqlBuilderInternalUtil.boundStatement(statement, mBindables, mBindPlan);
+    }
+
+    @Override
+    public String toSql() {
+        return mSql;
+    }
+
+    @Override
+    public long fingerprint() {
+        return mFingerprint;
+    }
+
+    @Override
+    public void appendFingerprint(Fingerprint fingerprint) {
+        fingerprint.append(mFingerprint);
+    }
+
+    @Override
+    public CompiledStatement getSnapshot() {
+        // Compiled statements are frozen since their creation
+        return this;
+    }
+
+    @Override
+    public List<Object> getBindableObjects() {
+        return Collections.unmodifiableList(Arrays.asList(mBindables));
+    }
+
+    @Override
+    public <E extends Exception> void collectBindableObjects(BindableSink<E> sink) throws E {
+        for (int i = 0; i < mBindables.length; i++)
+            sink.accept(mBindables[i], mBindColumns[i]);
+    }
+
+    /**
+     * Plans the binders for the given slots.
+     * <p>
+     * The binder of each slot is planned for the class of the value
+     * the slot has at compile time and for the type of the slot's column.
+     * @param bindables the values of the slots
+     * @param columns the columns of the slots
+     * @return the binders of the slots
+     */
+    private static ParameterBinder[] createBindPlan(Object[] bindables, Column<?>[] columns) {
+        ParameterBinder[] plan = new ParameterBinder[bindables.length];
+        for (int i = 0; i < bindables.length; i++)
+            plan[i] = ParameterBinders.plan(
+                bindables[i] != null ? bindables[i].getClass() : null,
+                columns[i] != null ? columns[i].getType() : null);
+        return plan;
+    }
+}
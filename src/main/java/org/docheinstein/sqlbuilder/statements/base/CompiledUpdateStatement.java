@@ -0,0 +1,307 @@
+package org.docheinstein.sqlbuilder.statements.base;
+
+import org.docheinstein.sqlbuilder.SqlBindable;
+import org.docheinstein.sqlbuilder.commons.SqlBuilderInternalUtil;
+import org.docheinstein.sqlbuilder.commons.SqlBuilderLogger;
+import org.docheinstein.sqlbuilder.metrics.SqlBuilderMetrics;
+import org.docheinstein.sqlbuilder.models.Column;
+import org.docheinstein.sqlbuilder.models.Tuple;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Represents a compiled update statement.
+ *
+ * <p>
+ *
+ * e.g.
+ *
+ * <pre>
+ * CompiledUpdateStatement rename = PERSON_TABLE.update()
+ *     .set(NAME, "")
+ *     .where(ID.eq(0))
+ *     .compile();
+ *
+ * // Only bind and execute
+ * rename.bind("John", 1).exec(connection);
+ *
+ * // Execute in batches of 500 rows
+ * List&lt;Object[]&gt; rows = ...;
+ * rename.execBatch(connection, rows, 500);
+ * </pre>
+ *
+ * @see CompiledStatement
+ */
+public class CompiledUpdateStatement extends CompiledStatement implements UpdateStatement {
+
+    /** The default number of rows sent to the database with a single batch. */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    /** The names of the tables affected by this statement, or null if unknown. */
+    private final Set<String> mAffectedTables;
+
+    /**
+     * Creates a compiled update statement for the given sql string and bind values.
+     * @param sql the sql string
+     * @param bindables the values to bind to the slots of the statement
+     */
+    public CompiledUpdateStatement(String sql, List<Object> bindables) {
+        super(sql, bindables);
+        mAffectedTables = null;
+    }
+
+    /**
+     * Creates a compiled update statement for the given sql string and
+     * the bind values of the given bindable.
+     * @param sql the sql string
+     * @param bindable the bindable that provides the values to bind to
+     *                 the slots of the statement
+     */
+    public CompiledUpdateStatement(String sql, SqlBindable bindable) {
+        super(sql, bindable);
+        mAffectedTables = bindable instanceof UpdateStatement ?
+            ((UpdateStatement) bindable).getAffectedTables() : null;
+    }
+
+    /**
+     * Creates a compiled update statement which shares the sql string
+     * of the given one but binds different values.
+     * @param template the compiled statement to share the sql string with
+     * @param bindables the values to bind to the slots of the statement
+     */
+    protected CompiledUpdateStatement(CompiledUpdateStatement template, Object[] bindables) {
+        super(template, bindables);
+        mAffectedTables = template.mAffectedTables;
+    }
+
+    /**
+     * Returns a compiled update statement which shares the sql string of
+     * this statement but binds the given values.
+     * @param values the values to bind, in slot order; the number of values
+     *               must be equal to {@link #getBindCount()}
+     * @return a compiled update statement bound to the given values
+     */
+    public CompiledUpdateStatement bind(Object... values) {
+        return new CompiledUpdateStatement(this, values);
+    }
+
+    @Override
+    public CompiledUpdateStatement compile() {
+        return this;
+    }
+
+    @Override
+    public Set<String> getAffectedTables() {
+        return mAffectedTables;
+    }
+
+    // ---- BATCH ----
+
+    /**
+     * Executes this statement once for each of the given rows using
+     * JDBC batches of {@link #DEFAULT_BATCH_SIZE} rows.
+     * @param connection the connection
+     * @param rows the values to bind for each execution, in slot order
+     * @return the update counts of each executed batch
+     * @throws SQLException if the execution of a batch fails
+     * @see #execBatch(Connection, Iterable, int)
+     */
+    public List<int[]> execBatch(Connection connection,
+                                 Iterable<Object[]> rows) throws SQLException {
+        return execBatch(connection, rows, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Executes this statement once for each of the given rows using
+     * JDBC batches: the values of each row are bound and added to the
+     * current batch, which is sent to the database every time it
+     * contains batchSize rows.
+     * <p>
+     * The binders planned for the slots of this statement are reused
+     * for every row.
+     * @param connection the connection
+     * @param rows the values to bind for each execution, in slot order;
+     *             the number of values of each row must be equal to
+     *             {@link #getBindCount()}
+     * @param batchSize the maximum number of rows of a batch
+     * @return the update counts of each executed batch, as returned by
+     *         {@link PreparedStatement#executeBatch()}
+     * @throws SQLException if the execution of a batch fails
+     */
+    public List<int[]> execBatch(Connection connection, Iterable<Object[]> rows,
+                                 int batchSize) throws SQLException {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("The batch size must be positive");
+
+        List<int[]> results = new ArrayList<>();
+
+        if (connection == null || rows == null)
+            return results;
+
+        PreparedStatement statement = SqlBuilderInternalUtil.getStatement(connection, this, false);
+
+        int batchRows = 0;
+
+        try {
+            for (Object[] row : rows) {
+                if (row == null || row.length != getBindCount())
+                    throw new IllegalArgumentException(
+                        "The compiled statement requires exactly " + getBindCount() +
+                        " values to bind, " + (row == null ? 0 : row.length) + " provided");
+
+                SqlBuilderInternalUtil.boundStatement(statement, row, mBindPlan);
+                statement.addBatch();
+
+                if (++batchRows == batchSize) {
+                    results.add(executeBatch(statement, batchRows));
+                    batchRows = 0;
+                }
+            }
+
+            if (batchRows > 0)
+                results.add(executeBatch(statement, batchRows));
+        } catch (SQLException | RuntimeException e) {
+            // The statement might be cached, don't leave pending rows on it
+            statement.clearBatch();
+            throw e;
+        } finally {
+            SqlBuilderInternalUtil.invalidateQueryResults(connection, mAffectedTables);
+        }
+
+        return results;
+    }
+
+    /**
+     * Executes this statement once for each of the given tuples using
+     * JDBC batches of {@link #DEFAULT_BATCH_SIZE} rows.
+     * @param connection the connection
+     * @param tuples the tuples whose values have to be bound for each execution
+     * @return the update counts of each executed batch
+     * @throws SQLException if the execution of a batch fails
+     * @see #execBatchFromTuples(Connection, Iterable, int)
+     */
+    public List<int[]> execBatchFromTuples(Connection connection,
+                                           Iterable<? extends Tuple> tuples)
+        throws SQLException {
+        return execBatchFromTuples(connection, tuples, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Executes this statement once for each of the given tuples using
+     * JDBC batches.
+     * <p>
+     * The value bound to each slot is the value of the tuple's field annotated
+     * with the column of the slot, thus every slot of this statement must have
+     * a known column (e.g. the values of an INSERT or the SET pairs of an UPDATE).
+     * The tuples must be of the same type.
+     * @param connection the connection
+     * @param tuples the tuples whose values have to be bound for each execution
+     * @param batchSize the maximum number of rows of a batch
+     * @return the update counts of each executed batch
+     * @throws SQLException if the execution of a batch fails
+     * @see #execBatch(Connection, Iterable, int)
+     */
+    public List<int[]> execBatchFromTuples(Connection connection,
+                                           Iterable<? extends Tuple> tuples,
+                                           int batchSize) throws SQLException {
+        if (tuples == null)
+            return new ArrayList<>();
+
+        Iterator<? extends Tuple> tupleIterator = tuples.iterator();
+
+        return execBatch(connection, () -> new Iterator<Object[]>() {
+
+            private Field[] mFields;
+
+            @Override
+            public boolean hasNext() {
+                return tupleIterator.hasNext();
+            }
+
+            @Override
+            public Object[] next() {
+                Tuple tuple = tupleIterator.next();
+
+                // Resolves the fields of the slots with the first tuple
+                if (mFields == null)
+                    mFields = getSlotFields(tuple.getClass());
+
+                Object[] row = new Object[mFields.length];
+
+                for (int i = 0; i < mFields.length; i++) {
+                    try {
+                        row[i] = mFields[i].get(tuple);
+                    } catch (IllegalAccessException e) {
+                        throw new RuntimeException("Error while trying to access instance of class "
+                            + tuple.getClass().getSimpleName());
+                    }
+                }
+
+                return row;
+            }
+        }, batchSize);
+    }
+
+    /**
+     * Executes the current batch of the given statement.
+     * @param statement the statement
+     * @param batchRows the number of rows of the batch
+     * @return the update counts of the batch
+     * @throws SQLException if the execution of the batch fails
+     */
+    private static int[] executeBatch(PreparedStatement statement,
+                                      int batchRows) throws SQLException {
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> "Executing batch of " + batchRows + " rows | stmt = " +
+                Integer.toHexString(statement.hashCode()));
+
+        long start = SqlBuilderInternalUtil.startMeasure();
+        int[] results = statement.executeBatch();
+        SqlBuilderInternalUtil.recordLatency(statement, SqlBuilderMetrics.Phase.Execute, start);
+        return results;
+    }
+
+    /**
+     * Returns the fields of the given tuple class annotated with the
+     * columns of the slots of this statement.
+     * @param clazz the tuple class
+     * @return the field of each slot, in slot order
+     */
+    private Field[] getSlotFields(Class<? extends Tuple> clazz) {
+        Map<String, Field> columnFieldMap;
+
+        try {
+            columnFieldMap = SqlBuilderInternalUtil.getColumnFields(clazz);
+        } catch (IllegalAccessException | InstantiationException e) {
+            e.printStackTrace();
+            throw new RuntimeException(
+                "Error while trying to access column field of class " +
+                    clazz.getName() + ". (The class must have a default constructor)");
+        }
+
+        Field[] fields = new Field[mBindColumns.length];
+
+        for (int i = 0; i < mBindColumns.length; i++) {
+            Column<?> column = mBindColumns[i];
+            if (column == null)
+                throw new RuntimeException("The " + (i + 1) + "° value of the " +
+                    "compiled statement isn't associated with a column");
+
+            fields[i] = columnFieldMap.get(column.getName());
+            if (fields[i] == null)
+                throw new RuntimeException("The tuple of class " +
+                    clazz.getSimpleName() +
+                    " doesn't have an annotation for column " + column.getName());
+        }
+
+        return fields;
+    }
+}
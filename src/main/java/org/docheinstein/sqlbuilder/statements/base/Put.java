@@ -1,25 +1,53 @@
 package org.docheinstein.sqlbuilder.statements.base;
 
+import org.docheinstein.sqlbuilder.commons.Fingerprint;
 import org.docheinstein.sqlbuilder.commons.SqlBuilderInternalUtil;
 import org.docheinstein.sqlbuilder.models.Column;
 import org.docheinstein.sqlbuilder.models.Table;
 import org.docheinstein.sqlbuilder.models.Tuple;
 
 import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents an generic statement that puts data into the
  * database (INSERT, REPLACE).
+ * <p>
+ * When executed, a statement with many values is split into chunks
+ * of rows which respect the limits set via {@link #maxParameters(int)}
+ * and {@link #maxBytes(long)}; the chunks are executed within a single
+ * transaction.
  */
 public abstract class Put<T extends Put<T>> implements UpdateStatement {
 
+    /**
+     * Default maximum number of parameters of a single executed statement
+     * (i.e. the bind parameters limit of PostgreSQL).
+     */
+    public static final int DEFAULT_MAX_PARAMETERS = 65535;
+
+    /**
+     * Default maximum estimated size in bytes of the values of a single
+     * executed statement (i.e. the default max_allowed_packet of MySQL 5.x).
+     */
+    public static final long DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+
     /** Table this statements affect. */
     protected Table mTable;
 
+    /** Maximum number of parameters of an executed chunk. */
+    private int mMaxParameters = DEFAULT_MAX_PARAMETERS;
+
+    /** Maximum estimated size in bytes of the values of an executed chunk. */
+    private long mMaxBytes = DEFAULT_MAX_BYTES;
+
     /**
      * Values to insert into the table.
      * <p>
@@ -28,6 +56,15 @@ public abstract class Put<T extends Put<T>> implements UpdateStatement {
      **/
     protected List<List<Object>> mValuesList = new ArrayList<>();
 
+    /** The snapshot taken by {@link #freeze()}, null until this statement is frozen. */
+    private volatile CompiledUpdateStatement mSnapshot;
+
+    /** The fingerprint of this statement, memoized by {@link #freeze()}. */
+    private long mFrozenFingerprint;
+
+    /** The chunks of the rows of this statement, memoized by {@link #freeze()}. */
+    private List<List<List<Object>>> mFrozenChunks;
+
     /**
      * Creates a put statement for the given table.
      * @param table the table on which put data
@@ -51,10 +88,43 @@ public abstract class Put<T extends Put<T>> implements UpdateStatement {
      * @return this statement
      */
     public T values(List<Object> values) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
         mValuesList.add(values);
         return getThis();
     }
 
+    /**
+     * Sets the maximum number of parameters of a single executed statement:
+     * if the values of this statement exceed it, this statement is executed
+     * in more chunks of rows.
+     * <p>
+     * The default is {@link #DEFAULT_MAX_PARAMETERS}.
+     * @param maxParameters the maximum number of parameters, a non positive
+     *                      value disables the limit
+     * @return this statement
+     */
+    public T maxParameters(int maxParameters) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
+        mMaxParameters = maxParameters;
+        return getThis();
+    }
+
+    /**
+     * Sets the maximum estimated size in bytes of the values of a single
+     * executed statement: if the values of this statement exceed it, this
+     * statement is executed in more chunks of rows.
+     * <p>
+     * The default is {@link #DEFAULT_MAX_BYTES}.
+     * @param maxBytes the maximum size in bytes, a non positive value
+     *                 disables the limit
+     * @return this statement
+     */
+    public T maxBytes(long maxBytes) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
+        mMaxBytes = maxBytes;
+        return getThis();
+    }
+
     /**
      * Adds the values of each tuple to the list of values to put into the table.
      * @param tuples a list of tuples to put into the table
@@ -113,6 +183,430 @@ public abstract class Put<T extends Put<T>> implements UpdateStatement {
         return getThis();
     }
 
+    /**
+     * Executes this statement over the specified connection.
+     * <p>
+     * If the values of this statement exceed the maximum number of parameters
+     * or the maximum size of a statement, the rows are split into chunks which
+     * are executed within a single transaction (unless the connection is
+     * already within a transaction, which is left to the caller).
+     * @param connection the connection
+     * @param returnLastInsertedId true for return the key of the last affected row
+     *                             false for return the number of affected rows
+     * @return the number of affected rows or the key of the last affected row
+     * @throws SQLException if the statement execution fails
+     */
+    @Override
+    public int exec(Connection connection, boolean returnLastInsertedId) throws SQLException {
+        if (connection == null)
+            return 0;
+
+        List<List<List<Object>>> chunks =
+            mSnapshot != null ? mFrozenChunks : splitIntoChunks(mValuesList);
+
+        if (chunks.size() <= 1)
+            return UpdateStatement.super.exec(connection, returnLastInsertedId);
+
+        return execChunks(connection, returnLastInsertedId, chunks);
+    }
+
+    /**
+     * Returns a statement that puts only the given rows, with the section
+     * that precedes the VALUES section of this statement (e.g. INSERT INTO User).
+     * <p>
+     * This allows to execute the rows of this statement separately
+     * (e.g. over the shard each row belongs to); the rows are split into
+     * chunks as the ones of this statement.
+     * @param valuesList the rows, typically a subset of {@link #getValuesList()}
+     * @return the statement that puts the given rows
+     */
+    public UpdateStatement subset(List<List<Object>> valuesList) {
+        return new Chunk(valuesList, true);
+    }
+
+    /**
+     * Executes the given chunks of rows over the specified connection, within
+     * a single transaction unless the connection is already within one.
+     * @param connection the connection
+     * @param returnLastInsertedId true for return the key of the last affected row
+     *                             false for return the number of affected rows
+     * @param chunks the chunks of rows
+     * @return the number of affected rows or the key of the last affected row
+     * @throws SQLException if the execution of a chunk fails
+     */
+    private int execChunks(Connection connection, boolean returnLastInsertedId,
+                           List<List<List<Object>>> chunks) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+
+        if (autoCommit)
+            connection.setAutoCommit(false);
+
+        Exception failure = null;
+
+        try {
+            int execRes = 0;
+
+            for (List<List<Object>> chunk : chunks) {
+                int chunkRes = new Chunk(chunk, false).exec(connection, returnLastInsertedId);
+                execRes = returnLastInsertedId ? chunkRes : execRes + chunkRes;
+            }
+
+            if (autoCommit)
+                connection.commit();
+
+            return execRes;
+        } catch (SQLException | RuntimeException e) {
+            failure = e;
+
+            // A failure of the rollback must not hide the one of the chunk
+            if (autoCommit) {
+                try {
+                    connection.rollback();
+                } catch (SQLException | RuntimeException rollbackException) {
+                    e.addSuppressed(rollbackException);
+                }
+            }
+
+            throw e;
+        } finally {
+            if (autoCommit) {
+                try {
+                    connection.setAutoCommit(true);
+                } catch (SQLException | RuntimeException restoreException) {
+                    if (failure == null)
+                        throw restoreException;
+                    failure.addSuppressed(restoreException);
+                } finally {
+                    // The rows of the chunks are visible to the other connections
+                    // only now, the tables can be cached again
+                    SqlBuilderInternalUtil.endTransaction(connection);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void appendSql(StringBuilder sql) {
+        appendIntoSection(sql);
+        sql.append(" VALUES ");
+
+        // VALUES
+        appendValuesSection(sql, mValuesList);
+    }
+
+    @Override
+    public void appendFingerprint(Fingerprint fingerprint) {
+        appendIntoFingerprint(fingerprint);
+        appendValuesFingerprint(fingerprint, mValuesList);
+    }
+
+    @Override
+    public List<Object> getBindableObjects() {
+        CompiledUpdateStatement snapshot = mSnapshot;
+        if (snapshot != null)
+            return snapshot.getBindableObjects();
+
+        List<Object> bindables = new ArrayList<>();
+        mValuesList.forEach(bindables::addAll);
+        return bindables;
+    }
+
+    @Override
+    public <E extends Exception> void collectBindableObjects(BindableSink<E> sink) throws E {
+        CompiledUpdateStatement snapshot = mSnapshot;
+        if (snapshot != null) {
+            snapshot.collectBindableObjects(sink);
+            return;
+        }
+
+        collectBindableObjects(sink, mValuesList);
+    }
+
+    // ---- FREEZE ----
+
+    /**
+     * Freezes this statement: from now on it can't be modified anymore
+     * (its setters throw an {@link IllegalStateException}) and it can be
+     * shared across threads.
+     * <p>
+     * The rows of the statement are copied, so that later changes to the
+     * lists they have been provided with don't affect the statement.
+     * The sql string, the fingerprint, the bind layout and the chunks of
+     * the statement are computed once here.
+     * @return this statement
+     */
+    public T freeze() {
+        if (mSnapshot != null)
+            return getThis();
+
+        List<List<Object>> valuesList = new ArrayList<>(mValuesList.size());
+        for (List<Object> values : mValuesList)
+            valuesList.add(Collections.unmodifiableList(new ArrayList<>(values)));
+
+        mValuesList = Collections.unmodifiableList(valuesList);
+        mFrozenChunks = splitIntoChunks(mValuesList);
+        mFrozenFingerprint = UpdateStatement.super.fingerprint();
+        mSnapshot = UpdateStatement.super.compile();
+
+        return getThis();
+    }
+
+    @Override
+    public CompiledUpdateStatement getSnapshot() {
+        return mSnapshot;
+    }
+
+    @Override
+    public CompiledUpdateStatement compile() {
+        CompiledUpdateStatement snapshot = mSnapshot;
+        return snapshot != null ? snapshot : UpdateStatement.super.compile();
+    }
+
+    @Override
+    public long fingerprint() {
+        return mSnapshot != null ? mFrozenFingerprint : UpdateStatement.super.fingerprint();
+    }
+
+    /**
+     * Appends the section of this statement that precedes the VALUES
+     * section to the given builder.
+     * <p>
+     * e.g. INSERT INTO User
+     * @param sql the builder
+     */
+    protected abstract void appendIntoSection(StringBuilder sql);
+
+    /**
+     * Appends the fingerprint of the section of this statement that precedes
+     * the VALUES section to the given one.
+     * <p>
+     * The default implementation appends the rendered section; subclasses
+     * should override this method together with
+     * {@link #appendIntoSection(StringBuilder)}.
+     * @param fingerprint the fingerprint
+     */
+    protected void appendIntoFingerprint(Fingerprint fingerprint) {
+        StringBuilder sql = new StringBuilder();
+        appendIntoSection(sql);
+        fingerprint.append(sql);
+    }
+
+    /**
+     * Appends the fingerprint of the VALUES section for the given rows to
+     * the given one, i.e. the number of values of each row.
+     * @param fingerprint the fingerprint
+     * @param valuesList the rows
+     */
+    protected void appendValuesFingerprint(Fingerprint fingerprint,
+                                           List<List<Object>> valuesList) {
+        fingerprint.append(valuesList.size());
+        for (List<Object> valueList : valuesList)
+            fingerprint.append(valueList.size());
+    }
+
+    /**
+     * Appends the VALUES section for the given rows to the given builder.
+     * <p>
+     * e.g. (?, ?, ?), (?, ?, ?)
+     * @param sql the builder
+     * @param valuesList the rows
+     */
+    protected void appendValuesSection(StringBuilder sql, List<List<Object>> valuesList) {
+        SqlBuilderInternalUtil.appendCommaList(sql, valuesList, (valueList, s) -> {
+            s.append('(');
+            for (int i = 0; i < valueList.size(); i++)
+                s.append(i == 0 ? "?" : ", ?");
+            s.append(')');
+        });
+    }
+
+    /**
+     * Passes the values of the given rows to the given sink.
+     * @param sink the sink
+     * @param valuesList the rows
+     * @param <E> the type of the exception the sink might throw
+     * @throws E if the sink fails
+     */
+    private <E extends Exception> void collectBindableObjects(
+        BindableSink<E> sink, List<List<Object>> valuesList) throws E {
+
+        List<Column> columns = mTable.getColumns();
+
+        for (List<Object> values : valuesList) {
+            // The values are bound to the table's columns only
+            // if they are actually one per column
+            boolean onePerColumn = values.size() == columns.size();
+
+            for (int i = 0; i < values.size(); i++)
+                sink.accept(values.get(i), onePerColumn ? columns.get(i) : null);
+        }
+    }
+
+    // ---- CHUNKS ----
+
+    /**
+     * Splits the given rows into chunks that respect the maximum number
+     * of parameters and the maximum size of a statement.
+     * <p>
+     * The chunks are filled greedily, thus every chunk but the last
+     * usually has the same number of rows (and therefore the same sql
+     * string, whose prepared statement is reused).
+     * A row that alone exceeds the limits makes up its own chunk.
+     * @param valuesList the rows
+     * @return the chunks of rows
+     */
+    private List<List<List<Object>>> splitIntoChunks(List<List<Object>> valuesList) {
+        List<List<List<Object>>> chunks = new ArrayList<>();
+
+        int chunkStart = 0;
+        int chunkParameters = 0;
+        long chunkBytes = 0;
+
+        for (int r = 0; r < valuesList.size(); r++) {
+            List<Object> values = valuesList.get(r);
+
+            int rowParameters = values.size();
+            long rowBytes = 0;
+            for (Object value : values)
+                rowBytes += estimateSize(value);
+
+            boolean exceeds =
+                (mMaxParameters > 0 && chunkParameters + rowParameters > mMaxParameters) ||
+                (mMaxBytes > 0 && chunkBytes + rowBytes > mMaxBytes);
+
+            if (exceeds && r > chunkStart) {
+                chunks.add(valuesList.subList(chunkStart, r));
+                chunkStart = r;
+                chunkParameters = 0;
+                chunkBytes = 0;
+            }
+
+            chunkParameters += rowParameters;
+            chunkBytes += rowBytes;
+        }
+
+        if (chunkStart < valuesList.size())
+            chunks.add(valuesList.subList(chunkStart, valuesList.size()));
+
+        return chunks;
+    }
+
+    /**
+     * Estimates the size in bytes that the given value takes within a statement.
+     * <p>
+     * Strings are assumed to take the maximum UTF-8 size of their characters.
+     * @param value the value
+     * @return the estimated size of the value
+     */
+    private static long estimateSize(Object value) {
+        if (value instanceof CharSequence)
+            return 3L * ((CharSequence) value).length();
+        if (value instanceof byte[])
+            return ((byte[]) value).length;
+        return 8;
+    }
+
+    /**
+     * Statement that puts a chunk (or a subset) of the rows of this statement.
+     */
+    private class Chunk implements UpdateStatement {
+
+        /** The rows of the chunk. */
+        private final List<List<Object>> mChunkValuesList;
+
+        /**
+         * Whether the rows might exceed the limits and must be split
+         * before being executed (false if they already are a chunk).
+         */
+        private final boolean mSplit;
+
+        /**
+         * Creates a statement for the given rows.
+         * @param valuesList the rows of the chunk
+         * @param split true if the rows must be split into chunks before
+         *              being executed, false if they already are a chunk
+         */
+        Chunk(List<List<Object>> valuesList, boolean split) {
+            mChunkValuesList = valuesList;
+            mSplit = split;
+        }
+
+        @Override
+        public int exec(Connection connection, boolean returnLastInsertedId) throws SQLException {
+            if (connection == null)
+                return 0;
+
+            if (!mSplit)
+                return UpdateStatement.super.exec(connection, returnLastInsertedId);
+
+            // A subset of the rows might exceed the limits too
+            List<List<List<Object>>> chunks = splitIntoChunks(mChunkValuesList);
+
+            if (chunks.size() <= 1)
+                return UpdateStatement.super.exec(connection, returnLastInsertedId);
+
+            return execChunks(connection, returnLastInsertedId, chunks);
+        }
+
+        @Override
+        public String toSql() {
+            StringBuilder sql = new StringBuilder();
+            appendSql(sql);
+            return sql.toString();
+        }
+
+        @Override
+        public void appendSql(StringBuilder sql) {
+            appendIntoSection(sql);
+            sql.append(" VALUES ");
+            appendValuesSection(sql, mChunkValuesList);
+        }
+
+        @Override
+        public void appendFingerprint(Fingerprint fingerprint) {
+            appendIntoFingerprint(fingerprint);
+            appendValuesFingerprint(fingerprint, mChunkValuesList);
+        }
+
+        @Override
+        public List<Object> getBindableObjects() {
+            List<Object> bindables = new ArrayList<>();
+            mChunkValuesList.forEach(bindables::addAll);
+            return bindables;
+        }
+
+        @Override
+        public <E extends Exception> void collectBindableObjects(BindableSink<E> sink) throws E {
+            Put.this.collectBindableObjects(sink, mChunkValuesList);
+        }
+
+        @Override
+        public Set<String> getAffectedTables() {
+            return Put.this.getAffectedTables();
+        }
+    }
+
+    /**
+     * Returns the table of this statement.
+     * @return the table
+     */
+    public Table getTable() {
+        return mTable;
+    }
+
+    @Override
+    public Set<String> getAffectedTables() {
+        return Collections.singleton(mTable.getName());
+    }
+
+    /**
+     * Returns the values to put into the table.
+     * @return the list of the values of each tuple
+     */
+    public List<List<Object>> getValuesList() {
+        return Collections.unmodifiableList(mValuesList);
+    }
+
     // Needed for (inheritance + generics) \ Warnings
 
     /**
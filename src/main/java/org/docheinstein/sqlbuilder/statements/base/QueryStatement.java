@@ -1,18 +1,27 @@
 package org.docheinstein.sqlbuilder.statements.base;
 
-import org.docheinstein.sqlbuilder.commons.SqlBuilderLogger;
+import org.docheinstein.sqlbuilder.commons.FetchOptions;
 import org.docheinstein.sqlbuilder.commons.SqlBuilderInternalUtil;
+import org.docheinstein.sqlbuilder.commons.TupleIterator;
+import org.docheinstein.sqlbuilder.commons.TupleMapper;
+import org.docheinstein.sqlbuilder.metrics.SqlBuilderMetrics;
 import org.docheinstein.sqlbuilder.models.Column;
 import org.docheinstein.sqlbuilder.models.Tuple;
 
-import java.lang.reflect.Field;
+import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Represents a query statement (actually only the SELECT is a query statement)
@@ -36,10 +45,11 @@ public interface QueryStatement extends Statement {
         if (connection == null)
             return null;
 
-        return SqlBuilderInternalUtil.boundStatement(
-            SqlBuilderInternalUtil.getStatement(
-                connection, toSql()), getBindableObjects()
-        ).executeQuery();
+        return SqlBuilderInternalUtil.executeQuery(
+            SqlBuilderInternalUtil.boundStatement(
+                SqlBuilderInternalUtil.getStatement(connection, this, getFetchOptions()), this
+            )
+        );
     }
 
     /**
@@ -132,9 +142,186 @@ public interface QueryStatement extends Statement {
         forEachInternal(clazz, resultSetConsumer, execCache(connection, identifier));
     }
 
+    /**
+     * Asynchronously retrieves the tuples that satisfy this query over a
+     * connection acquired from the given data source, using the executor
+     * of {@link org.docheinstein.sqlbuilder.commons.SqlBuilder#getExecutor()}.
+     * @param dataSource the data source that provides the connection
+     * @param clazz the class of the tuples to retrieve
+     * @param <T> the type of the tuples to retrieve
+     * @return a future completed with the tuples that satisfy this query
+     *
+     * @see #fetchAsync(DataSource, Class, Executor)
+     */
+    default <T extends Tuple> CompletableFuture<List<T>> fetchAsync(DataSource dataSource,
+                                                                   Class<T> clazz) {
+        return fetchAsync(dataSource, clazz, null);
+    }
+
+    /**
+     * Asynchronously retrieves the tuples that satisfy this query over a
+     * connection acquired from the given data source.
+     * <p>
+     * The connection is acquired when the execution starts and it's closed
+     * once the tuples have been retrieved.
+     * @param dataSource the data source that provides the connection
+     * @param clazz the class of the tuples to retrieve
+     * @param executor the executor that runs the query, or null for
+     *                 {@link org.docheinstein.sqlbuilder.commons.SqlBuilder#getExecutor()}
+     * @param <T> the type of the tuples to retrieve
+     * @return a future completed with the tuples that satisfy this query,
+     *         or completed exceptionally if the query fails
+     */
+    default <T extends Tuple> CompletableFuture<List<T>> fetchAsync(DataSource dataSource,
+                                                                   Class<T> clazz,
+                                                                   Executor executor) {
+        return SqlBuilderInternalUtil.supplyAsync(
+            dataSource, connection -> fetch(connection, clazz), executor);
+    }
+
+    /**
+     * Returns an iterator over the tuples that satisfy this query.
+     * <p>
+     * The rows are read from the result set only when the next tuple is
+     * requested; the result set is closed once the rows are exhausted or
+     * when the iterator is closed, which must be done if the iteration
+     * is interrupted.
+     * <p>
+     * The rows are read from a statement dedicated to the iterator, which
+     * is not cached and is closed together with the result set: executing
+     * this query again over the same connection while iterating doesn't
+     * affect the iteration.
+     * @param connection the connection
+     * @param clazz the class of the tuples to retrieve
+     * @param <T> the type of the tuples to retrieve
+     * @return an iterator over the tuples that satisfy this query
+     * @throws SQLException if the query fails
+     */
+    default <T extends Tuple> TupleIterator<T> iterator(Connection connection, Class<T> clazz)
+        throws SQLException {
+        if (connection == null)
+            return new TupleIterator<>(clazz, getColumns(), null);
+
+        return iteratorInternal(clazz,
+            SqlBuilderInternalUtil.createStatement(connection, this, getFetchOptions()));
+    }
 
     /**
-     * Performs an action for each tuple of the given result set
+     * Returns an iterator over the tuples that satisfy this query using the
+     * previously cached sql string associated with the given identifier if
+     * it exists or building it if it doesn't.
+     * <p>
+     * As for {@link #iterator(Connection, Class)}, the statement is dedicated
+     * to the iterator and it's not cached.
+     * @param connection the connection
+     * @param clazz the class of the tuples to retrieve
+     * @param identifier the cache identifier of this statement
+     * @param <T> the type of the tuples to retrieve
+     * @return an iterator over the tuples that satisfy this query
+     * @throws SQLException if the query fails
+     * @see #iterator(Connection, Class)
+     */
+    default <T extends Tuple> TupleIterator<T> iteratorCache(Connection connection, Class<T> clazz,
+                                                             int identifier) throws SQLException {
+        if (connection == null)
+            return new TupleIterator<>(clazz, getColumns(), null);
+
+        return iteratorInternal(clazz,
+            SqlBuilderInternalUtil.createStatement(connection, this, identifier));
+    }
+
+    /**
+     * Executes the given statement dedicated to an iterator and returns
+     * an iterator over its tuples, which closes the statement when
+     * it's closed.
+     * <p>
+     * The statement is closed immediately if the execution fails.
+     * @param clazz the class of the tuples to retrieve
+     * @param statement the dedicated statement of this query
+     * @param <T> the type of the tuples to retrieve
+     * @return an iterator over the tuples that satisfy this query
+     * @throws SQLException if the query fails
+     */
+    default <T extends Tuple> TupleIterator<T> iteratorInternal(Class<T> clazz,
+                                                                PreparedStatement statement)
+        throws SQLException {
+        try {
+            return new TupleIterator<>(clazz, getColumns(),
+                SqlBuilderInternalUtil.executeQuery(
+                    SqlBuilderInternalUtil.boundStatement(statement, this)), true);
+        } catch (SQLException | RuntimeException e) {
+            try {
+                statement.close();
+            } catch (SQLException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a lazily evaluated stream of the tuples that satisfy this query.
+     * <p>
+     * The rows are read from the result set only when the stream pulls them,
+     * thus short-circuiting operations (e.g. findFirst, limit) don't read
+     * the whole result. The result set is closed when the stream is closed,
+     * e.g.
+     *
+     * <pre>
+     * try (Stream&lt;PersonTuple&gt; persons = query.stream(connection, PersonTuple.class)) {
+     *     return persons.filter(p -&gt; p.age &gt; 18).findFirst();
+     * }
+     * </pre>
+     *
+     * Failures that occur while reading the rows are thrown as
+     * {@link org.docheinstein.sqlbuilder.exceptions.UncheckedSQLException}s.
+     * @param connection the connection
+     * @param clazz the class of the tuples to retrieve
+     * @param <T> the type of the tuples to retrieve
+     * @return a stream of the tuples that satisfy this query
+     * @throws SQLException if the query fails
+     * @see #iterator(Connection, Class)
+     */
+    default <T extends Tuple> Stream<T> stream(Connection connection, Class<T> clazz)
+        throws SQLException {
+        return streamInternal(iterator(connection, clazz));
+    }
+
+    /**
+     * Returns a lazily evaluated stream of the tuples that satisfy this query
+     * using the previously cached sql string associated with the given
+     * identifier if it exists or building it if it doesn't.
+     * @param connection the connection
+     * @param clazz the class of the tuples to retrieve
+     * @param identifier the cache identifier of this statement
+     * @param <T> the type of the tuples to retrieve
+     * @return a stream of the tuples that satisfy this query
+     * @throws SQLException if the query fails
+     * @see #stream(Connection, Class)
+     */
+    default <T extends Tuple> Stream<T> streamCache(Connection connection, Class<T> clazz,
+                                                   int identifier) throws SQLException {
+        return streamInternal(iteratorCache(connection, clazz, identifier));
+    }
+
+    /**
+     * Returns a sequential stream over the tuples of the given iterator
+     * which closes the iterator when the stream is closed.
+     * @param iterator the iterator
+     * @param <T> the type of the tuples
+     * @return the stream of the tuples
+     */
+    default <T extends Tuple> Stream<T> streamInternal(TupleIterator<T> iterator) {
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(iterator::close);
+    }
+
+    /**
+     * Performs an action for each tuple of the given result set, which is
+     * closed afterwards, even if the mapping or the consumer fails
+     * (a streaming result set left open would make the connection unusable).
      * @param clazz the class of the tuples on which perform the action
      * @param resultSetConsumer the consumer that performs an action over each tuple
      * @param resultSet the result set from which retrieve the tuples
@@ -145,30 +332,40 @@ public interface QueryStatement extends Statement {
                                                    Consumer<T> resultSetConsumer,
                                                    ResultSet resultSet) throws SQLException {
 
-        try {
-            // Retrieves the map that associated the column to the tuple's fields
-            Map<String, Field> columnFieldMap = SqlBuilderInternalUtil.getColumnFields(clazz);
+        try (ResultSet rs = resultSet) {
+            // The mapper that creates the tuples is resolved once per tuple
+            // class and columns and cached, while the indexes of the columns
+            // are resolved once per result set; both are retrieved only if
+            // there is at least a row to map
+            TupleMapper<T> mapper = null;
+            int[] indexes = null;
+            long rows = 0;
+
+            // Only the mapping of the rows is measured, neither the fetch of
+            // the rows (next) nor the time spent by the consumer
+            boolean measure = SqlBuilderInternalUtil.isMeasuring();
+            long mapNanos = 0;
 
-            // For each row of the result set and for each ColumnField of the tuple
-            // tries to grab the value from the result set of the column
-            // that matches the name of the ColumnField
             while (resultSet.next()) {
-                T t = clazz.newInstance();
-                for (Column column : getColumns()) {
-                    if (!column.isWellDefined())
-                        throw new RuntimeException("Can't fetch a string column, provide a valid one");
-                    String colName = column.getName();
-                    Field field = columnFieldMap.get(colName);
-                    if (field != null) {
-                        Object o = column.getType().getFromResultSet(
-                            resultSet, column.getTableDotName());
-                        String oStr = o != null ? o.toString() : "null";
-                        SqlBuilderLogger.out("Filling field [" + colName + "] with [" + oStr + "]");
-                        field.set(t, o);
-                    }
+                long start = measure ? System.nanoTime() : 0;
+
+                if (mapper == null) {
+                    mapper = SqlBuilderInternalUtil.getTupleMapper(clazz, getColumns());
+                    indexes = mapper.getColumnIndexes(resultSet);
                 }
-                resultSetConsumer.accept(t);
+                T tuple = mapper.map(resultSet, indexes);
+
+                if (measure)
+                    mapNanos += System.nanoTime() - start;
+
+                resultSetConsumer.accept(tuple);
+                rows++;
             }
+
+            if (measure)
+                SqlBuilderInternalUtil.recordDuration(
+                    resultSet.getStatement(), SqlBuilderMetrics.Phase.Map, mapNanos);
+            SqlBuilderInternalUtil.recordRows(resultSet.getStatement(), rows);
         }
         catch (IllegalAccessException | InstantiationException e) {
             e.printStackTrace();
@@ -176,9 +373,33 @@ public interface QueryStatement extends Statement {
         }
     }
 
+    /**
+     * Compiles this query: renders its sql string once and freezes it together
+     * with the layout of its bind slots.
+     * <p>
+     * The returned statement can be executed repeatedly, eventually binding
+     * different values via {@link CompiledQueryStatement#bind(Object...)},
+     * without building the sql string of this query again.
+     * @return the compiled query
+     */
+    default CompiledQueryStatement compile() {
+        return new CompiledQueryStatement(SqlBuilderInternalUtil.render(this), this, getColumns(), getFetchOptions());
+    }
+
     /**
      * Returns the columns this query should work on.
      * @return the columns of this query
      */
     List<Column> getColumns();
+
+    /**
+     * Returns the options of the statement created for this query
+     * (e.g. the fetch size).
+     * <p>
+     * The options are not applied to the statements cached via an identifier.
+     * @return the fetch options of this query
+     */
+    default FetchOptions getFetchOptions() {
+        return FetchOptions.DEFAULT;
+    }
 }
@@ -1,10 +1,51 @@
 package org.docheinstein.sqlbuilder.statements.base;
 
 import org.docheinstein.sqlbuilder.SqlBindable;
+import org.docheinstein.sqlbuilder.commons.Fingerprint;
 
 /**
  * Represents a SQL statement (e.g. SELECT, CREATE TABLE, ...)
  * <p>
  * Actually this is nothing but a {@link SqlBindable}.
  */
-public interface Statement extends SqlBindable {}
+public interface Statement extends SqlBindable {
+
+    /**
+     * Returns the structural fingerprint of this statement, i.e. a hash of
+     * the shape of its sql string which ignores the values bound to it.
+     * <p>
+     * Statements with the same fingerprint render the same sql string, thus
+     * the library uses the fingerprint for identify a statement within its
+     * caches and its metrics, without building the sql string.
+     * @return the fingerprint of this statement
+     * @see Fingerprint
+     */
+    default long fingerprint() {
+        Fingerprint fingerprint = new Fingerprint();
+        appendFingerprint(fingerprint);
+        return fingerprint.get();
+    }
+
+    /**
+     * Returns the compiled snapshot taken when this statement has been
+     * frozen (e.g. with {@link org.docheinstein.sqlbuilder.statements.shared.Select#freeze()}).
+     * <p>
+     * A frozen statement can't be modified anymore, thus it can be shared
+     * across threads: the library renders and binds it through its snapshot,
+     * without walking its structure again.
+     * @return the snapshot of this statement, or null if it isn't frozen
+     */
+    default CompiledStatement getSnapshot() {
+        return null;
+    }
+
+    /**
+     * Returns whether this statement has been frozen, i.e. whether it
+     * can't be modified anymore.
+     * @return whether this statement is frozen
+     * @see #getSnapshot()
+     */
+    default boolean isFrozen() {
+        return getSnapshot() != null;
+    }
+}
@@ -2,10 +2,14 @@ package org.docheinstein.sqlbuilder.statements.base;
 
 import org.docheinstein.sqlbuilder.commons.SqlBuilderInternalUtil;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Represents a generic update statement (DELETE, UPDATE, INSERT, REPLACE)
@@ -37,8 +41,7 @@ public interface UpdateStatement extends Statement {
 
         return execInternal(
             SqlBuilderInternalUtil.boundStatement(
-                SqlBuilderInternalUtil.getStatement(
-                    connection, toSql(), returnLastInsertedId), getBindableObjects()
+                SqlBuilderInternalUtil.getStatement(connection, this, returnLastInsertedId), this
             ), returnLastInsertedId
         );
     }
@@ -79,8 +82,72 @@ public interface UpdateStatement extends Statement {
             ), returnLastInsertedId);
     }
 
+    /**
+     * Asynchronously executes this statement over a connection acquired
+     * from the given data source, using the executor of
+     * {@link org.docheinstein.sqlbuilder.commons.SqlBuilder#getExecutor()}.
+     * @param dataSource the data source that provides the connection
+     * @return a future completed with the number of affected rows
+     *
+     * @see #execAsync(DataSource, boolean, Executor)
+     */
+    default CompletableFuture<Integer> execAsync(DataSource dataSource) {
+        return execAsync(dataSource, false, null);
+    }
+
+    /**
+     * Asynchronously executes this statement over a connection acquired
+     * from the given data source.
+     * <p>
+     * The connection is acquired when the execution starts and it's closed
+     * once the statement has been executed.
+     * @param dataSource the data source that provides the connection
+     * @param returnLastInsertedId true for return the key of the affected row
+     *                             false for return the number of affected rows
+     * @param executor the executor that executes the statement, or null for
+     *                 {@link org.docheinstein.sqlbuilder.commons.SqlBuilder#getExecutor()}
+     * @return a future completed with the number of affected rows or the key
+     *         of the affected row, or completed exceptionally if the
+     *         execution fails
+     */
+    default CompletableFuture<Integer> execAsync(DataSource dataSource,
+                                                 boolean returnLastInsertedId,
+                                                 Executor executor) {
+        return SqlBuilderInternalUtil.supplyAsync(
+            dataSource, connection -> exec(connection, returnLastInsertedId), executor);
+    }
+
+    /**
+     * Compiles this statement: renders its sql string once and freezes it
+     * together with the layout of its bind slots.
+     * <p>
+     * The returned statement can be executed repeatedly, eventually binding
+     * different values via {@link CompiledUpdateStatement#bind(Object...)},
+     * without building the sql string of this statement again.
+     * @return the compiled statement
+     */
+    default CompiledUpdateStatement compile() {
+        return new CompiledUpdateStatement(SqlBuilderInternalUtil.render(this), this);
+    }
+
+    /**
+     * Returns the names of the tables whose rows are modified by this statement.
+     * <p>
+     * The cached results of the queries that read from these tables are
+     * invalidated every time this statement is executed.
+     * @return the names of the affected tables, or null if they are unknown
+     *         (in which case every cached query result is invalidated)
+     */
+    default Set<String> getAffectedTables() {
+        return null;
+    }
+
     /**
      * Executes the given {@link PreparedStatement}.
+     * <p>
+     * The cached results of the queries that read from the tables affected
+     * by this statement are invalidated (see
+     * {@link SqlBuilderInternalUtil#invalidateQueryResults(java.sql.Statement, Set)}).
      * @param preparedStatement the statement
      * @param returnLastInsertedId true for return the key of the affected row
      *                             false for return the number of affected rows
@@ -89,7 +156,13 @@ public interface UpdateStatement extends Statement {
      */
     default int execInternal(PreparedStatement preparedStatement,
                              boolean returnLastInsertedId) throws SQLException {
-        int execRes = preparedStatement.executeUpdate();
+        int execRes;
+
+        try {
+            execRes = SqlBuilderInternalUtil.executeUpdate(preparedStatement);
+        } finally {
+            SqlBuilderInternalUtil.invalidateQueryResults(preparedStatement, getAffectedTables());
+        }
 
         if (!returnLastInsertedId)
             return execRes;
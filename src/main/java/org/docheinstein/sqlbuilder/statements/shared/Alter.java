@@ -56,24 +56,29 @@ public class Alter implements UpdateStatement {
 
     @Override
     public String toSql() {
-        StringBuilder sql = new StringBuilder("ALTER TABLE ");
-        sql.append(mTable.getName());
-        sql.append(" ");
-
-        sql.append(getAddColumnsSection());
-
-        sql.append(SqlBuilderInternalUtil.getAsCommaList(
-            mDropColumns,
-            c -> "DROP COLUMN " + c.getName())
-        );
+        StringBuilder sql = new StringBuilder();
+        appendSql(sql);
 
         String sqlStr = sql.toString();
 
-        SqlBuilderLogger.out("Created [ALTER] SQL {" + sqlStr + "}");
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> "Created [ALTER] SQL {" + sqlStr + "}");
 
         return sqlStr;
     }
 
+    @Override
+    public void appendSql(StringBuilder sql) {
+        sql.append("ALTER TABLE ");
+        sql.append(mTable.getName());
+        sql.append(" ");
+
+        sql.append(getAddColumnsSection());
+
+        SqlBuilderInternalUtil.appendCommaList(sql, mDropColumns,
+            (c, s) -> s.append("DROP COLUMN ").append(c.getName()));
+    }
+
     @Override
     public List<Object> getBindableObjects() {
         List<Object> obs = new ArrayList<>();
@@ -64,7 +64,20 @@ public class Create implements UpdateStatement {
 
     @Override
     public String toSql() {
-        StringBuilder sql = new StringBuilder("CREATE TABLE ");
+        StringBuilder sql = new StringBuilder();
+        appendSql(sql);
+
+        String sqlStr = sql.toString();
+
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> "Created [CREATE TABLE] SQL {" + sqlStr + "}");
+
+        return sqlStr;
+    }
+
+    @Override
+    public void appendSql(StringBuilder sql) {
+        sql.append("CREATE TABLE ");
 
         if (mIfNotExists)
             sql.append("IF NOT EXISTS ");
@@ -73,9 +86,8 @@ public class Create implements UpdateStatement {
         sql.append(" (");
 
         // Columns
-        sql.append(SqlBuilderInternalUtil.getAsCommaList(
-            mTable.getColumns(), Column::getColumnDefinition)
-        );
+        SqlBuilderInternalUtil.appendCommaList(sql, mTable.getColumns(),
+            (c, s) -> s.append(c.getColumnDefinition()));
 
         List<String> primaryKeyCols = mTable.getPrimaryKey();
 
@@ -115,16 +127,10 @@ public class Create implements UpdateStatement {
         Expression checkExpression = mTable.getCheck();
         if (checkExpression != null) {
             sql.append(", CHECK ");
-            sql.append(checkExpression.toSql());
+            checkExpression.appendSql(sql);
         }
 
         sql.append("); ");
-
-        String sqlStr = sql.toString();
-
-        SqlBuilderLogger.out("Created [CREATE TABLE] SQL {" + sqlStr + "}");
-
-        return sqlStr;
     }
 
     @Override
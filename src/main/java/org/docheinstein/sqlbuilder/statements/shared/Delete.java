@@ -1,12 +1,16 @@
 package org.docheinstein.sqlbuilder.statements.shared;
 
+import org.docheinstein.sqlbuilder.commons.Fingerprint;
 import org.docheinstein.sqlbuilder.commons.SqlBuilderLogger;
 import org.docheinstein.sqlbuilder.commons.SqlBuilderInternalUtil;
 import org.docheinstein.sqlbuilder.expressions.Expression;
 import org.docheinstein.sqlbuilder.models.Table;
+import org.docheinstein.sqlbuilder.statements.base.CompiledUpdateStatement;
 import org.docheinstein.sqlbuilder.statements.base.UpdateStatement;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /*
  * DELETE FROM table_name
@@ -24,6 +28,12 @@ public class Delete implements UpdateStatement {
     /** Where expression of this statement. */
     private Expression mWhere;
 
+    /** The snapshot taken by {@link #freeze()}, null until this statement is frozen. */
+    private volatile CompiledUpdateStatement mSnapshot;
+
+    /** The fingerprint of this statement, memoized by {@link #freeze()}. */
+    private long mFrozenFingerprint;
+
     /**
      * Creates a DELETE FROM statement for the given table.
      * @param table the table
@@ -38,26 +48,123 @@ public class Delete implements UpdateStatement {
      * @return this statement
      */
     public Delete where(Expression whereExpression) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
         mWhere = whereExpression;
         return this;
     }
 
+    /**
+     * Freezes this statement: from now on it can't be modified anymore
+     * (its setters throw an {@link IllegalStateException}) and it can be
+     * shared across threads.
+     * <p>
+     * The sql string, the fingerprint and the bind layout of the statement
+     * are computed once here, while its structure is kept for the routers
+     * and the query result cache (see {@link Select#freeze()}).
+     * @return this statement
+     */
+    public Delete freeze() {
+        if (mSnapshot != null)
+            return this;
+
+        if (mWhere != null)
+            mWhere.freeze();
+
+        mFrozenFingerprint = UpdateStatement.super.fingerprint();
+        mSnapshot = UpdateStatement.super.compile();
+
+        return this;
+    }
+
+    @Override
+    public CompiledUpdateStatement getSnapshot() {
+        return mSnapshot;
+    }
+
+    @Override
+    public CompiledUpdateStatement compile() {
+        CompiledUpdateStatement snapshot = mSnapshot;
+        return snapshot != null ? snapshot : UpdateStatement.super.compile();
+    }
+
+    @Override
+    public long fingerprint() {
+        return mSnapshot != null ? mFrozenFingerprint : UpdateStatement.super.fingerprint();
+    }
+
+    /**
+     * Returns the table of this statement.
+     * @return the table
+     */
+    public Table getTable() {
+        return mTable;
+    }
+
+    @Override
+    public Set<String> getAffectedTables() {
+        return Collections.singleton(mTable.getName());
+    }
+
+    /**
+     * Returns the WHERE expression of this statement.
+     * @return the WHERE expression, or null if not set
+     */
+    public Expression getWhere() {
+        return mWhere;
+    }
+
     @Override
     public String toSql() {
-        StringBuilder sql = new StringBuilder("DELETE FROM ");
-        sql.append(mTable.getName());
+        CompiledUpdateStatement snapshot = mSnapshot;
+        if (snapshot != null)
+            return snapshot.toSql();
 
-        // WHERE
-        sql.append(SqlBuilderInternalUtil.getNamedExpressionAsString(mWhere, "WHERE"));
+        StringBuilder sql = new StringBuilder();
+        appendSql(sql);
 
         String sqlStr = sql.toString();
 
-        SqlBuilderLogger.out("Created [DELETE] SQL {" + sqlStr + "}");
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> "Created [DELETE] SQL {" + sqlStr + "}");
+
         return sqlStr;
     }
 
+    @Override
+    public void appendSql(StringBuilder sql) {
+        sql.append("DELETE FROM ");
+        sql.append(mTable.getName());
+
+        // WHERE
+        SqlBuilderInternalUtil.appendNamedExpression(sql, mWhere, "WHERE");
+    }
+
+    @Override
+    public void appendFingerprint(Fingerprint fingerprint) {
+        fingerprint
+            .append("DELETE")
+            .append(mTable.getName())
+            .append(mWhere);
+    }
+
     @Override
     public List<Object> getBindableObjects() {
+        CompiledUpdateStatement snapshot = mSnapshot;
+        if (snapshot != null)
+            return snapshot.getBindableObjects();
+
         return mWhere == null ? null : mWhere.getBindableObjects();
     }
+
+    @Override
+    public <E extends Exception> void collectBindableObjects(BindableSink<E> sink) throws E {
+        CompiledUpdateStatement snapshot = mSnapshot;
+        if (snapshot != null) {
+            snapshot.collectBindableObjects(sink);
+            return;
+        }
+
+        if (mWhere != null)
+            mWhere.collectBindableObjects(sink);
+    }
 }
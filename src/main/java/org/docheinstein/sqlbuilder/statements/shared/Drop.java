@@ -28,16 +28,23 @@ public class Drop implements UpdateStatement {
 
     @Override
     public String toSql() {
-        StringBuilder sql = new StringBuilder("DROP TABLE ");
-        sql.append(mTable.getName());
+        StringBuilder sql = new StringBuilder();
+        appendSql(sql);
 
         String sqlStr = sql.toString();
 
-        SqlBuilderLogger.out("Created [DROP TABLE] SQL {" + sqlStr + "}");
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> "Created [DROP TABLE] SQL {" + sqlStr + "}");
 
         return sqlStr;
     }
 
+    @Override
+    public void appendSql(StringBuilder sql) {
+        sql.append("DROP TABLE ");
+        sql.append(mTable.getName());
+    }
+
     @Override
     public List<Object> getBindableObjects() {
         return null; // No parameters to bind
@@ -1,13 +1,12 @@
 package org.docheinstein.sqlbuilder.statements.shared;
 
-import org.docheinstein.sqlbuilder.commons.SqlBuilderLogger;
+import org.docheinstein.sqlbuilder.commons.Fingerprint;
 import org.docheinstein.sqlbuilder.commons.SqlBuilderInternalUtil;
+import org.docheinstein.sqlbuilder.commons.SqlBuilderLogger;
 import org.docheinstein.sqlbuilder.models.Table;
+import org.docheinstein.sqlbuilder.statements.base.CompiledStatement;
 import org.docheinstein.sqlbuilder.statements.base.Put;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /*
  * INSERT INTO User VALUES (?, ?, ?)
  */
@@ -34,6 +33,7 @@ public class Insert extends Put<Insert> {
      * @return this statement
      */
     public Insert ignore(boolean ignore) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
         mIgnore = ignore;
         return this;
     }
@@ -48,38 +48,38 @@ public class Insert extends Put<Insert> {
 
     @Override
     public String toSql() {
-        StringBuilder sql = new StringBuilder("INSERT ");
+        CompiledStatement snapshot = getSnapshot();
+        if (snapshot != null)
+            return snapshot.toSql();
 
-        if (mIgnore)
-            sql.append("IGNORE ");
-
-        sql.append("INTO ");
-        sql.append(mTable.getName());
-        sql.append(" VALUES ");
-
-        // VALUES
-        sql.append(SqlBuilderInternalUtil.getAsCommaList(
-            mValuesList,
-            valueList ->
-                "(" +
-                    SqlBuilderInternalUtil.getAsCommaList(
-                        valueList,
-                        value -> "?") +
-                    ")"
-        ));
+        StringBuilder sql = new StringBuilder();
+        appendSql(sql);
 
         String sqlStr = sql.toString();
 
-        SqlBuilderLogger.out("Created [INSERT] SQL {" + sqlStr + "}");
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> "Created [INSERT] SQL {" + sqlStr + "}");
 
         return sqlStr;
     }
 
     @Override
-    public List<Object> getBindableObjects() {
-        List<Object> bindables = new ArrayList<>();
-        mValuesList.forEach(bindables::addAll);
-        return bindables;
+    protected void appendIntoSection(StringBuilder sql) {
+        sql.append("INSERT ");
+
+        if (mIgnore)
+            sql.append("IGNORE ");
+
+        sql.append("INTO ");
+        sql.append(mTable.getName());
+    }
+
+    @Override
+    protected void appendIntoFingerprint(Fingerprint fingerprint) {
+        fingerprint
+            .append("INSERT")
+            .append(mIgnore)
+            .append(mTable.getName());
     }
 
     @Override
@@ -1,13 +1,11 @@
 package org.docheinstein.sqlbuilder.statements.shared;
 
+import org.docheinstein.sqlbuilder.commons.Fingerprint;
 import org.docheinstein.sqlbuilder.commons.SqlBuilderLogger;
-import org.docheinstein.sqlbuilder.commons.SqlBuilderInternalUtil;
 import org.docheinstein.sqlbuilder.models.Table;
+import org.docheinstein.sqlbuilder.statements.base.CompiledStatement;
 import org.docheinstein.sqlbuilder.statements.base.Put;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /*
  * REPLACE INTO User VALUES (?, ?, ?)
  */
@@ -27,33 +25,32 @@ public class Replace extends Put<Replace> {
 
     @Override
     public String toSql() {
-        StringBuilder sql = new StringBuilder("REPLACE INTO ");
-        sql.append(mTable.getName());
-        sql.append(" VALUES ");
-
-        // VALUES
-        sql.append(SqlBuilderInternalUtil.getAsCommaList(
-            mValuesList,
-            valueList ->
-                "(" +
-                    SqlBuilderInternalUtil.getAsCommaList(
-                        valueList,
-                        value -> "?") +
-                    ")"
-        ));
+        CompiledStatement snapshot = getSnapshot();
+        if (snapshot != null)
+            return snapshot.toSql();
+
+        StringBuilder sql = new StringBuilder();
+        appendSql(sql);
 
         String sqlStr = sql.toString();
 
-        SqlBuilderLogger.out("Created [REPLACE] SQL {" + sqlStr + "}");
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> "Created [REPLACE] SQL {" + sqlStr + "}");
 
         return sqlStr;
     }
 
     @Override
-    public List<Object> getBindableObjects() {
-        List<Object> bindables = new ArrayList<>();
-        mValuesList.forEach(bindables::addAll);
-        return bindables;
+    protected void appendIntoSection(StringBuilder sql) {
+        sql.append("REPLACE INTO ");
+        sql.append(mTable.getName());
+    }
+
+    @Override
+    protected void appendIntoFingerprint(Fingerprint fingerprint) {
+        fingerprint
+            .append("REPLACE")
+            .append(mTable.getName());
     }
 
     @Override
@@ -1,15 +1,21 @@
 package org.docheinstein.sqlbuilder.statements.shared;
 
+import org.docheinstein.sqlbuilder.SqlBindable;
 import org.docheinstein.sqlbuilder.clauses.Join;
 import org.docheinstein.sqlbuilder.clauses.OrderBy;
+import org.docheinstein.sqlbuilder.commons.FetchOptions;
+import org.docheinstein.sqlbuilder.commons.Fingerprint;
 import org.docheinstein.sqlbuilder.commons.SqlBuilderLogger;
 import org.docheinstein.sqlbuilder.commons.adt.Pair;
 import org.docheinstein.sqlbuilder.commons.SqlBuilderInternalUtil;
 import org.docheinstein.sqlbuilder.expressions.Expression;
 import org.docheinstein.sqlbuilder.expressions.Operators;
 import org.docheinstein.sqlbuilder.models.*;
+import org.docheinstein.sqlbuilder.statements.base.CompiledQueryStatement;
 import org.docheinstein.sqlbuilder.statements.base.QueryStatement;
 
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.*;
 
 /*
@@ -55,6 +61,18 @@ public class Select implements QueryStatement {
     /** Whether use the DISTINCT clause. */
     private boolean mDistinct = false;
 
+    /** Options of the statement created for this query. */
+    private FetchOptions mFetchOptions = FetchOptions.DEFAULT;
+
+    /** Whether the fetched tuples are kept in the query result cache. */
+    private boolean mCacheResults = false;
+
+    /** The snapshot taken by {@link #freeze()}, null until this statement is frozen. */
+    private volatile CompiledQueryStatement mSnapshot;
+
+    /** The fingerprint of this statement, memoized by {@link #freeze()}. */
+    private long mFrozenFingerprint;
+
     /**
      * Creates a SELECT statement for the given columns.
      * @param columns the columns to retrieve
@@ -86,6 +104,7 @@ public class Select implements QueryStatement {
      * @return this statement
      */
     public Select from(Table table) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
         mTable = table;
         return this;
     }
@@ -96,6 +115,7 @@ public class Select implements QueryStatement {
      * @return this statement
      */
     public Select where(Expression whereExpression) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
         mWhere = whereExpression;
         return this;
     }
@@ -121,6 +141,7 @@ public class Select implements QueryStatement {
      * @return this statement
      */
     public Select orderBy(Column column, OrderBy orderBy) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
         mOrderBy.add(new Pair<>(column, orderBy));
         return this;
     }
@@ -135,6 +156,7 @@ public class Select implements QueryStatement {
      * @return this statement
      */
     public Select groupBy(Column column) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
         mGroupBy.add(column);
         return this;
     }
@@ -145,6 +167,7 @@ public class Select implements QueryStatement {
      * @return this statement
      */
     public Select having(Expression havingExpression) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
         mHaving = havingExpression;
         return this;
     }
@@ -202,6 +225,7 @@ public class Select implements QueryStatement {
      * @return this statement
      */
     public <T> Select join( Join.Type type, Column<T> external, Column<T> internal) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
         mJoinColumns.add(new Join<>(type, external, internal));
         return this;
     }
@@ -225,6 +249,7 @@ public class Select implements QueryStatement {
      * @return this statement
      */
     public Select limit(Integer from, Integer numrows) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
         mLimit = new Pair<>(from, numrows);
         return this;
     }
@@ -243,10 +268,251 @@ public class Select implements QueryStatement {
      * @return this statement
      */
     public Select distinct(boolean distinct) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
         mDistinct = distinct;
         return this;
     }
 
+    // -------------------------------------------------------------------------
+    // ---------------------------- FETCH OPTIONS ------------------------------
+    // -------------------------------------------------------------------------
+
+    /**
+     * Sets the number of rows fetched from the database at once.
+     * @param fetchSize the fetch size, or 0 for the driver's default
+     * @return this statement
+     * @see java.sql.Statement#setFetchSize(int)
+     */
+    public Select fetchSize(int fetchSize) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
+        mFetchOptions = mFetchOptions.withFetchSize(fetchSize);
+        return this;
+    }
+
+    /**
+     * Sets the type of the result set of this query.
+     * @param resultSetType the type of the result set
+     *                      (e.g. {@link java.sql.ResultSet#TYPE_FORWARD_ONLY})
+     * @return this statement
+     */
+    public Select resultSetType(int resultSetType) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
+        mFetchOptions = mFetchOptions.withResultSetType(resultSetType);
+        return this;
+    }
+
+    /**
+     * Sets the concurrency of the result set of this query.
+     * @param resultSetConcurrency the concurrency of the result set
+     *                             (e.g. {@link java.sql.ResultSet#CONCUR_READ_ONLY})
+     * @return this statement
+     */
+    public Select resultSetConcurrency(int resultSetConcurrency) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
+        mFetchOptions = mFetchOptions.withResultSetConcurrency(resultSetConcurrency);
+        return this;
+    }
+
+    /**
+     * Makes the result set of this query streamed, i.e. read from the
+     * database while it is iterated instead of being buffered in memory.
+     * @return this statement
+     * @see FetchOptions
+     */
+    public Select streaming() {
+        return streaming(true);
+    }
+
+    /**
+     * Sets/unsets the streaming of the result set of this query.
+     * @param streaming whether the result set should be streamed
+     * @return this statement
+     * @see FetchOptions
+     */
+    public Select streaming(boolean streaming) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
+        mFetchOptions = mFetchOptions.withStreaming(streaming);
+        return this;
+    }
+
+    /**
+     * Sets the options of the statement created for this query.
+     * @param fetchOptions the fetch options
+     * @return this statement
+     */
+    public Select fetchOptions(FetchOptions fetchOptions) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
+        mFetchOptions = fetchOptions != null ? fetchOptions : FetchOptions.DEFAULT;
+        return this;
+    }
+
+    // -------------------------------------------------------------------------
+    // ----------------------------- RESULT CACHE ------------------------------
+    // -------------------------------------------------------------------------
+
+    /**
+     * Makes the tuples fetched by this query kept in the query result cache.
+     * @return this statement
+     * @see #cacheResults(boolean)
+     */
+    public Select cacheResults() {
+        return cacheResults(true);
+    }
+
+    /**
+     * Sets/unsets the caching of the tuples fetched by this query.
+     * <p>
+     * If set, {@link #fetch(Connection, Class)} and
+     * {@link #fetchCache(Connection, Class, int)} return the tuples previously
+     * fetched for the same sql string and bind values, as long as they have
+     * not been evicted, have not expired and no update statement executed by
+     * the library has modified one of the tables returned by
+     * {@link #getReferencedTables()} since then.
+     * <p>
+     * The cache holds its own copies of the tuples and every fetch returns
+     * new copies, thus the returned tuples can be modified by the caller
+     * without affecting the cached ones.
+     * The results are cached per database, i.e. per connection url.
+     * @param cacheResults whether the tuples should be cached
+     * @return this statement
+     * @see org.docheinstein.sqlbuilder.commons.SqlBuilder#setQueryResultCacheMaxSize(int)
+     * @see org.docheinstein.sqlbuilder.commons.SqlBuilder#setQueryResultCacheTtl(long, java.util.concurrent.TimeUnit)
+     */
+    public Select cacheResults(boolean cacheResults) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
+        mCacheResults = cacheResults;
+        return this;
+    }
+
+    /**
+     * Freezes this statement: from now on it can't be modified anymore
+     * (its setters throw an {@link IllegalStateException}) and it can be
+     * shared across threads, either directly or as sub query of other
+     * statements.
+     * <p>
+     * The sql string, the fingerprint and the bind layout of the statement
+     * are computed once here, thus executing a frozen statement doesn't walk
+     * its structure; differently from {@link #compile()}, the statement keeps
+     * its structure, which is still available to the routers and to the
+     * query result cache.
+     * <p>
+     * The expressions of the statement are frozen too.
+     * @return this statement
+     */
+    public Select freeze() {
+        if (mSnapshot != null)
+            return this;
+
+        if (mWhere != null)
+            mWhere.freeze();
+        if (mHaving != null)
+            mHaving.freeze();
+
+        mColumns = Collections.unmodifiableList(mColumns);
+        mFrozenFingerprint = QueryStatement.super.fingerprint();
+
+        // Volatile write: publishes the memoized state too
+        mSnapshot = QueryStatement.super.compile();
+
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> "Frozen SELECT [FP = " + Long.toHexString(mFrozenFingerprint) + "]");
+
+        return this;
+    }
+
+    @Override
+    public CompiledQueryStatement getSnapshot() {
+        return mSnapshot;
+    }
+
+    @Override
+    public CompiledQueryStatement compile() {
+        CompiledQueryStatement snapshot = mSnapshot;
+        return snapshot != null ? snapshot : QueryStatement.super.compile();
+    }
+
+    @Override
+    public long fingerprint() {
+        return mSnapshot != null ? mFrozenFingerprint : QueryStatement.super.fingerprint();
+    }
+
+    /**
+     * Returns the names of the tables this query reads from: the table
+     * of the FROM clause, the joined tables and the tables of the columns
+     * and of the sub queries that appear in the statement.
+     * @return the names of the tables
+     */
+    public Set<String> getReferencedTables() {
+        Set<String> tables = new HashSet<>();
+
+        if (mTable != null)
+            tables.add(mTable.getName());
+
+        for (Join join : mJoinColumns) {
+            addReferencedTable(tables, join.getExternalColumn());
+            addReferencedTable(tables, join.getInternalColumn());
+        }
+
+        for (Column column : mColumns)
+            addReferencedTable(tables, column);
+
+        addReferencedTables(tables, mWhere);
+        addReferencedTables(tables, mHaving);
+
+        return tables;
+    }
+
+    @Override
+    public <T extends Tuple> List<T> fetch(Connection connection, Class<T> clazz)
+        throws SQLException {
+        if (!mCacheResults || connection == null)
+            return QueryStatement.super.fetch(connection, clazz);
+
+        return SqlBuilderInternalUtil.fetchCachedResults(
+            connection, this, clazz, getReferencedTables(),
+            c -> QueryStatement.super.fetch(c, clazz));
+    }
+
+    @Override
+    public <T extends Tuple> List<T> fetchCache(Connection connection, Class<T> clazz,
+                                               int identifier) throws SQLException {
+        if (!mCacheResults || connection == null)
+            return QueryStatement.super.fetchCache(connection, clazz, identifier);
+
+        return SqlBuilderInternalUtil.fetchCachedResults(
+            connection, this, clazz, getReferencedTables(),
+            c -> QueryStatement.super.fetchCache(c, clazz, identifier));
+    }
+
+    /**
+     * Adds the table of the given column to the given tables.
+     * @param tables the names of the tables
+     * @param column the column, might be anonymous
+     */
+    private static void addReferencedTable(Set<String> tables, Column column) {
+        if (column != null && column.getTable() != null)
+            tables.add(column.getTable());
+    }
+
+    /**
+     * Adds the tables of the columns and of the sub queries of the given
+     * operand to the given tables.
+     * @param tables the names of the tables
+     * @param operand the operand of an expression, might be null
+     */
+    private static void addReferencedTables(Set<String> tables, SqlBindable operand) {
+        if (operand instanceof Column) {
+            addReferencedTable(tables, (Column) operand);
+        } else if (operand instanceof Select) {
+            tables.addAll(((Select) operand).getReferencedTables());
+        } else if (operand instanceof Expression) {
+            // Sub queries are operands of their operators too
+            // (e.g. EXISTS, IN, UNION)
+            addReferencedTables(tables, ((Expression) operand).getFirstOperand());
+            addReferencedTables(tables, ((Expression) operand).getSecondOperand());
+        }
+    }
+
     // -------------------------------------------------------------------------
     // ------------------------- SUB QUERY OPERATORS ---------------------------
     // -------------------------------------------------------------------------
@@ -307,7 +573,7 @@ public class Select implements QueryStatement {
 
     /*
      * (SELECT a FROM t1 WHERE a=10 AND B=1 ORDER BY a LIMIT 10)
-     * EXCEPT | UNION | INTERSECT
+     * EXCEPT | UNION | UNION ALL | INTERSECT
      * (SELECT a FROM t2 WHERE a=11 AND B=2 ORDER BY a LIMIT 10);
      */
 
@@ -329,6 +595,15 @@ public class Select implements QueryStatement {
      */
     public Operators.Union union(Select s) { return new Operators.Union(this, s); }
 
+    /**
+     * Returns an UNION ALL operator that links this statement to another one.
+     * <p>
+     * Can be used for create binary queries.
+     * @param s the second statement
+     * @return an UNION ALL operator
+     */
+    public Operators.UnionAll unionAll(Select s) { return new Operators.UnionAll(this, s); }
+
     /**
      * Returns an INTERSECT operator that links this statement to another one.
      * <p>
@@ -340,51 +615,70 @@ public class Select implements QueryStatement {
 
     @Override
     public String toSql() {
-        StringBuilder sql = new StringBuilder("SELECT ");
+        CompiledQueryStatement snapshot = mSnapshot;
+        if (snapshot != null)
+            return snapshot.toSql();
+
+        StringBuilder sql = new StringBuilder();
+        appendSql(sql);
+
+        String sqlStr = sql.toString();
+
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> "Created SELECT SQL {" + sqlStr + "}");
+
+        return sqlStr;
+    }
+
+    @Override
+    public void appendSql(StringBuilder sql) {
+        CompiledQueryStatement snapshot = mSnapshot;
+        if (snapshot != null) {
+            sql.append(snapshot.toSql());
+            return;
+        }
+
+        sql.append("SELECT ");
 
         // DISTINCT
         if (mDistinct)
             sql.append("DISTINCT ");
 
-        sql.append(SqlBuilderInternalUtil.getAsCommaList(
-            mColumns,
-            Column::getTableDotName
-        ));
+        SqlBuilderInternalUtil.appendCommaList(sql, mColumns, Column::appendSql);
         sql.append(" FROM ");
         sql.append(mTable.getName());
 
-        mJoinColumns.forEach(join -> {
+        for (Join join : mJoinColumns) {
             sql.append(" ");
             sql.append(join.getType().toSql());
             sql.append(" JOIN ");
             sql.append(join.getExternalColumn().getTable());
             sql.append(" ON ");
-            sql.append(join.getExternalColumn().getTableDotName());
+            join.getExternalColumn().appendSql(sql);
             sql.append(" = ");
-            sql.append(join.getInternalColumn().getTableDotName());
-        });
+            join.getInternalColumn().appendSql(sql);
+        }
 
         // WHERE
-        sql.append(SqlBuilderInternalUtil.getNamedExpressionAsString(mWhere, "WHERE"));
+        SqlBuilderInternalUtil.appendNamedExpression(sql, mWhere, "WHERE");
 
         // GROUP BY
         if (mGroupBy.size() > 0) {
             sql.append(" GROUP BY ");
-
-            sql.append(SqlBuilderInternalUtil.getAsCommaList(
-                mGroupBy,
-                Column::getTableDotName));
+            SqlBuilderInternalUtil.appendCommaList(sql, mGroupBy, Column::appendSql);
         }
-        
-        sql.append(SqlBuilderInternalUtil.getNamedExpressionAsString(mHaving, "HAVING"));
-        
+
+        SqlBuilderInternalUtil.appendNamedExpression(sql, mHaving, "HAVING");
+
         // ORDER BY
         if (mOrderBy.size() > 0) {
             sql.append(" ORDER BY ");
 
-            sql.append(SqlBuilderInternalUtil.getAsCommaList(
-                mOrderBy,
-                o -> o.getKey().getTableDotName() + " " + o.getValue().toSql()));
+            SqlBuilderInternalUtil.appendCommaList(sql, mOrderBy, (o, s) -> {
+                o.getKey().appendSql(s);
+                s.append(" ");
+                s.append(o.getValue().toSql());
+            });
         }
 
         // LIMIT
@@ -402,20 +696,140 @@ public class Select implements QueryStatement {
                 sql.append(numrows);
             }
         }
+    }
 
-        String sqlStr = sql.toString();
-
-        SqlBuilderLogger.out("Created SELECT SQL {" + sqlStr + "}");
-
-        return sqlStr;
+    @Override
+    public void appendFingerprint(Fingerprint fingerprint) {
+        fingerprint
+            .append("SELECT")
+            .append(mDistinct)
+            .append(mColumns.size());
+
+        for (Column column : mColumns)
+            fingerprint.append(column);
+
+        fingerprint
+            .append(mTable != null ? mTable.getName() : null)
+            .append(mJoinColumns.size());
+
+        for (Join join : mJoinColumns)
+            fingerprint
+                .append(join.getType().toSql())
+                .append(join.getExternalColumn())
+                .append(join.getInternalColumn());
+
+        fingerprint
+            .append(mWhere)
+            .append(mGroupBy.size());
+
+        for (Column column : mGroupBy)
+            fingerprint.append(column);
+
+        fingerprint
+            .append(mHaving)
+            .append(mOrderBy.size());
+
+        for (Pair<Column, OrderBy> orderBy : mOrderBy)
+            fingerprint
+                .append(orderBy.getKey())
+                .append(orderBy.getValue().toSql());
+
+        // The limit is rendered inline, thus its values are part of the shape
+        boolean limited = mLimit != null &&
+            (mLimit.getKey() != null || mLimit.getValue() != null);
+
+        fingerprint.append(limited);
+
+        if (limited)
+            fingerprint
+                .append(mLimit.getKey() != null ? mLimit.getKey() : 0)
+                .append(mLimit.getValue() != null ? mLimit.getValue() : Integer.MAX_VALUE);
     }
 
     @Override
     public List<Object> getBindableObjects() {
+        CompiledQueryStatement snapshot = mSnapshot;
+        if (snapshot != null)
+            return snapshot.getBindableObjects();
+
         return mWhere == null ? null : mWhere.getBindableObjects();
     }
 
+    @Override
+    public <E extends Exception> void collectBindableObjects(BindableSink<E> sink) throws E {
+        CompiledQueryStatement snapshot = mSnapshot;
+        if (snapshot != null) {
+            snapshot.collectBindableObjects(sink);
+            return;
+        }
+
+        if (mWhere != null)
+            mWhere.collectBindableObjects(sink);
+    }
+
     public List<Column> getColumns() {
         return mColumns;
     }
+
+    /**
+     * Returns the table of this statement.
+     * @return the table, or null if not set
+     */
+    public Table getTable() {
+        return mTable;
+    }
+
+    /**
+     * Returns the WHERE expression of this statement.
+     * @return the WHERE expression, or null if not set
+     */
+    public Expression getWhere() {
+        return mWhere;
+    }
+
+    /**
+     * Returns the ORDER BY columns of this statement, with their order.
+     * @return the ORDER BY columns
+     */
+    public List<Pair<Column, OrderBy>> getOrderBy() {
+        return Collections.unmodifiableList(mOrderBy);
+    }
+
+    /**
+     * Returns the GROUP BY columns of this statement.
+     * @return the GROUP BY columns
+     */
+    public List<Column> getGroupBy() {
+        return Collections.unmodifiableList(mGroupBy);
+    }
+
+    /**
+     * Returns the HAVING expression of this statement.
+     * @return the HAVING expression, or null if not set
+     */
+    public Expression getHaving() {
+        return mHaving;
+    }
+
+    /**
+     * Returns the values of the LIMIT clause of this statement, i.e. the
+     * index of the first row and the number of rows (both might be null).
+     * @return the values of the LIMIT clause, or null if not set
+     */
+    public Pair<Integer, Integer> getLimit() {
+        return mLimit;
+    }
+
+    /**
+     * Returns whether this statement uses the DISTINCT clause.
+     * @return whether the DISTINCT clause is set
+     */
+    public boolean isDistinct() {
+        return mDistinct;
+    }
+
+    @Override
+    public FetchOptions getFetchOptions() {
+        return mFetchOptions;
+    }
 }
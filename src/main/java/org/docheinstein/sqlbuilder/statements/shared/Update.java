@@ -1,5 +1,6 @@
 package org.docheinstein.sqlbuilder.statements.shared;
 
+import org.docheinstein.sqlbuilder.commons.Fingerprint;
 import org.docheinstein.sqlbuilder.commons.SqlBuilderLogger;
 import org.docheinstein.sqlbuilder.commons.adt.Pair;
 import org.docheinstein.sqlbuilder.commons.SqlBuilderInternalUtil;
@@ -7,12 +8,15 @@ import org.docheinstein.sqlbuilder.expressions.Expression;
 import org.docheinstein.sqlbuilder.models.Column;
 import org.docheinstein.sqlbuilder.models.Table;
 import org.docheinstein.sqlbuilder.models.Tuple;
+import org.docheinstein.sqlbuilder.statements.base.CompiledUpdateStatement;
 import org.docheinstein.sqlbuilder.statements.base.UpdateStatement;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /*
 UPDATE table_name
@@ -31,9 +35,21 @@ public class Update implements UpdateStatement {
     /** List of assignment between columns and values. */
     private List<Pair<String, Object>> mSetPairs = new ArrayList<>();
 
+    /**
+     * Columns of the SET assignments, in the same order
+     * of the assignments (null if unknown).
+     */
+    private List<Column<?>> mSetColumns = new ArrayList<>();
+
     /** WHERE expression. */
     private Expression mWhere;
 
+    /** The snapshot taken by {@link #freeze()}, null until this statement is frozen. */
+    private volatile CompiledUpdateStatement mSnapshot;
+
+    /** The fingerprint of this statement, memoized by {@link #freeze()}. */
+    private long mFrozenFingerprint;
+
     /**
      * Creates an UPDATE statement for the given table.
      * @param table the table to update
@@ -51,7 +67,7 @@ public class Update implements UpdateStatement {
      */
     // This is preferred over the generic set() for have type control
     public <T> Update set(Column<T> column, T value) {
-        return set(column.getName(), value);
+        return set(column.getName(), value, column);
     }
 
     /**
@@ -61,10 +77,35 @@ public class Update implements UpdateStatement {
      * @return this statement
      */
     public Update set(String columnName, Object value) {
+        return set(columnName, value, getColumn(columnName));
+    }
+
+    /**
+     * Adds a SET assignment between a column and its value.
+     * @param columnName the column name
+     * @param value the value to assign to the given column
+     * @param column the column, might be null if unknown
+     * @return this statement
+     */
+    private Update set(String columnName, Object value, Column<?> column) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
         mSetPairs.add(new Pair<>(columnName, value));
+        mSetColumns.add(column);
         return this;
     }
 
+    /**
+     * Returns the column of the updated table with the given name.
+     * @param columnName the column name
+     * @return the column, or null if the table doesn't have such column
+     */
+    private Column<?> getColumn(String columnName) {
+        for (Column column : mTable.getColumns())
+            if (column.getName().equals(columnName))
+                return column;
+        return null;
+    }
+
     /**
      * Adds a SET assignment for each
      * {@link org.docheinstein.sqlbuilder.models.ColumnField}
@@ -141,53 +182,155 @@ public class Update implements UpdateStatement {
      * @return this statement
      */
     public Update where(Expression whereExpression) {
+        SqlBuilderInternalUtil.throwIfFrozen(isFrozen());
         mWhere = whereExpression;
         return this;
     }
 
+    /**
+     * Freezes this statement: from now on it can't be modified anymore
+     * (its setters throw an {@link IllegalStateException}) and it can be
+     * shared across threads.
+     * <p>
+     * The sql string, the fingerprint and the bind layout of the statement
+     * are computed once here, while its structure is kept for the routers
+     * and the query result cache (see {@link Select#freeze()}).
+     * @return this statement
+     */
+    public Update freeze() {
+        if (mSnapshot != null)
+            return this;
+
+        if (mWhere != null)
+            mWhere.freeze();
+
+        mSetPairs = Collections.unmodifiableList(mSetPairs);
+        mSetColumns = Collections.unmodifiableList(mSetColumns);
+        mFrozenFingerprint = UpdateStatement.super.fingerprint();
+        mSnapshot = UpdateStatement.super.compile();
+
+        return this;
+    }
+
+    @Override
+    public CompiledUpdateStatement getSnapshot() {
+        return mSnapshot;
+    }
+
+    @Override
+    public CompiledUpdateStatement compile() {
+        CompiledUpdateStatement snapshot = mSnapshot;
+        return snapshot != null ? snapshot : UpdateStatement.super.compile();
+    }
+
+    @Override
+    public long fingerprint() {
+        return mSnapshot != null ? mFrozenFingerprint : UpdateStatement.super.fingerprint();
+    }
+
+    /**
+     * Returns the table of this statement.
+     * @return the table
+     */
+    public Table getTable() {
+        return mTable;
+    }
+
+    @Override
+    public Set<String> getAffectedTables() {
+        return Collections.singleton(mTable.getName());
+    }
+
+    /**
+     * Returns the WHERE expression of this statement.
+     * @return the WHERE expression, or null if not set
+     */
+    public Expression getWhere() {
+        return mWhere;
+    }
+
+    /**
+     * Returns the names of the columns assigned by the SET section of this
+     * statement, in the order of the assignments.
+     * @return the names of the assigned columns
+     */
+    public List<String> getSetColumnNames() {
+        List<String> names = new ArrayList<>(mSetPairs.size());
+        for (Pair<String, Object> setPair : mSetPairs)
+            names.add(setPair.getKey());
+        return names;
+    }
+
 
     @Override
     public String toSql() {
-        StringBuilder sql = new StringBuilder("UPDATE ");
+        CompiledUpdateStatement snapshot = mSnapshot;
+        if (snapshot != null)
+            return snapshot.toSql();
+
+        StringBuilder sql = new StringBuilder();
+        appendSql(sql);
+
+        String sqlStr = sql.toString();
+
+        SqlBuilderLogger.out(SqlBuilderLogger.Level.Debug,
+            () -> "Created [UPDATE] SQL {" + sqlStr + "}");
+
+        return sqlStr;
+    }
+
+    @Override
+    public void appendSql(StringBuilder sql) {
+        sql.append("UPDATE ");
         sql.append(mTable.getName());
 
         // SET
         if (mSetPairs.size() > 0) {
             sql.append(" SET ");
 
-
-            sql.append(SqlBuilderInternalUtil.getAsCommaList(
-                mSetPairs,
-                setPair -> setPair.getKey() + " = ?"));
+            SqlBuilderInternalUtil.appendCommaList(sql, mSetPairs,
+                (setPair, s) -> s.append(setPair.getKey()).append(" = ?"));
         }
 
         // WHERE
-        sql.append(SqlBuilderInternalUtil.getNamedExpressionAsString(mWhere, "WHERE"));
+        SqlBuilderInternalUtil.appendNamedExpression(sql, mWhere, "WHERE");
+    }
 
-        String sqlStr = sql.toString();
+    @Override
+    public void appendFingerprint(Fingerprint fingerprint) {
+        fingerprint
+            .append("UPDATE")
+            .append(mTable.getName())
+            .append(mSetPairs.size());
 
-        SqlBuilderLogger.out("Created [UPDATE] SQL {" + sqlStr + "}");
+        for (Pair<String, Object> setPair : mSetPairs)
+            fingerprint.append(setPair.getKey());
 
-        return sqlStr;
+        fingerprint.append(mWhere);
     }
 
     @Override
     public List<Object> getBindableObjects() {
-        // The bindable objects are the values of the SET assignemnts and
-        // the bindable objects of the WHERE
-
         List<Object> bindables = new ArrayList<>();
+        collectBindableObjects(bindables::add);
+        return bindables;
+    }
 
-        for (Pair<String, Object> setPair : mSetPairs)
-            bindables.add(setPair.getValue());
+    @Override
+    public <E extends Exception> void collectBindableObjects(BindableSink<E> sink) throws E {
+        CompiledUpdateStatement snapshot = mSnapshot;
+        if (snapshot != null) {
+            snapshot.collectBindableObjects(sink);
+            return;
+        }
 
-        List<Object> whereBindables =
-            mWhere == null ?
-                null :
-                mWhere.getBindableObjects();
+        // The bindable objects are the values of the SET assignemnts and
+        // the bindable objects of the WHERE
 
-        if (whereBindables != null)
-            bindables.addAll(whereBindables);
-        return bindables;
+        for (int i = 0; i < mSetPairs.size(); i++)
+            sink.accept(mSetPairs.get(i).getValue(), mSetColumns.get(i));
+
+        if (mWhere != null)
+            mWhere.collectBindableObjects(sink);
     }
 }
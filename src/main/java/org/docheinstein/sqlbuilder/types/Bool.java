@@ -2,6 +2,7 @@ package org.docheinstein.sqlbuilder.types;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 
 /**
  * SQL type that wraps a {@link Boolean};
@@ -21,4 +22,17 @@ public class Bool extends Type<Boolean> {
         boolean fromResultSet = resultSet.getBoolean(columnName);
         return resultSet.wasNull() ? null : fromResultSet;
     }
+
+    @Override
+    public Boolean getFromResultSet(ResultSet resultSet, int columnIndex) throws SQLException {
+        // resultSet.getBoolean() returns false even if the value was null;
+        // instead we returns a null value if the result was null
+        boolean fromResultSet = resultSet.getBoolean(columnIndex);
+        return resultSet.wasNull() ? null : fromResultSet;
+    }
+
+    @Override
+    public int getSqlType() {
+        return Types.BOOLEAN;
+    }
 }
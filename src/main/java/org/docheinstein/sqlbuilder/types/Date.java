@@ -2,6 +2,7 @@ package org.docheinstein.sqlbuilder.types;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.Calendar;
 
 /**
@@ -20,4 +21,15 @@ public class Date extends Type<String> {
         java.sql.Date d = resultSet.getDate(columnName, Calendar.getInstance());
         return d != null ? d.toString() : null;
     }
-}
\ No newline at end of file
+
+    @Override
+    public String getFromResultSet(ResultSet resultSet, int columnIndex) throws SQLException {
+        java.sql.Date d = resultSet.getDate(columnIndex, Calendar.getInstance());
+        return d != null ? d.toString() : null;
+    }
+
+    @Override
+    public int getSqlType() {
+        return Types.DATE;
+    }
+}
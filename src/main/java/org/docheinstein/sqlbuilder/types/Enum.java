@@ -4,6 +4,7 @@ import org.docheinstein.sqlbuilder.commons.SqlBuilderInternalUtil;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.Arrays;
 
 /**
@@ -13,14 +14,23 @@ import java.util.Arrays;
 public class Enum extends Type<String> {
 
     /** Allowed values of the enumeration. */
-    private String[] mValues;
+    private final String[] mValues;
+
+    /** The sql string of this type, built once since the type is immutable. */
+    private final String mSql;
 
     /**
      * Creates an ENUM type for the given allowed values
      * @param values the enum's values
      */
     public Enum(String... values) {
-        mValues = values;
+        mValues = values.clone();
+        mSql =
+            "ENUM (" +
+            SqlBuilderInternalUtil.getAsCommaList(
+                Arrays.asList(mValues), s -> "'" + s + "'"
+            )
+            + ")";
     }
 
     @Override
@@ -28,13 +38,18 @@ public class Enum extends Type<String> {
         return resultSet.getString(columnName);
     }
 
+    @Override
+    public String getFromResultSet(ResultSet resultSet, int columnIndex) throws SQLException {
+        return resultSet.getString(columnIndex);
+    }
+
     @Override
     public String toSql() {
-        return
-            "ENUM (" +
-            SqlBuilderInternalUtil.getAsCommaList(
-                Arrays.asList(mValues), s -> "'" + s + "'"
-            )
-            + ")";
+        return mSql;
+    }
+
+    @Override
+    public int getSqlType() {
+        return Types.VARCHAR;
     }
 }
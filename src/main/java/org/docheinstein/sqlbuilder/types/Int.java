@@ -2,6 +2,7 @@ package org.docheinstein.sqlbuilder.types;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 
 /**
  * SQL type that wraps an {@link Integer});
@@ -11,13 +12,19 @@ public class Int extends Type<Integer> {
 
     /** Maximum length of the INTEGER type. */
     // INTEGER(<length>)
-    private Integer mLength;
+    private final Integer mLength;
+
+    /** The sql string of this type, built once since the type is immutable. */
+    private final String mSql;
 
     /**
      * Creates an INTEGER type with unspecified length
      * (the decision is left to the DBMS).
      */
-    public Int() {}
+    public Int() {
+        mLength = null;
+        mSql = "INTEGER";
+    }
 
     /**
      * Creates an INTEGER type.
@@ -25,11 +32,12 @@ public class Int extends Type<Integer> {
      */
     public Int(int length) {
         mLength = length;
+        mSql = "INTEGER(" + length + ")";
     }
 
     @Override
     public String toSql() {
-        return "INTEGER" + (mLength != null ? "(" + mLength + ")" : "") ;
+        return mSql;
     }
 
     @Override
@@ -41,4 +49,17 @@ public class Int extends Type<Integer> {
         return resultSet.wasNull() ? null : fromResultSet;
     }
 
+    @Override
+    public Integer getFromResultSet(ResultSet resultSet, int columnIndex)
+        throws SQLException {
+        // resultSet.getInt() returns 0 even if the value was null;
+        // instead we returns a null value if the result was null
+        int fromResultSet = resultSet.getInt(columnIndex);
+        return resultSet.wasNull() ? null : fromResultSet;
+    }
+
+    @Override
+    public int getSqlType() {
+        return Types.INTEGER;
+    }
 }
@@ -2,6 +2,7 @@ package org.docheinstein.sqlbuilder.types;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.Calendar;
 
 /**
@@ -20,4 +21,15 @@ public class Time extends Type<String> {
         java.sql.Time t = resultSet.getTime(columnName, Calendar.getInstance());
         return t != null ? t.toString() : null;
     }
-}
\ No newline at end of file
+
+    @Override
+    public String getFromResultSet(ResultSet resultSet, int columnIndex) throws SQLException {
+        java.sql.Time t = resultSet.getTime(columnIndex, Calendar.getInstance());
+        return t != null ? t.toString() : null;
+    }
+
+    @Override
+    public int getSqlType() {
+        return Types.TIME;
+    }
+}
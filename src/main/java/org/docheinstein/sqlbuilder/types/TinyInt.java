@@ -2,6 +2,7 @@ package org.docheinstein.sqlbuilder.types;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 
 /**
  * SQL type that wraps an {@link Integer};
@@ -11,7 +12,10 @@ public class TinyInt extends Type<Integer> {
 
     /** Maximum length of the TINYINT type. */
     // VARCHAR(<length>)
-    private int mLength;
+    private final int mLength;
+
+    /** The sql string of this type, built once since the type is immutable. */
+    private final String mSql;
 
     /**
      * Creates a TINYINT type.
@@ -19,14 +23,12 @@ public class TinyInt extends Type<Integer> {
      */
     public TinyInt(int length) {
         mLength = length;
+        mSql = "TINYINT(" + length + ")";
     }
 
     @Override
     public String toSql() {
-        return String.format(
-            "TINYINT(%d)",
-            mLength
-        );
+        return mSql;
     }
 
     @Override
@@ -37,4 +39,18 @@ public class TinyInt extends Type<Integer> {
         int fromResultSet = resultSet.getInt(columnName);
         return resultSet.wasNull() ? null : fromResultSet;
     }
+
+    @Override
+    public Integer getFromResultSet(ResultSet resultSet, int columnIndex)
+        throws SQLException {
+        // resultSet.getInt() returns 0 even if the value was null;
+        // instead we returns a null value if the result was null
+        int fromResultSet = resultSet.getInt(columnIndex);
+        return resultSet.wasNull() ? null : fromResultSet;
+    }
+
+    @Override
+    public int getSqlType() {
+        return Types.TINYINT;
+    }
 }
@@ -4,6 +4,7 @@ import org.docheinstein.sqlbuilder.Sqlable;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 
 /**
  * Represents a SQL type (INTEGER, VARCHAR, ...)
@@ -21,4 +22,38 @@ public abstract class Type<T> implements Sqlable {
      */
     public abstract T getFromResultSet(ResultSet resultSet, String columnName)
         throws SQLException;
+
+    /**
+     * Retrieves from the result set of a query the object associated with the
+     * given column index.
+     * <p>
+     * This is faster than {@link #getFromResultSet(ResultSet, String)} since
+     * the driver doesn't need to look up the column by its name.
+     * <p>
+     * The default implementation resolves the label of the column and
+     * delegates to {@link #getFromResultSet(ResultSet, String)}; anyway the
+     * library doesn't use it when mapping the rows to tuples: the values of
+     * the types that don't override this method (below the class that
+     * overrides {@link #getFromResultSet(ResultSet, String)}) are retrieved
+     * by their TABLE.COLUMN label.
+     * @param resultSet the result set from which retrieve the data
+     * @param columnIndex the index of the column to retrieve (starting from 1)
+     * @return the data associated with the given column index
+     * @throws SQLException if the data can't be retrieved
+     */
+    public T getFromResultSet(ResultSet resultSet, int columnIndex)
+        throws SQLException {
+        return getFromResultSet(
+            resultSet, resultSet.getMetaData().getColumnLabel(columnIndex));
+    }
+
+    /**
+     * Returns the SQL type code of this type, used for bind null values
+     * to the parameters of this type.
+     * @return the SQL type code (see {@link Types}), or {@link Types#NULL}
+     *         if this type doesn't map to a specific one
+     */
+    public int getSqlType() {
+        return Types.NULL;
+    }
 }
@@ -2,6 +2,7 @@ package org.docheinstein.sqlbuilder.types;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 
 /**
  * SQL type that wraps a {@link String};
@@ -11,7 +12,10 @@ public class Varchar extends Type<String> {
 
     /** Maximum length of the VARCHAR type. */
     // VARCHAR(<length>)
-    private int mLength;
+    private final int mLength;
+
+    /** The sql string of this type, built once since the type is immutable. */
+    private final String mSql;
 
     /**
      * Creates a VARCHAR type.
@@ -19,14 +23,12 @@ public class Varchar extends Type<String> {
      */
     public Varchar(int length) {
         mLength = length;
+        mSql = "VARCHAR(" + length + ")";
     }
 
     @Override
     public String toSql() {
-        return String.format(
-            "VARCHAR(%d)",
-            mLength
-        );
+        return mSql;
     }
 
     @Override
@@ -34,4 +36,15 @@ public class Varchar extends Type<String> {
         throws SQLException {
         return resultSet.getString(columnName);
     }
+
+    @Override
+    public String getFromResultSet(ResultSet resultSet, int columnIndex)
+        throws SQLException {
+        return resultSet.getString(columnIndex);
+    }
+
+    @Override
+    public int getSqlType() {
+        return Types.VARCHAR;
+    }
 }
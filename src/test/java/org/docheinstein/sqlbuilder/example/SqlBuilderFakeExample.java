@@ -0,0 +1,549 @@
+package org.docheinstein.sqlbuilder.example;
+
+import org.docheinstein.sqlbuilder.commons.SqlBuilder;
+import org.docheinstein.sqlbuilder.example.person.PersonTable;
+import org.docheinstein.sqlbuilder.example.person.PersonTuple;
+import org.docheinstein.sqlbuilder.execution.ScatterGather;
+import org.docheinstein.sqlbuilder.expressions.Operators;
+import org.docheinstein.sqlbuilder.fake.FakeDatabase;
+import org.docheinstein.sqlbuilder.fake.FakeResult;
+import org.docheinstein.sqlbuilder.models.Column;
+import org.docheinstein.sqlbuilder.models.Table;
+import org.docheinstein.sqlbuilder.routing.ShardRouter;
+import org.docheinstein.sqlbuilder.statements.base.CompiledQueryStatement;
+import org.docheinstein.sqlbuilder.statements.base.CompiledUpdateStatement;
+import org.docheinstein.sqlbuilder.statements.base.QueryStatement;
+import org.docheinstein.sqlbuilder.statements.shared.Insert;
+import org.docheinstein.sqlbuilder.statements.shared.Select;
+import org.docheinstein.sqlbuilder.statements.shared.Update;
+import org.docheinstein.sqlbuilder.types.Int;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.docheinstein.sqlbuilder.example.person.PersonTable.AGE;
+import static org.docheinstein.sqlbuilder.example.person.PersonTable.ID;
+import static org.docheinstein.sqlbuilder.example.person.PersonTable.NAME;
+import static org.docheinstein.sqlbuilder.example.person.PersonTable.SURNAME;
+
+/**
+ * Executes the statements over a {@link FakeDatabase}, thus without a
+ * database server, checking the JDBC calls performed by the library.
+ */
+public class SqlBuilderFakeExample {
+
+    private static final int PERSON_COUNT = 100000;
+
+    private static final String[] PERSON_COLUMN_LABELS = {
+        PersonTable.ID_COL_NAME, PersonTable.NAME_COL_NAME,
+        PersonTable.SURNAME_COL_NAME, PersonTable.AGE_COL_NAME
+    };
+
+    private final Table PERSON_TABLE = new PersonTable();
+
+    private final FakeDatabase mDatabase = new FakeDatabase()
+        .result(FakeResult.of(
+            new String[] {
+                PersonTable.ID_COL_NAME, PersonTable.NAME_COL_NAME,
+                PersonTable.SURNAME_COL_NAME, PersonTable.AGE_COL_NAME
+            },
+            PERSON_COUNT,
+            i -> new Object[] {i, "Name" + i, "Surname" + i, 18 + i % 60}));
+
+    public static void main(String[] args) throws SQLException, InterruptedException {
+        SqlBuilderFakeExample fakeEx = new SqlBuilderFakeExample();
+        fakeEx.exampleStatementCache();
+        fakeEx.exampleClosedConnections();
+        fakeEx.exampleIdentifiedStatement();
+        fakeEx.exampleBatch();
+        fakeEx.exampleChunks();
+        fakeEx.exampleMapping();
+        fakeEx.exampleLatency();
+        fakeEx.exampleQueryResultCache();
+        fakeEx.exampleScatterGather();
+        fakeEx.exampleShardRouter();
+    }
+
+    public void exampleStatementCache() throws SQLException {
+        mDatabase.resetCounts();
+        Connection connection = mDatabase.connection();
+
+        for (int i = 0; i < 10; i++) {
+            PERSON_TABLE.select(ID, NAME)
+                .where(AGE.gt(i).and(NAME.like("J%")))
+                .limit(1)
+                .fetch(connection, PersonTuple.class);
+        }
+
+        // The statement is prepared once and reused from the cache
+        check("prepareStatement", mDatabase.getCount("prepareStatement"), 1);
+        check("executeQuery", mDatabase.getCount("executeQuery"), 10);
+        check("bound parameters", mDatabase.getBoundParameterCount(), 20);
+
+        // The compiled query shares the fingerprint, thus the statement, of its source
+        Select select = PERSON_TABLE.select(ID, NAME)
+            .where(AGE.gt(0).and(NAME.like("J%")))
+            .limit(1);
+        CompiledQueryStatement compiled = select.compile();
+        compiled.fetch(connection, PersonTuple.class);
+
+        check("same fingerprint (compiled)",
+            select.fingerprint() == compiled.fingerprint() ? 1 : 0, 1);
+        check("prepareStatement (compiled)", mDatabase.getCount("prepareStatement"), 1);
+    }
+
+    public void exampleClosedConnections() throws SQLException {
+        SqlBuilder.clearStatementCache();
+        FakeDatabase database = new FakeDatabase().result(persons(0, 1));
+
+        // The connections are closed without clearing their statements
+        for (int i = 0; i < 10; i++) {
+            Connection connection = database.connection();
+            PERSON_TABLE.select(ID, NAME, SURNAME, AGE).fetch(connection, PersonTuple.class);
+            connection.close();
+        }
+
+        // The cached connections are not inspected on each new connection
+        check("isClosed (before sweep)", database.getCount("isClosed"), 0);
+
+        // The sweep happens once every 64 new connections
+        for (int i = 10; i < 64; i++)
+            PERSON_TABLE.select(ID, NAME, SURNAME, AGE)
+                .fetch(database.connection(), PersonTuple.class);
+
+        check("swept (after 64 connections)", database.getCount("isClosed") > 0 ? 1 : 0, 1);
+
+        SqlBuilder.clearStatementCache();
+    }
+
+    public void exampleIdentifiedStatement() throws SQLException {
+        mDatabase.resetCounts();
+        SqlBuilder.clearStatementCache();
+        Connection connection = mDatabase.connection();
+
+        int[] renders = {0};
+
+        Update update = new Update(PERSON_TABLE) {
+            @Override
+            public String toSql() {
+                renders[0]++;
+                return super.toSql();
+            }
+        }.set(SURNAME, "Smith").where(ID.eq(1));
+
+        update.execCache(connection, 1);
+        check("renders (first execCache)", renders[0], 1);
+        check("prepareStatement (first execCache)", mDatabase.getCount("prepareStatement"), 1);
+
+        // The second execution neither renders nor prepares the statement
+        update.execCache(connection, 1);
+        check("renders (second execCache)", renders[0], 1);
+        check("prepareStatement (second execCache)", mDatabase.getCount("prepareStatement"), 1);
+        check("executeUpdate", mDatabase.getCount("executeUpdate"), 2);
+
+        SqlBuilder.clearStatementCache();
+    }
+
+    public void exampleBatch() throws SQLException {
+        mDatabase.resetCounts();
+        Connection connection = mDatabase.connection();
+
+        CompiledUpdateStatement insert = PERSON_TABLE.insert()
+            .values(null, "", "", 0)
+            .compile();
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 2500; i++)
+            rows.add(new Object[] {null, "Name" + i, "Surname" + i, 18 + i % 60});
+
+        insert.execBatch(connection, rows, 1000);
+
+        check("prepareStatement", mDatabase.getCount("prepareStatement"), 1);
+        check("addBatch", mDatabase.getCount("addBatch"), 2500);
+        check("executeBatch", mDatabase.getCount("executeBatch"), 3);
+        check("bound parameters", mDatabase.getBoundParameterCount(), 2500 * 4);
+    }
+
+    public void exampleChunks() throws SQLException {
+        // The fake database affects 2 rows for each executed statement
+        FakeDatabase database = new FakeDatabase().updateCount(2);
+        Connection connection = database.connection();
+
+        // Each row has 4 parameters, thus 3 rows fit in 12 parameters
+        int affected = persons(PERSON_TABLE.insert(), 10)
+            .maxParameters(12)
+            .exec(connection);
+
+        check("executeUpdate (parameter limit)", database.getCount("executeUpdate"), 4);
+        check("bound parameters (parameter limit)", database.getBoundParameterCount(), 10 * 4);
+        check("affected rows (parameter limit)", affected, 4 * 2);
+
+        // The chunks are committed together, then the auto-commit is restored
+        check("setAutoCommit (parameter limit)", database.getCount("setAutoCommit"), 2);
+        check("commit (parameter limit)", database.getCount("commit"), 1);
+        check("rollback (parameter limit)", database.getCount("rollback"), 0);
+        check("auto-commit (parameter limit)", connection.getAutoCommit() ? 1 : 0, 1);
+
+        // Each row takes 8 + 15 + 24 + 8 bytes, thus 2 rows fit in 120 bytes
+        database.resetCounts();
+
+        affected = persons(PERSON_TABLE.insert(), 10)
+            .maxParameters(0)
+            .maxBytes(120)
+            .exec(connection);
+
+        check("executeUpdate (byte limit)", database.getCount("executeUpdate"), 5);
+        check("affected rows (byte limit)", affected, 5 * 2);
+
+        // A failing chunk rolls back the others
+        database.resetCounts();
+        database.failure(new SQLException("Duplicate key", "23000"));
+
+        try {
+            persons(PERSON_TABLE.insert(), 10)
+                .maxParameters(12)
+                .exec(connection);
+            check("failed insert", 0, 1);
+        } catch (SQLException e) {
+            check("failed insert", 1, 1);
+        }
+
+        check("commit (failed insert)", database.getCount("commit"), 0);
+        check("rollback (failed insert)", database.getCount("rollback"), 1);
+        check("auto-commit (failed insert)", connection.getAutoCommit() ? 1 : 0, 1);
+
+        // A transaction in progress is left to the caller
+        database.resetCounts();
+        database.failure(null);
+        connection.setAutoCommit(false);
+
+        persons(PERSON_TABLE.insert(), 10)
+            .maxParameters(12)
+            .exec(connection);
+
+        check("commit (caller transaction)", database.getCount("commit"), 0);
+        check("auto-commit (caller transaction)", connection.getAutoCommit() ? 1 : 0, 0);
+
+        SqlBuilder.commit(connection);
+        connection.setAutoCommit(true);
+        check("commit (caller)", database.getCount("commit"), 1);
+    }
+
+    public void exampleMapping() throws SQLException {
+        mDatabase.resetCounts();
+        Connection connection = mDatabase.connection();
+
+        long start = System.nanoTime();
+
+        List<PersonTuple> persons = PERSON_TABLE
+            .select(ID, NAME, SURNAME, AGE)
+            .fetch(connection, PersonTuple.class);
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        check("fetched tuples", persons.size(), PERSON_COUNT);
+        check("next", mDatabase.getCount("next"), PERSON_COUNT + 1);
+
+        System.out.println("Mapped " + persons.size() + " tuples in " + elapsedMillis + "ms");
+
+        // The result set is closed even if the consumer fails midway
+        mDatabase.resetCounts();
+
+        try {
+            PERSON_TABLE
+                .select(ID, NAME, SURNAME, AGE)
+                .forEach(connection, PersonTuple.class, person -> {
+                    throw new IllegalStateException("Consumer failure");
+                });
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        check("close (failed consumer)", mDatabase.getCount("close"), 1);
+    }
+
+    public void exampleLatency() throws SQLException {
+        mDatabase.resetCounts();
+        mDatabase.latency(20, TimeUnit.MILLISECONDS);
+        Connection connection = mDatabase.connection();
+
+        long start = System.nanoTime();
+
+        PERSON_TABLE.update()
+            .set(SURNAME, "Smith")
+            .where(ID.eq(1))
+            .exec(connection);
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        check("executeUpdate", mDatabase.getCount("executeUpdate"), 1);
+
+        System.out.println("Update with 20ms of latency took " + elapsedMillis + "ms");
+
+        mDatabase.latency(0, TimeUnit.MILLISECONDS);
+    }
+
+    public void exampleQueryResultCache() throws SQLException, InterruptedException {
+        FakeDatabase database = new FakeDatabase()
+            .result(FakeResult.of(
+                new String[] {
+                    PersonTable.ID_COL_NAME, PersonTable.NAME_COL_NAME,
+                    PersonTable.SURNAME_COL_NAME, PersonTable.AGE_COL_NAME
+                },
+                3,
+                i -> new Object[] {i, "Name" + i, "Surname" + i, 18 + i}));
+
+        SqlBuilder.clearQueryResultCache();
+
+        Connection reader = database.connection();
+        Connection writer = database.connection();
+
+        Select adults = PERSON_TABLE
+            .select(ID, NAME, SURNAME, AGE)
+            .where(AGE.ge(18))
+            .cacheResults();
+
+        // The second fetch is served by the cache
+        List<PersonTuple> persons = adults.fetch(reader, PersonTuple.class);
+        adults.fetch(reader, PersonTuple.class);
+        check("executeQuery (cached)", database.getCount("executeQuery"), 1);
+
+        // The results of another database (e.g. another shard) are not shared
+        FakeDatabase otherDatabase = new FakeDatabase()
+            .result(FakeResult.of(
+                new String[] {
+                    PersonTable.ID_COL_NAME, PersonTable.NAME_COL_NAME,
+                    PersonTable.SURNAME_COL_NAME, PersonTable.AGE_COL_NAME
+                },
+                1,
+                i -> new Object[] {100 + i, "Other" + i, "Other" + i, 18 + i}));
+        check("tuples (other database)",
+            adults.fetch(otherDatabase.connection(), PersonTuple.class).size(), 1);
+        check("executeQuery (other database)", otherDatabase.getCount("executeQuery"), 1);
+
+        // The cached tuples are not affected by the caller's changes
+        persons.get(0).name = "Changed";
+        check("unchanged cached tuple",
+            adults.fetch(reader, PersonTuple.class).get(0).name.equals("Name0") ? 1 : 0, 1);
+
+        // A write in auto-commit mode invalidates the result
+        PERSON_TABLE.update().set(SURNAME, "Smith").where(ID.eq(1)).exec(writer);
+        adults.fetch(reader, PersonTuple.class);
+        adults.fetch(reader, PersonTuple.class);
+        check("executeQuery (auto-commit write)", database.getCount("executeQuery"), 2);
+
+        // While a transaction that wrote the table is in progress the rows
+        // read by the other connections precede the commit: not cached
+        writer.setAutoCommit(false);
+        PERSON_TABLE.update().set(SURNAME, "White").where(ID.eq(1)).exec(writer);
+        adults.fetch(reader, PersonTuple.class);
+        adults.fetch(reader, PersonTuple.class);
+        check("executeQuery (transaction in progress)", database.getCount("executeQuery"), 4);
+
+        // After the commit the results are cached again
+        SqlBuilder.commit(writer);
+        writer.setAutoCommit(true);
+        adults.fetch(reader, PersonTuple.class);
+        adults.fetch(reader, PersonTuple.class);
+        check("executeQuery (committed)", database.getCount("executeQuery"), 5);
+
+        // The results expire after the time to live
+        SqlBuilder.setQueryResultCacheTtl(10, TimeUnit.MILLISECONDS);
+        Thread.sleep(20);
+        adults.fetch(reader, PersonTuple.class);
+        check("executeQuery (expired)", database.getCount("executeQuery"), 6);
+        SqlBuilder.setQueryResultCacheTtl(0, TimeUnit.MILLISECONDS);
+
+        SqlBuilder.clearQueryResultCache();
+    }
+
+    public void exampleScatterGather() throws SQLException, InterruptedException {
+        // The persons 0, 1, 2 and 1, 2, 3: the persons 1 and 2 are on both
+        FakeDatabase shard1 = new FakeDatabase().result(persons(0, 3));
+        FakeDatabase shard2 = new FakeDatabase().result(persons(1, 3));
+
+        ScatterGather shards = new ScatterGather(
+            Arrays.asList(shard1.dataSource(), shard2.dataSource()));
+
+        Select adults = PERSON_TABLE.select(ID, NAME, SURNAME, AGE).where(AGE.ge(18));
+        Select minors = PERSON_TABLE.select(ID, NAME, SURNAME, AGE).where(AGE.lt(18));
+
+        // Each branch is executed over each shard and the tuples concatenated
+        check("tuples (UNION ALL)",
+            shards.fetch(new Operators.UnionAll(adults, minors), PersonTuple.class).size(), 12);
+
+        // The tuples are deduplicated across the shards, even if the union
+        // is not known as such at compile time
+        QueryStatement union = adults.union(minors);
+        check("tuples (UNION)", shards.fetch(union, PersonTuple.class).size(), 4);
+        check("executeQuery (UNION branches)", shard1.getCount("executeQuery"), 4);
+
+        // Closing the stream early stops the branches
+        FakeDatabase bigShard = new FakeDatabase().result(persons(0, PERSON_COUNT));
+        ScatterGather bigShards = new ScatterGather(
+            Arrays.asList(bigShard.dataSource(), bigShard.dataSource()))
+            .queueCapacity(16);
+
+        try (Stream<PersonTuple> persons = bigShards.stream(adults, PersonTuple.class)) {
+            check("tuples (early close)", persons.limit(10).count(), 10);
+        }
+
+        // Each branch closes its result set, its statement and its connection
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bigShard.getCount("close") < 6 && System.nanoTime() < deadline)
+            Thread.sleep(10);
+
+        check("closed branches (early close)", bigShard.getCount("close"), 6);
+        check("rows read (early close)", bigShard.getCount("next") < PERSON_COUNT ? 1 : 0, 1);
+
+        // The failure of a branch is thrown by fetch
+        shard2.failure(new SQLException("Shard unavailable", "08S01"));
+
+        try {
+            shards.fetch(union, PersonTuple.class);
+            check("failed fetch", 0, 1);
+        } catch (SQLException e) {
+            check("failed fetch", e.getMessage().equals("Shard unavailable") ? 1 : 0, 1);
+        }
+    }
+
+    public void exampleShardRouter() throws SQLException {
+        // The even persons are on the first shard, the odd ones on the second
+        FakeDatabase shard0 = new FakeDatabase()
+            .result(FakeResult.of(PERSON_COLUMN_LABELS, new Object[][] {
+                person(0), person(2), person(4)
+            }));
+        FakeDatabase shard1 = new FakeDatabase()
+            .result(FakeResult.of(PERSON_COLUMN_LABELS, new Object[][] {
+                person(1), person(3), person(5)
+            }));
+
+        ShardRouter router = new ShardRouter(PERSON_TABLE, ID,
+            Arrays.asList(shard0.dataSource(), shard1.dataSource()),
+            (key, shardCount) -> (Integer) key % shardCount);
+
+        // An equality on the shard key selects its shard
+        check("shards (k = ?)",
+            router.route(PERSON_TABLE.select(ID, NAME).where(ID.eq(3))).equals(
+                Collections.singletonList(1)) ? 1 : 0, 1);
+
+        router.fetch(PERSON_TABLE.select(ID, NAME, SURNAME, AGE).where(ID.eq(3)), PersonTuple.class);
+        check("executeQuery (k = ?, other shard)", shard0.getCount("executeQuery"), 0);
+        check("executeQuery (k = ?, shard)", shard1.getCount("executeQuery"), 1);
+
+        // AND intersects and OR unites the shards of their operands
+        check("shards (k = ? AND k = ?)",
+            router.route(PERSON_TABLE.select(ID).where(ID.eq(2).and(ID.eq(3)))).size(), 0);
+        check("shards (k = ? AND other)",
+            router.route(PERSON_TABLE.select(ID).where(ID.eq(2).and(AGE.gt(18)))).equals(
+                Collections.singletonList(0)) ? 1 : 0, 1);
+        check("shards (k = ? OR k = ?)",
+            router.route(PERSON_TABLE.select(ID).where(ID.eq(2).or(ID.eq(3)))).size(), 2);
+        check("shards (k = ? OR other)",
+            router.route(PERSON_TABLE.select(ID).where(ID.eq(2).or(AGE.gt(18)))).size(), 2);
+
+        // The rows of an insert are put on the shard they belong to
+        shard0.resetCounts();
+        shard1.resetCounts();
+
+        int inserted = router.exec(PERSON_TABLE.insert()
+            .values(6, "Name6", "Surname6", 30)
+            .values(7, "Name7", "Surname7", 30)
+            .values(8, "Name8", "Surname8", 30));
+
+        // Each shard executes a single statement which affects one row on the fake database
+        check("affected rows (insert)", inserted, 2);
+        check("bound parameters (insert, first shard)", shard0.getBoundParameterCount(), 2 * 4);
+        check("bound parameters (insert, second shard)", shard1.getBoundParameterCount(), 4);
+
+        // An insert without rows is executed nowhere
+        check("affected rows (empty insert)", router.exec(PERSON_TABLE.insert()), 0);
+        check("executeUpdate (empty insert)",
+            shard0.getCount("executeUpdate") + shard1.getCount("executeUpdate"), 2);
+
+        // The sorted tuples of the shards are merged, then limited
+        List<PersonTuple> firsts = router.fetch(
+            PERSON_TABLE.select(ID, NAME, SURNAME, AGE).orderByAsc(ID).limit(4),
+            PersonTuple.class);
+
+        check("merged tuples (ORDER BY + LIMIT)", firsts.size(), 4);
+        for (int i = 0; i < firsts.size(); i++)
+            check("merged id #" + i + " (ORDER BY + LIMIT)", firsts.get(i).id, i);
+
+        // The groups, the aggregates and the offsets can't be merged
+        checkRejected("GROUP BY", () -> router.fetch(
+            PERSON_TABLE.select(AGE).groupBy(AGE), PersonTuple.class));
+        checkRejected("aggregate", () -> router.fetch(
+            PERSON_TABLE.select(new Column<>(PERSON_TABLE, "COUNT(*)", new Int())),
+            PersonTuple.class));
+        checkRejected("offset", () -> router.fetch(
+            PERSON_TABLE.select(ID).limit(2, 4), PersonTuple.class));
+    }
+
+    /**
+     * Adds the rows of the first persons to the given insert.
+     * @param insert the insert
+     * @param count the number of persons
+     * @return the insert
+     */
+    private static Insert persons(Insert insert, int count) {
+        for (int i = 0; i < count; i++)
+            insert.values(person(i));
+        return insert;
+    }
+
+    /**
+     * Returns the values of the row of the given person.
+     * @param id the id of the person
+     * @return the row of the person
+     */
+    private static Object[] person(int id) {
+        return new Object[] {id, "Name" + id, "Surname" + id, 30};
+    }
+
+    /**
+     * Returns the result of a query of the given persons.
+     * @param first the id of the first person
+     * @param count the number of persons
+     * @return the result
+     */
+    private static FakeResult persons(int first, int count) {
+        return FakeResult.of(PERSON_COLUMN_LABELS, count, i -> person(first + i));
+    }
+
+    /**
+     * Checks that the given fetch is rejected since its tuples can't be merged.
+     * @param what the description of the fetch
+     * @param fetch the fetch
+     * @throws SQLException if the fetch fails for another reason
+     */
+    private static void checkRejected(String what, Fetch fetch) throws SQLException {
+        try {
+            fetch.run();
+            check("rejected " + what, 0, 1);
+        } catch (IllegalArgumentException e) {
+            check("rejected " + what, 1, 1);
+        }
+    }
+
+    /**
+     * A fetch which might fail.
+     */
+    private interface Fetch {
+        void run() throws SQLException;
+    }
+
+    private static void check(String what, long actual, long expected) {
+        if (actual != expected)
+            throw new IllegalStateException(
+                "Unexpected " + what + ": " + actual + " instead of " + expected);
+
+        System.out.println(what + ": " + actual);
+    }
+}
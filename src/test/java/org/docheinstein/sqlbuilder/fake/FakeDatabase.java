@@ -0,0 +1,667 @@
+package org.docheinstein.sqlbuilder.fake;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * In-process stand-in of a database, which provides JDBC objects
+ * ({@link Connection}, {@link PreparedStatement}, {@link ResultSet})
+ * that don't need a database server.
+ * <p>
+ * The queries return the {@link FakeResult} configured for their sql
+ * string, the updates affect a configurable number of rows and every
+ * execution might take a simulated latency and fail with a given exception. Every method invoked on the
+ * JDBC objects is counted, so that the calls performed by the library
+ * (e.g. prepareStatement, setObject, executeQuery) can be asserted.
+ * <p>
+ * e.g.
+ *
+ * <pre>
+ * FakeDatabase db = new FakeDatabase()
+ *     .result(FakeResult.of(new String[] {"Id", "Name"}, 1000,
+ *         i -&gt; new Object[] {i, "Name" + i}))
+ *     .latency(1, TimeUnit.MILLISECONDS);
+ *
+ * Connection connection = db.connection();
+ * PERSONS.select(ID, NAME).fetch(connection, PersonTuple.class);
+ * PERSONS.select(ID, NAME).fetch(connection, PersonTuple.class);
+ *
+ * assert db.getCount("prepareStatement") == 1; // cached statement
+ * assert db.getCount("executeQuery") == 2;
+ * </pre>
+ */
+public class FakeDatabase {
+
+    /** Label of the column of the result set of the generated keys. */
+    public static final String GENERATED_KEY_LABEL = "GENERATED_KEY";
+
+    /** Number of databases created so far, used for give each one its url. */
+    private static final AtomicInteger DATABASE_COUNT = new AtomicInteger();
+
+    /** The url of this database, shared by its connections. */
+    private final String mUrl = "jdbc:fake:" + DATABASE_COUNT.incrementAndGet();
+
+    /** Provides the result of each query given its sql string. */
+    private volatile Function<String, FakeResult> mResults = sql -> FakeResult.empty();
+
+    /** The number of rows affected by each update. */
+    private volatile int mUpdateCount = 1;
+
+    /** The simulated latency of each execution, in nanoseconds. */
+    private volatile long mLatencyNanos = 0;
+
+    /** The exception thrown by each execution, if any. */
+    private volatile SQLException mFailure = null;
+
+    /** The last key generated by an update. */
+    private final AtomicInteger mLastGeneratedKey = new AtomicInteger();
+
+    /** The number of invocations of each method, by method name. */
+    private final Map<String, LongAdder> mCounts = new ConcurrentHashMap<>();
+
+    // ---- CONFIGURATION ----
+
+    /**
+     * Sets the result returned by every query.
+     * @param result the result
+     * @return this database
+     */
+    public FakeDatabase result(FakeResult result) {
+        return results(sql -> result);
+    }
+
+    /**
+     * Sets the provider of the result of each query.
+     * @param results the function that returns the result of a query
+     *                given its sql string
+     * @return this database
+     */
+    public FakeDatabase results(Function<String, FakeResult> results) {
+        mResults = results;
+        return this;
+    }
+
+    /**
+     * Sets the number of rows affected by each update.
+     * <p>
+     * The default is 1.
+     * @param updateCount the number of affected rows
+     * @return this database
+     */
+    public FakeDatabase updateCount(int updateCount) {
+        mUpdateCount = updateCount;
+        return this;
+    }
+
+    /**
+     * Sets the simulated latency of each execution (i.e. executeQuery,
+     * executeUpdate and executeBatch).
+     * <p>
+     * The default is 0.
+     * @param duration the latency
+     * @param unit the unit of the latency
+     * @return this database
+     */
+    public FakeDatabase latency(long duration, TimeUnit unit) {
+        mLatencyNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    /**
+     * Sets the exception thrown by each execution (i.e. executeQuery,
+     * executeUpdate and executeBatch), after its latency.
+     * <p>
+     * The default is null, i.e. the executions succeed.
+     * @param failure the exception, or null for none
+     * @return this database
+     */
+    public FakeDatabase failure(SQLException failure) {
+        mFailure = failure;
+        return this;
+    }
+
+    // ---- JDBC OBJECTS ----
+
+    /**
+     * Returns a new connection to this database.
+     * @return the connection
+     */
+    public Connection connection() {
+        return proxy(Connection.class, new ConnectionHandler());
+    }
+
+    /**
+     * Returns a data source that provides new connections to this database.
+     * @return the data source
+     */
+    public DataSource dataSource() {
+        return proxy(DataSource.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getConnection":
+                    return connection();
+                case "isWrapperFor":
+                    return false;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    // ---- COUNTERS ----
+
+    /**
+     * Returns the number of invocations of the methods with the given name
+     * on the JDBC objects of this database (e.g. "prepareStatement",
+     * "setObject", "executeQuery").
+     * @param methodName the name of the method
+     * @return the number of invocations
+     */
+    public long getCount(String methodName) {
+        LongAdder count = mCounts.get(methodName);
+        return count != null ? count.sum() : 0;
+    }
+
+    /**
+     * Returns the number of parameters bound to the statements of this
+     * database, i.e. the number of invocations of every set method of
+     * {@link PreparedStatement} (setObject, setInt, setString, ...).
+     * @return the number of bound parameters
+     */
+    public long getBoundParameterCount() {
+        long count = 0;
+        for (Map.Entry<String, LongAdder> entry : mCounts.entrySet())
+            if (isParameterSetter(entry.getKey()))
+                count += entry.getValue().sum();
+        return count;
+    }
+
+    /**
+     * Returns the number of invocations of each method.
+     * @return the counts, sorted by method name
+     */
+    public Map<String, Long> getCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        mCounts.forEach((method, count) -> counts.put(method, count.sum()));
+        return counts;
+    }
+
+    /**
+     * Resets the number of invocations of every method.
+     */
+    public void resetCounts() {
+        mCounts.clear();
+    }
+
+    // ---- HANDLERS ----
+
+    /**
+     * Handles the invocations of a {@link Connection}.
+     */
+    private class ConnectionHandler implements InvocationHandler {
+
+        /** Whether the connection is in auto-commit mode. */
+        private volatile boolean mAutoCommit = true;
+
+        /** Whether the connection has been closed. */
+        private volatile boolean mClosed = false;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isObjectMethod(method))
+                return invokeObjectMethod(proxy, method, args);
+
+            count(method);
+
+            switch (method.getName()) {
+                case "prepareStatement":
+                    throwIfClosed(mClosed, "connection");
+                    return proxy(PreparedStatement.class,
+                        new StatementHandler((Connection) proxy, (String) args[0]));
+                case "getAutoCommit":
+                    return mAutoCommit;
+                case "setAutoCommit":
+                    mAutoCommit = (Boolean) args[0];
+                    return null;
+                case "close":
+                    mClosed = true;
+                    return null;
+                case "isClosed":
+                    return mClosed;
+                case "isValid":
+                    return !mClosed;
+                case "getMetaData":
+                    return proxy(DatabaseMetaData.class, (p, m, a) -> {
+                        switch (m.getName()) {
+                            case "getDatabaseProductName":
+                                return "FakeDatabase";
+                            case "getURL":
+                                return mUrl;
+                            default:
+                                return defaultValue(m.getReturnType());
+                        }
+                    });
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+    }
+
+    /**
+     * Handles the invocations of a {@link PreparedStatement}.
+     */
+    private class StatementHandler implements InvocationHandler {
+
+        /** The connection that created the statement. */
+        private final Connection mConnection;
+
+        /** The sql string of the statement. */
+        private final String mSql;
+
+        /** The number of rows added to the current batch. */
+        private int mBatchRows = 0;
+
+        /** The number of rows affected by the last execution. */
+        private int mLastUpdateCount = 0;
+
+        /** The first key generated by the last execution. */
+        private int mLastFirstKey = 0;
+
+        /** Whether the statement has been closed. */
+        private boolean mClosed = false;
+
+        /**
+         * Creates a handler for a statement.
+         * @param connection the connection that created the statement
+         * @param sql the sql string of the statement
+         */
+        StatementHandler(Connection connection, String sql) {
+            mConnection = connection;
+            mSql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isObjectMethod(method))
+                return invokeObjectMethod(proxy, method, args);
+
+            count(method);
+
+            switch (method.getName()) {
+                case "executeQuery":
+                    throwIfClosed(mClosed, "statement");
+                    simulateLatency();
+                    simulateFailure();
+                    return proxy(ResultSet.class,
+                        new ResultSetHandler((Statement) proxy, mResults.apply(mSql)));
+                case "executeUpdate":
+                    throwIfClosed(mClosed, "statement");
+                    simulateLatency();
+                    simulateFailure();
+                    mLastUpdateCount = mUpdateCount;
+                    mLastFirstKey = mLastGeneratedKey.addAndGet(mLastUpdateCount)
+                        - mLastUpdateCount + 1;
+                    return mLastUpdateCount;
+                case "addBatch":
+                    mBatchRows++;
+                    return null;
+                case "clearBatch":
+                    mBatchRows = 0;
+                    return null;
+                case "executeBatch": {
+                    throwIfClosed(mClosed, "statement");
+                    simulateLatency();
+                    simulateFailure();
+                    int[] updateCounts = new int[mBatchRows];
+                    Arrays.fill(updateCounts, mUpdateCount);
+                    mBatchRows = 0;
+                    return updateCounts;
+                }
+                case "getGeneratedKeys": {
+                    int firstKey = mLastFirstKey;
+                    return proxy(ResultSet.class, new ResultSetHandler((Statement) proxy,
+                        FakeResult.of(new String[] {GENERATED_KEY_LABEL}, mLastUpdateCount,
+                            index -> new Object[] {firstKey + index})));
+                }
+                case "getConnection":
+                    return mConnection;
+                case "close":
+                    mClosed = true;
+                    return null;
+                case "isClosed":
+                    return mClosed;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+    }
+
+    /**
+     * Handles the invocations of a {@link ResultSet}.
+     */
+    private class ResultSetHandler implements InvocationHandler {
+
+        /** The statement that created the result set. */
+        private final Statement mStatement;
+
+        /** The result read by the result set. */
+        private final FakeResult mResult;
+
+        /** The index of the current row. */
+        private int mCursor = -1;
+
+        /** The values of the current row. */
+        private Object[] mRow;
+
+        /** Whether the last read value was null. */
+        private boolean mWasNull = false;
+
+        /** Whether the result set has been closed. */
+        private boolean mClosed = false;
+
+        /**
+         * Creates a handler for a result set.
+         * @param statement the statement that created the result set
+         * @param result the result read by the result set
+         */
+        ResultSetHandler(Statement statement, FakeResult result) {
+            mStatement = statement;
+            mResult = result;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (isObjectMethod(method))
+                return invokeObjectMethod(proxy, method, args);
+
+            count(method);
+
+            String name = method.getName();
+
+            switch (name) {
+                case "next":
+                    throwIfClosed(mClosed, "result set");
+                    if (mCursor < mResult.getRowCount())
+                        mCursor++;
+                    mRow = mCursor < mResult.getRowCount() ? mResult.getRow(mCursor) : null;
+                    return mRow != null;
+                case "beforeFirst":
+                    mCursor = -1;
+                    mRow = null;
+                    return null;
+                case "isAfterLast":
+                    return mCursor >= mResult.getRowCount() && mResult.getRowCount() > 0;
+                case "getMetaData":
+                    return proxy(ResultSetMetaData.class, (p, m, a) -> {
+                        switch (m.getName()) {
+                            case "getColumnCount":
+                                return mResult.getColumnLabels().length;
+                            case "getColumnLabel":
+                            case "getColumnName":
+                                return mResult.getColumnLabels()[(Integer) a[0] - 1];
+                            default:
+                                return defaultValue(m.getReturnType());
+                        }
+                    });
+                case "findColumn":
+                    return findColumn((String) args[0]);
+                case "wasNull":
+                    return mWasNull;
+                case "getStatement":
+                    return mStatement;
+                case "close":
+                    mClosed = true;
+                    return null;
+                case "isClosed":
+                    return mClosed;
+                default:
+                    if (name.startsWith("get") && args != null && args.length >= 1)
+                        return getValue(method, args[0]);
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        /**
+         * Returns the value of a column of the current row, converted to
+         * the return type of the given getter.
+         * @param getter the getter (e.g. getInt, getString)
+         * @param column the index or the label of the column
+         * @return the value of the column
+         * @throws SQLException if there is no current row or the column doesn't exist
+         */
+        private Object getValue(Method getter, Object column) throws SQLException {
+            if (mRow == null)
+                throw new SQLException("The result set is not positioned on a row");
+
+            int index = column instanceof Integer ? (Integer) column : findColumn((String) column);
+
+            if (index < 1 || index > mRow.length)
+                throw new SQLException("Column index out of range: " + index);
+
+            Object value = mRow[index - 1];
+            mWasNull = value == null;
+
+            return convert(value, getter.getReturnType());
+        }
+
+        /**
+         * Returns the index of the column with the given label.
+         * @param label the label
+         * @return the index of the column
+         * @throws SQLException if the column doesn't exist
+         */
+        private int findColumn(String label) throws SQLException {
+            int index = mResult.findColumn(label);
+            if (index == 0)
+                throw new SQLException("Column '" + label + "' not found");
+            return index;
+        }
+    }
+
+    // ---- UTILITIES ----
+
+    /**
+     * Counts an invocation of the given method.
+     * @param method the method
+     */
+    private void count(Method method) {
+        mCounts.computeIfAbsent(method.getName(), name -> new LongAdder()).increment();
+    }
+
+    /**
+     * Sleeps for the simulated latency of an execution.
+     */
+    private void simulateLatency() {
+        long latencyNanos = mLatencyNanos;
+
+        if (latencyNanos <= 0)
+            return;
+
+        long deadline = System.nanoTime() + latencyNanos;
+        long remaining;
+
+        while ((remaining = deadline - System.nanoTime()) > 0)
+            LockSupport.parkNanos(remaining);
+    }
+
+    /**
+     * Throws the simulated failure of an execution, if any.
+     * @throws SQLException the failure
+     */
+    private void simulateFailure() throws SQLException {
+        SQLException failure = mFailure;
+
+        if (failure != null)
+            throw failure;
+    }
+
+    /**
+     * Throws an exception if a JDBC object has been closed.
+     * @param closed whether the object has been closed
+     * @param what the kind of the object
+     * @throws SQLException if the object has been closed
+     */
+    private static void throwIfClosed(boolean closed, String what) throws SQLException {
+        if (closed)
+            throw new SQLException("The " + what + " has been closed");
+    }
+
+    /**
+     * Returns whether the method with the given name binds a parameter
+     * of a {@link PreparedStatement}.
+     * @param methodName the name of the method
+     * @return true for setObject, setInt, setString, ...
+     */
+    private static boolean isParameterSetter(String methodName) {
+        switch (methodName) {
+            case "setAutoCommit":
+            case "setFetchSize":
+            case "setMaxRows":
+            case "setQueryTimeout":
+            case "setFetchDirection":
+            case "setPoolable":
+            case "setEscapeProcessing":
+            case "setCursorName":
+            case "setMaxFieldSize":
+            case "setLargeMaxRows":
+                return false;
+            default:
+                return methodName.startsWith("set");
+        }
+    }
+
+    /**
+     * Returns whether the given method is declared by {@link Object}.
+     * @param method the method
+     * @return true for equals, hashCode and toString
+     */
+    private static boolean isObjectMethod(Method method) {
+        return method.getDeclaringClass() == Object.class;
+    }
+
+    /**
+     * Invokes a method declared by {@link Object} on a proxy, comparing
+     * the proxies by identity.
+     * @param proxy the proxy
+     * @param method the method
+     * @param args the arguments
+     * @return the result of the method
+     */
+    private static Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return proxy.getClass().getInterfaces()[0].getSimpleName() + "@" +
+                    Integer.toHexString(System.identityHashCode(proxy));
+        }
+    }
+
+    /**
+     * Converts a value of a row to the given type, as a JDBC driver
+     * would do.
+     * @param value the value, might be null
+     * @param type the type returned by the getter
+     * @return the converted value
+     */
+    private static Object convert(Object value, Class<?> type) {
+        if (value == null)
+            return defaultValue(type);
+
+        if (type.isInstance(value))
+            return value;
+
+        if (type == String.class)
+            return value.toString();
+
+        if (value instanceof Number) {
+            Number number = (Number) value;
+
+            if (type == int.class)
+                return number.intValue();
+            if (type == long.class)
+                return number.longValue();
+            if (type == short.class)
+                return number.shortValue();
+            if (type == byte.class)
+                return number.byteValue();
+            if (type == double.class)
+                return number.doubleValue();
+            if (type == float.class)
+                return number.floatValue();
+            if (type == boolean.class)
+                return number.intValue() != 0;
+            if (type == BigDecimal.class)
+                return new BigDecimal(number.toString());
+        }
+
+        if (value instanceof Boolean && type == boolean.class)
+            return value;
+
+        if (value instanceof java.util.Date) {
+            long millis = ((java.util.Date) value).getTime();
+
+            if (type == Date.class)
+                return new Date(millis);
+            if (type == Time.class)
+                return new Time(millis);
+            if (type == Timestamp.class)
+                return new Timestamp(millis);
+        }
+
+        if (type == Object.class)
+            return value;
+
+        throw new IllegalArgumentException(
+            "Can't convert " + value.getClass().getSimpleName() + " to " + type.getSimpleName());
+    }
+
+    /**
+     * Returns the value of a method of the JDBC objects which is not simulated.
+     * @param type the return type of the method
+     * @return the default value of the type (e.g. 0, false, null)
+     */
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class)
+            return false;
+        if (type == int.class)
+            return 0;
+        if (type == long.class)
+            return 0L;
+        if (type == short.class)
+            return (short) 0;
+        if (type == byte.class)
+            return (byte) 0;
+        if (type == double.class)
+            return 0d;
+        if (type == float.class)
+            return 0f;
+        return null;
+    }
+
+    /**
+     * Creates a dynamic proxy for the given interface.
+     * @param clazz the interface
+     * @param handler the handler of the invocations
+     * @param <T> the type of the interface
+     * @return the proxy
+     */
+    private static <T> T proxy(Class<T> clazz, InvocationHandler handler) {
+        return clazz.cast(Proxy.newProxyInstance(
+            FakeDatabase.class.getClassLoader(), new Class<?>[] { clazz }, handler));
+    }
+}
@@ -0,0 +1,107 @@
+package org.docheinstein.sqlbuilder.fake;
+
+/**
+ * Describes the result set returned by a query executed on a {@link FakeDatabase}.
+ */
+public class FakeResult {
+
+    /** The result without columns and rows. */
+    private static final FakeResult EMPTY = new FakeResult(new String[0], 0, index -> new Object[0]);
+
+    /** The labels of the columns. */
+    private final String[] mColumnLabels;
+
+    /** The number of rows. */
+    private final int mRowCount;
+
+    /** The generator of the rows. */
+    private final RowGenerator mRowGenerator;
+
+    /**
+     * Creates a result.
+     * @param columnLabels the labels of the columns
+     * @param rowCount the number of rows
+     * @param rowGenerator the generator of the rows
+     */
+    private FakeResult(String[] columnLabels, int rowCount, RowGenerator rowGenerator) {
+        mColumnLabels = columnLabels;
+        mRowCount = rowCount;
+        mRowGenerator = rowGenerator;
+    }
+
+    /**
+     * Returns a result whose rows are created by the given generator.
+     * @param columnLabels the labels of the columns (e.g. the column names)
+     * @param rowCount the number of rows
+     * @param rowGenerator the generator of the rows
+     * @return the result
+     */
+    public static FakeResult of(String[] columnLabels, int rowCount, RowGenerator rowGenerator) {
+        if (rowCount < 0)
+            throw new IllegalArgumentException("The number of rows can't be negative");
+        return new FakeResult(columnLabels.clone(), rowCount, rowGenerator);
+    }
+
+    /**
+     * Returns a result made up of the given rows.
+     * @param columnLabels the labels of the columns (e.g. the column names)
+     * @param rows the values of each row, in column order
+     * @return the result
+     */
+    public static FakeResult of(String[] columnLabels, Object[][] rows) {
+        Object[][] rowsCopy = rows.clone();
+        return of(columnLabels, rowsCopy.length, index -> rowsCopy[index]);
+    }
+
+    /**
+     * Returns a result without columns and rows.
+     * @return the empty result
+     */
+    public static FakeResult empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the labels of the columns.
+     * @return the column labels
+     */
+    public String[] getColumnLabels() {
+        return mColumnLabels;
+    }
+
+    /**
+     * Returns the number of rows.
+     * @return the row count
+     */
+    public int getRowCount() {
+        return mRowCount;
+    }
+
+    /**
+     * Returns the values of the row with the given index.
+     * @param index the index of the row
+     * @return the values of the row
+     */
+    public Object[] getRow(int index) {
+        return mRowGenerator.row(index);
+    }
+
+    /**
+     * Returns the index of the column with the given label.
+     * <p>
+     * As the MySQL driver does, a TABLE.COLUMN label matches the column
+     * whose label is COLUMN too.
+     * @param label the label, compared ignoring the case
+     * @return the index of the column, starting from 1, or 0 if it doesn't exist
+     */
+    public int findColumn(String label) {
+        String columnName = label.substring(label.lastIndexOf('.') + 1);
+
+        for (int i = 0; i < mColumnLabels.length; i++)
+            if (mColumnLabels[i].equalsIgnoreCase(label) ||
+                mColumnLabels[i].equalsIgnoreCase(columnName))
+                return i + 1;
+
+        return 0;
+    }
+}
@@ -0,0 +1,17 @@
+package org.docheinstein.sqlbuilder.fake;
+
+/**
+ * Generates the rows of a {@link FakeResult}.
+ * <p>
+ * The rows are generated while the result set is read, thus even huge
+ * results don't need to be held in memory.
+ */
+public interface RowGenerator {
+
+    /**
+     * Returns the values of the row with the given index.
+     * @param index the index of the row, starting from 0
+     * @return the values of the row, in column order
+     */
+    Object[] row(int index);
+}